@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+#
+# Cold-start benchmark: launches result-json-map N times per launch strategy
+# and reports p50/p99 time-to-exit and peak RSS.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# Build the artifacts first:
+#   ./mvnw -Paot clean package      # jar + AppCDS archive + JDK 25 AOT cache
+#   ./mvnw -Pnative clean package   # optional native executable
+#
+# Peak RSS needs GNU time (/usr/bin/time); it is reported as n/a when missing.
+
+set -euo pipefail
+
+RUNS="${1:-50}"
+TARGET="${TARGET:-target}"
+JAVA="${JAVA:-java}"
+JAR="$(ls "$TARGET"/result-json-map-*.jar 2>/dev/null | grep -v -e original -e sources | head -n 1 || true)"
+CDS_ARCHIVE="$TARGET/result-json-map.jsa"
+AOT_CACHE="$TARGET/result-json-map.aot"
+NATIVE="$TARGET/result-json-map"
+ARGS=(--build name="John Doe" age=30 price=19.99 code='"123"')
+
+if [[ -z "$JAR" ]]; then
+    echo "No jar found in $TARGET, run ./mvnw clean package first" >&2
+    exit 1
+fi
+
+GNU_TIME=""
+if [[ -x /usr/bin/time ]] && /usr/bin/time -f '%M' true >/dev/null 2>&1; then
+    GNU_TIME=/usr/bin/time
+fi
+
+# Nearest-rank percentile of the numbers read from stdin
+percentile() {
+    sort -n | awk -v p="$1" '{ v[NR] = $1 } END { if (NR == 0) { print "n/a"; exit } i = int((p * NR + 99) / 100); if (i < 1) i = 1; print v[i] }'
+}
+
+run_strategy() {
+    local name="$1"
+    shift
+    local times rss rss_file start end
+    times="$(mktemp)"
+    rss="$(mktemp)"
+    rss_file="$(mktemp)"
+
+    # Warm the page cache so every strategy starts from the same state
+    "$@" "${ARGS[@]}" >/dev/null
+
+    for ((i = 0; i < RUNS; i++)); do
+        start=$(date +%s%N)
+        if [[ -n "$GNU_TIME" ]]; then
+            "$GNU_TIME" -f '%M' -o "$rss_file" "$@" "${ARGS[@]}" >/dev/null
+            cat "$rss_file" >>"$rss"
+        else
+            "$@" "${ARGS[@]}" >/dev/null
+        fi
+        end=$(date +%s%N)
+        echo $(((end - start) / 1000)) >>"$times"
+    done
+
+    local p50 p99 rss50 rss99
+    p50=$(percentile 50 <"$times")
+    p99=$(percentile 99 <"$times")
+    rss50=$(percentile 50 <"$rss")
+    rss99=$(percentile 99 <"$rss")
+    awk -v name="$name" -v p50="$p50" -v p99="$p99" -v rss50="$rss50" -v rss99="$rss99" \
+        'BEGIN { printf "%-24s %10.1f %10.1f %12s %12s\n", name, p50 / 1000, p99 / 1000, rss50, rss99 }'
+    rm -f "$times" "$rss" "$rss_file"
+}
+
+echo "Runs per strategy: $RUNS"
+printf '%-24s %10s %10s %12s %12s\n' "Strategy" "p50 ms" "p99 ms" "p50 RSS KB" "p99 RSS KB"
+
+run_strategy "jar" "$JAVA" -jar "$JAR"
+run_strategy "jar TieredStopAtLevel=1" "$JAVA" -XX:TieredStopAtLevel=1 -jar "$JAR"
+
+if [[ -f "$CDS_ARCHIVE" ]]; then
+    run_strategy "jar AppCDS" "$JAVA" -XX:SharedArchiveFile="$CDS_ARCHIVE" -jar "$JAR"
+else
+    echo "Skipping AppCDS: $CDS_ARCHIVE not found (./mvnw -Paot package)" >&2
+fi
+
+if [[ -f "$AOT_CACHE" ]]; then
+    run_strategy "jar AOT cache" "$JAVA" -XX:AOTCache="$AOT_CACHE" -jar "$JAR"
+else
+    echo "Skipping AOT cache: $AOT_CACHE not found (./mvnw -Paot package on JDK 25)" >&2
+fi
+
+if [[ -x "$NATIVE" ]]; then
+    run_strategy "native" "$NATIVE"
+else
+    echo "Skipping native: $NATIVE not found (./mvnw -Pnative package)" >&2
+fi
@@ -0,0 +1,61 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a batch of records with and without --stats timing, per {@link NumberMode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchProcessorBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    @Param({"false", "true"})
+    private boolean stats;
+
+    @Param({"typed", "lossless"})
+    private String numbers;
+
+    private String records;
+    private BatchProcessor batchProcessor;
+    private PrintStream err;
+
+    @Setup
+    public void setUp() {
+        String record = String.join(" ", BenchmarkData.delimitedPairs(10)).replace("John Doe", "'John Doe'");
+        records = (record + "\n").repeat(RECORDS);
+        batchProcessor = new BatchProcessor(new PairParser(new ValueParser(NumberMode.of(numbers))), new JsonConverter(), PairTokenizer.DEFAULT,
+            stats ? new RunStats() : null);
+        err = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Converts {@value #RECORDS} records of 10 pairs.
+     */
+    @Benchmark
+    public int process() throws IOException {
+        return batchProcessor.process(new BufferedReader(new StringReader(records)), OutputStream.nullOutputStream(), err);
+    }
+}
@@ -0,0 +1,46 @@
+package info.jab.cli;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representative records shared by the benchmarks: a mix of strings, ints, longs, doubles and quoted values.
+ */
+final class BenchmarkData {
+
+    private static final String[] VALUES = {"John Doe", "42", "3000000000", "19.99", "\"123\"", "user@example.com"};
+    private static final FieldType[] TYPES = {
+        FieldType.STRING, FieldType.INT, FieldType.LONG, FieldType.DOUBLE, FieldType.STRING, FieldType.STRING
+    };
+
+    private BenchmarkData() {
+    }
+
+    static String[] delimitedPairs(int count) {
+        String[] pairs = new String[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = "field" + i + "=" + VALUES[i % VALUES.length];
+        }
+        return pairs;
+    }
+
+    static String[] alternatingPairs(int count) {
+        String[] pairs = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            pairs[2 * i] = "field" + i;
+            pairs[2 * i + 1] = VALUES[i % VALUES.length];
+        }
+        return pairs;
+    }
+
+    /**
+     * Schema declaring the type of every field of {@link #delimitedPairs(int)} and {@link #alternatingPairs(int)}.
+     */
+    static Schema schema(int count) {
+        Map<String, FieldType> fieldTypes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            fieldTypes.put("field" + i, TYPES[i % TYPES.length]);
+        }
+        return new Schema(fieldTypes, UnknownFieldPolicy.REJECT);
+    }
+}
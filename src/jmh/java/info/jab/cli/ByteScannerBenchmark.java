@@ -0,0 +1,86 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Byte scanning with the Vector API against the scalar loop and {@link String#indexOf(int)}.
+ * The searched byte is the last one of the input, so every byte is examined.
+ * Run with {@code --add-modules jdk.incubator.vector}, which the jmh profile passes to the JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteScannerBenchmark {
+
+    @Param({"16", "64", "1024", "65536"})
+    private int length;
+
+    private final ByteScanner scalar = new ScalarByteScanner();
+    private final ByteScanner vector = new VectorByteScanner();
+    private byte[] bytes;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        String record = String.join(" ", BenchmarkData.delimitedPairs(8)).replace('=', ' ').replace('"', ' ');
+        StringBuilder input = new StringBuilder(length);
+        while (input.length() < length) {
+            input.append(record);
+        }
+        input.setLength(length - 1);
+        input.append('\n');
+        text = input.toString();
+        bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public int scalarIndexOf() {
+        return scalar.indexOf(bytes, 0, bytes.length, (byte) '\n');
+    }
+
+    @Benchmark
+    public int vectorIndexOf() {
+        return vector.indexOf(bytes, 0, bytes.length, (byte) '\n');
+    }
+
+    @Benchmark
+    public int stringIndexOf() {
+        return text.indexOf('\n');
+    }
+
+    @Benchmark
+    public int scalarIndexOfLineBreak() {
+        return scalar.indexOfAny(bytes, 0, bytes.length, (byte) '\n', (byte) '\r');
+    }
+
+    @Benchmark
+    public int vectorIndexOfLineBreak() {
+        return vector.indexOfAny(bytes, 0, bytes.length, (byte) '\n', (byte) '\r');
+    }
+
+    @Benchmark
+    public int scalarCount() {
+        return scalar.count(bytes, 0, bytes.length, (byte) '\n');
+    }
+
+    @Benchmark
+    public int vectorCount() {
+        return vector.count(bytes, 0, bytes.length, (byte) '\n');
+    }
+}
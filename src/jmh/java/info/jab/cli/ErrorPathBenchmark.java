@@ -0,0 +1,99 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dirty input: a batch where 10% of the records are malformed, reported as text or as
+ * JSON Lines for --errors, and the cost of one error with and without a stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final int RECORDS = 10_000;
+    private static final String PAIR = "name=John";
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+
+        @Param({"0", "10"})
+        private int malformedPercent;
+
+        @Param({"TEXT", "JSON_LINES"})
+        private ErrorFormat format;
+
+        private String records;
+        private BatchProcessor batchProcessor;
+        private PrintStream err;
+
+        @Setup
+        public void setUp() {
+            String valid = String.join(" ", BenchmarkData.delimitedPairs(10)).replace("John Doe", "'John Doe'");
+            // The common mistakes, in turn: a pair without its delimiter, an empty field, a value left without its field
+            String[] malformed = {
+                valid.replace("field3=", "field3 "),
+                valid.replace("field5=", "="),
+                String.join(" ", BenchmarkData.alternatingPairs(10)).replace("John Doe", "'John Doe'")
+                    .replace(" field9 ", " ")
+            };
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < RECORDS; i++) {
+                boolean bad = i % 100 < malformedPercent;
+                lines.append(bad ? malformed[i % malformed.length] : valid).append('\n');
+            }
+            records = lines.toString();
+            batchProcessor = new BatchProcessor(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT, null, null,
+                format);
+            err = new PrintStream(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * Converts {@value #RECORDS} records of 10 pairs, reported per record.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int process(Batch batch) throws IOException {
+        return batch.batchProcessor.process(new BufferedReader(new StringReader(batch.records)),
+            OutputStream.nullOutputStream(), batch.err);
+    }
+
+    /**
+     * Creates the error of a pair without its delimiter, with its message, as parsing did before.
+     */
+    @Benchmark
+    public IllegalArgumentException stackTraceError() {
+        return new IllegalArgumentException("Invalid pair format: '" + PAIR + "'. Expected format: "
+            + PairTokenizer.DEFAULT.expectedFormat());
+    }
+
+    /**
+     * Creates the same error as a stackless {@link RecordException}, whose message is built on demand.
+     */
+    @Benchmark
+    public RecordException stacklessError() {
+        return RecordException.missingDelimiter(PAIR, 0, PAIR.length(), 2, PairTokenizer.DEFAULT);
+    }
+}
@@ -0,0 +1,89 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link HttpResultServer} against a local client: concurrent callers sharing one
+ * {@link HttpClient}, whose connections are kept alive between requests.
+ * Throughput mode gives requests per millisecond, sample mode the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class HttpResultServerBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private HttpResultServer server;
+    private HttpClient client;
+    private HttpRequest recordRequest;
+    private HttpRequest batchRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new HttpResultServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT);
+        server.start();
+        URI base = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.port() + "/");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        StringJoiner query = new StringJoiner("&");
+        for (String pair : BenchmarkData.delimitedPairs(10)) {
+            int separator = pair.indexOf('=');
+            query.add(pair.substring(0, separator) + "=" + URLEncoder.encode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        recordRequest = HttpRequest.newBuilder(base.resolve("?" + query)).build();
+
+        String record = String.join(" ", BenchmarkData.delimitedPairs(10)).replace("John Doe", "'John Doe'");
+        batchRequest = HttpRequest.newBuilder(base)
+            .header("Content-Type", "text/plain")
+            .POST(HttpRequest.BodyPublishers.ofString((record + "\n").repeat(BATCH_SIZE)))
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String queryRecord() throws Exception {
+        return client.send(recordRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    /**
+     * One request carrying {@value #BATCH_SIZE} records.
+     */
+    @Benchmark
+    public String batchBody() throws Exception {
+        return client.send(batchRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
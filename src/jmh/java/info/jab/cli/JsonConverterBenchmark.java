@@ -0,0 +1,69 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of {@link JsonConverter}, building Strings versus streaming the bytes,
+ * and streaming a Map versus a {@link CompactRecord} holding the same fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    @Param({"10", "100"})
+    private int pairs;
+
+    private JsonConverter jsonConverter;
+    private Map<String, Object> record;
+    private CompactRecord compactRecord;
+    private ResultWriter resultWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonConverter = new JsonConverter();
+        record = new PairParser().parseDelimitedPairs(BenchmarkData.delimitedPairs(pairs));
+        compactRecord = new CompactRecord();
+        compactRecord.putAll(record);
+        resultWriter = jsonConverter.newResultWriter(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resultWriter.close();
+    }
+
+    @Benchmark
+    public String convertAndWrap() throws Exception {
+        return jsonConverter.convertAndWrap(record);
+    }
+
+    @Benchmark
+    public void resultWriter() throws IOException {
+        resultWriter.writeLine(record);
+    }
+
+    @Benchmark
+    public void compactRecordWriter() throws IOException {
+        resultWriter.writeLine(compactRecord);
+    }
+}
@@ -0,0 +1,90 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of one record in each {@link OutputFormat}, and decoding cost of the binary ones.
+ * The encoded size of a record is printed during setup, as it does not show in the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10", "100"})
+    private int pairs;
+
+    private Map<String, Object> record;
+    private RecordWriter recordWriter;
+    private BinaryRecordReader reader;
+    private byte[] encoded;
+    private RecordWriter decodedWriter;
+    private PrintStream err;
+
+    @Setup
+    public void setUp() throws IOException {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        JsonConverter converter = new JsonConverter(new ObjectMapper(), new KeyCache(), outputFormat);
+        record = new PairParser().parseDelimitedPairs(BenchmarkData.delimitedPairs(pairs));
+        recordWriter = converter.newRecordWriter(OutputStream.nullOutputStream());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordWriter writer = converter.newRecordWriter(out)) {
+            writer.writeLine(record);
+        }
+        encoded = out.toByteArray();
+        System.out.println("# " + format + " record with " + pairs + " pairs: " + encoded.length + " bytes");
+
+        reader = outputFormat == OutputFormat.JSON ? null : new BinaryRecordReader(outputFormat.newMapper());
+        decodedWriter = new JsonConverter().newResultWriter(OutputStream.nullOutputStream());
+        err = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        recordWriter.close();
+        decodedWriter.close();
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        recordWriter.writeLine(record);
+    }
+
+    /**
+     * Decodes one record back to a result line; not applicable to json, which is measured as a no-op.
+     */
+    @Benchmark
+    public int decode() throws IOException {
+        if (reader == null) {
+            return 0;
+        }
+        return reader.decode(new ByteArrayInputStream(encoded), decodedWriter, err);
+    }
+}
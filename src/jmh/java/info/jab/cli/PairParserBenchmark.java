@@ -0,0 +1,60 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing cost of delimited versus alternating pairs for growing record sizes,
+ * with inferred types and with the types declared by a {@link Schema}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairParserBenchmark {
+
+    @Param({"1", "10", "100", "10000"})
+    private int pairs;
+
+    private PairParser pairParser;
+    private PairParser schemaPairParser;
+    private String[] delimitedPairs;
+    private String[] alternatingPairs;
+
+    @Setup
+    public void setUp() {
+        pairParser = new PairParser();
+        schemaPairParser = new PairParser(new ValueParser(), new KeyCache(), BenchmarkData.schema(pairs));
+        delimitedPairs = BenchmarkData.delimitedPairs(pairs);
+        alternatingPairs = BenchmarkData.alternatingPairs(pairs);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseDelimitedPairs() {
+        return pairParser.parseDelimitedPairs(delimitedPairs);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseAlternatingPairs() {
+        return pairParser.parseAlternatingPairs(alternatingPairs);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseDelimitedPairsWithSchema() {
+        return schemaPairParser.parseDelimitedPairs(delimitedPairs);
+    }
+}
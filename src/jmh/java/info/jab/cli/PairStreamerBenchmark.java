@@ -0,0 +1,66 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one record of many pairs streamed by {@link PairStreamer}, against collecting the pairs
+ * into a map with {@link PairParser} and writing it with {@link JsonConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairStreamerBenchmark {
+
+    @Param({"100000"})
+    private int pairs;
+
+    @Param({"error", "first"})
+    private String duplicates;
+
+    private String[] pairArray;
+    private String pairLines;
+    private PairStreamer pairStreamer;
+    private PairParser pairParser;
+    private JsonConverter jsonConverter;
+
+    @Setup
+    public void setUp() {
+        pairArray = BenchmarkData.delimitedPairs(pairs);
+        pairLines = String.join("\n", pairArray);
+        pairParser = new PairParser();
+        jsonConverter = new JsonConverter();
+        pairStreamer = new PairStreamer(pairParser, jsonConverter, PairTokenizer.DEFAULT,
+            DuplicateKeyPolicy.of(duplicates), '\n');
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        return pairStreamer.stream(new StringReader(pairLines), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int map() throws IOException {
+        Map<String, Object> record = pairParser.parseDelimitedPairs(pairArray);
+        jsonConverter.convertAndWrap(record, OutputStream.nullOutputStream());
+        return record.size();
+    }
+}
@@ -0,0 +1,100 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one in-process record with a {@link ResultBuilder} shared by 4 threads,
+ * against building a map and converting it to a String with {@link JsonConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ResultBuilderBenchmark {
+
+    private ResultBuilder resultBuilder;
+    private JsonConverter jsonConverter;
+
+    @Setup
+    public void setUp() {
+        resultBuilder = new ResultBuilder();
+        jsonConverter = new JsonConverter();
+    }
+
+    /**
+     * Target of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Target {
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        final StringBuilder text = new StringBuilder(256);
+        long id;
+    }
+
+    @Benchmark
+    public void builderToStream(Target target) throws IOException {
+        resultBuilder.result()
+            .put("name", "John Doe")
+            .putLong("id", target.id++)
+            .putInt("age", 42)
+            .putDouble("price", 19.99)
+            .putBoolean("active", true)
+            .writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int builderToByteBuffer(Target target) {
+        target.buffer.clear();
+        return resultBuilder.result()
+            .put("name", "John Doe")
+            .putLong("id", target.id++)
+            .putInt("age", 42)
+            .putDouble("price", 19.99)
+            .putBoolean("active", true)
+            .writeTo(target.buffer);
+    }
+
+    @Benchmark
+    public int builderToStringBuilder(Target target) throws IOException {
+        target.text.setLength(0);
+        resultBuilder.result()
+            .put("name", "John Doe")
+            .putLong("id", target.id++)
+            .putInt("age", 42)
+            .putDouble("price", 19.99)
+            .putBoolean("active", true)
+            .appendTo(target.text);
+        return target.text.length();
+    }
+
+    @Benchmark
+    public String mapToString(Target target) throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "John Doe");
+        map.put("id", target.id++);
+        map.put("age", 42);
+        map.put("price", 19.99);
+        map.put("active", true);
+        return jsonConverter.convertAndWrap(map);
+    }
+}
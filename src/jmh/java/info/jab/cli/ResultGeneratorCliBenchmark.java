@@ -0,0 +1,61 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link ResultGeneratorCli#call()} with the output sent to a null stream.
+ * Arguments are parsed by picocli once, so only the conversion is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultGeneratorCliBenchmark {
+
+    @Param({"10"})
+    private int pairs;
+
+    private ResultGeneratorCli cli;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        cli = new ResultGeneratorCli();
+        String[] pairArgs = BenchmarkData.delimitedPairs(pairs);
+        String[] args = new String[pairArgs.length + 1];
+        args[0] = "--build";
+        System.arraycopy(pairArgs, 0, args, 1, pairArgs.length);
+        new CommandLine(cli).parseArgs(args);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public Integer call() {
+        return cli.call();
+    }
+}
@@ -0,0 +1,101 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of --validate per record: a batch of records converted with and without a schema,
+ * and the schema check of one parsed record on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final int RECORDS = 10_000;
+    private static final int FIELDS = 10;
+
+    @Param({"false", "true"})
+    private boolean validate;
+
+    private String records;
+    private BatchProcessor batchProcessor;
+    private JsonSchemaValidator validator;
+    private CompactRecord record;
+    private PrintStream err;
+
+    @Setup
+    public void setUp() {
+        String line = String.join(" ", BenchmarkData.delimitedPairs(FIELDS)).replace("John Doe", "'John Doe'");
+        records = (line + "\n").repeat(RECORDS);
+        validator = JsonSchemaValidator.compile(schema());
+        batchProcessor = new BatchProcessor(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT, null,
+            validate ? validator : null);
+        record = new CompactRecord();
+        new PairParser().parseTokens(line, new LineTokenizer(PairTokenizer.DEFAULT).tokenize(line, new Tokens()),
+            PairTokenizer.DEFAULT, record);
+        err = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Constrains every field of {@link BenchmarkData#delimitedPairs} by the value it cycles through.
+     */
+    private static ObjectNode schema() {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode schema = mapper.createObjectNode().put("type", "object").put("additionalProperties", false);
+        ObjectNode properties = schema.putObject("properties");
+        for (int i = 0; i < FIELDS; i++) {
+            ObjectNode property = properties.putObject("field" + i);
+            switch (i % 6) {
+                case 0 -> property.put("type", "string").put("minLength", 1).put("maxLength", 64);
+                case 1 -> property.put("type", "integer").put("minimum", 0).put("maximum", 150);
+                case 2 -> property.put("type", "integer").put("exclusiveMinimum", 0);
+                case 3 -> property.put("type", "number").put("minimum", 0).put("multipleOf", 0.01);
+                case 4 -> property.put("type", "string").put("pattern", "^[0-9]+$");
+                default -> property.put("type", "string").put("pattern", "@");
+            }
+        }
+        schema.putArray("required").add("field0").add("field1");
+        return schema;
+    }
+
+    /**
+     * Converts {@value #RECORDS} records of 10 pairs, reported per record.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int process() throws IOException {
+        return batchProcessor.process(new BufferedReader(new StringReader(records)), OutputStream.nullOutputStream(), err);
+    }
+
+    /**
+     * Checks one parsed record of 10 fields against the schema.
+     */
+    @Benchmark
+    public List<String> validateRecord() {
+        return validator.validate(record);
+    }
+}
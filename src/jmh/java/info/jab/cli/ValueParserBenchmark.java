@@ -0,0 +1,54 @@
+package info.jab.cli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typing cost of {@link ValueParser#parseValue(String)} per kind of value and {@link NumberMode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueParserBenchmark {
+
+    @Param({"string", "int", "long", "double", "quoted"})
+    private String kind;
+
+    @Param({"typed", "lossless", "big"})
+    private String numbers;
+
+    private ValueParser valueParser;
+    private String value;
+
+    @Setup
+    public void setUp() {
+        valueParser = new ValueParser(NumberMode.of(numbers));
+        value = switch (kind) {
+            case "string" -> "John Doe";
+            case "int" -> "123456";
+            case "long" -> "3000000000";
+            case "double" -> "19.99";
+            case "quoted" -> "\"123\"";
+            default -> throw new IllegalArgumentException("Unknown kind: " + kind);
+        };
+    }
+
+    @Benchmark
+    public Object parseValue() {
+        return valueParser.parseValue(value);
+    }
+}
@@ -0,0 +1,59 @@
+package info.jab.cli;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Character view over a region of ASCII bytes, such as a line of a memory-mapped file.
+ * Each byte is one character, so a line can be tokenized and parsed in place and Strings
+ * are only created for field names and string values.
+ * The view can be moved to another region with {@link #reset(ByteBuffer, int, int)}.
+ */
+final class AsciiByteSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    /**
+     * Points this view at the region [offset, offset + length) of the buffer.
+     * The buffer must only contain ASCII bytes in that region.
+     *
+     * @return this view
+     */
+    AsciiByteSequence reset(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString(start, end);
+    }
+
+    /**
+     * Copies the region [start, end) of this view into a String.
+     */
+    String toString(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(offset + start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+}
@@ -0,0 +1,284 @@
+package info.jab.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes a stream of records, one record per line.
+ * Each line is split into arguments with {@link LineTokenizer} and parsed with the
+ * same rules as the --build option, producing one &lt;result&gt; line per record.
+ * Invalid records are reported with their line number without aborting the stream.
+ * Each line is parsed into one reused {@link CompactRecord}, so results keep the input field order
+ * and numbers are written without being boxed.
+ * With a {@link JsonSchemaValidator}, records violating the schema are reported like invalid lines and not written.
+ * With a {@link RunStats}, every record is timed phase by phase; without one, the only cost is a null check.
+ * Errors are reported one line per record in an {@link ErrorFormat}, and a run can stop at a number of invalid records.
+ * Instances reuse parsing state between lines and are not thread-safe.
+ */
+public class BatchProcessor {
+
+    private static final int MAX_RETAINED_REPORT = 1 << 16;
+
+    private final LineTokenizer lineTokenizer;
+    private final PairParser pairParser;
+    private final JsonConverter jsonConverter;
+    private final PairTokenizer pairTokenizer;
+    private final RunStats stats;
+    private final JsonSchemaValidator validator;
+    private final ErrorFormat errorFormat;
+    private final StringBuilder report = new StringBuilder();
+    private final Tokens tokens = new Tokens();
+    private final CompactRecord record = new CompactRecord();
+    private MeteredOutputStream output;
+
+    public BatchProcessor() {
+        this(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT);
+    }
+
+    public BatchProcessor(PairParser pairParser, JsonConverter jsonConverter, PairTokenizer pairTokenizer) {
+        this(pairParser, jsonConverter, pairTokenizer, null);
+    }
+
+    /**
+     * Creates a processor recording the phases of every record.
+     *
+     * @param pairParser the parser of the arguments of a line
+     * @param jsonConverter the converter writing the results
+     * @param pairTokenizer the tokenizer locating the delimiter
+     * @param stats the statistics receiving the timings, or null to skip timing
+     */
+    public BatchProcessor(PairParser pairParser, JsonConverter jsonConverter, PairTokenizer pairTokenizer,
+            RunStats stats) {
+        this(pairParser, jsonConverter, pairTokenizer, stats, null);
+    }
+
+    /**
+     * Creates a processor checking every record against a schema before writing it.
+     *
+     * @param pairParser the parser of the arguments of a line
+     * @param jsonConverter the converter writing the results
+     * @param pairTokenizer the tokenizer locating the delimiter
+     * @param stats the statistics receiving the timings, or null to skip timing
+     * @param validator the schema of the records, or null to write every parsed record
+     */
+    public BatchProcessor(PairParser pairParser, JsonConverter jsonConverter, PairTokenizer pairTokenizer,
+            RunStats stats, JsonSchemaValidator validator) {
+        this(pairParser, jsonConverter, pairTokenizer, stats, validator, ErrorFormat.TEXT);
+    }
+
+    /**
+     * Creates a processor reporting invalid records in the given format.
+     *
+     * @param pairParser the parser of the arguments of a line
+     * @param jsonConverter the converter writing the results
+     * @param pairTokenizer the tokenizer locating the delimiter
+     * @param stats the statistics receiving the timings, or null to skip timing
+     * @param validator the schema of the records, or null to write every parsed record
+     * @param errorFormat the format of the line reporting each invalid record
+     */
+    public BatchProcessor(PairParser pairParser, JsonConverter jsonConverter, PairTokenizer pairTokenizer,
+            RunStats stats, JsonSchemaValidator validator, ErrorFormat errorFormat) {
+        this.lineTokenizer = new LineTokenizer(pairTokenizer);
+        this.pairParser = pairParser;
+        this.jsonConverter = jsonConverter;
+        this.pairTokenizer = pairTokenizer;
+        this.stats = stats;
+        this.validator = validator;
+        this.errorFormat = errorFormat;
+    }
+
+    /**
+     * Reads every line from the reader and writes one result per record to the stream.
+     * Blank lines are skipped. Results are written through a single {@link RecordWriter},
+     * which is flushed at the end; the stream is not closed.
+     *
+     * @param reader the source of records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @return the number of records that could not be converted
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(BufferedReader reader, OutputStream out, PrintStream err) throws IOException {
+        return process(reader, out, err, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Processes the lines of the reader like {@link #process(BufferedReader, OutputStream, PrintStream)},
+     * stopping after the invalid record that brings the number of errors to maxErrors.
+     *
+     * @param reader the source of records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @param maxErrors the number of invalid records that stops the run
+     * @return the number of records that could not be converted, at most maxErrors
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(BufferedReader reader, OutputStream out, PrintStream err, int maxErrors) throws IOException {
+        int errors = 0;
+        long lineNumber = 0;
+        String line;
+
+        try (RecordWriter resultWriter = newRecordWriter(out)) {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!processLine(line, lineNumber, resultWriter, err) && ++errors >= maxErrors) {
+                    break;
+                }
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Converts a single record line and writes its result. Blank lines are skipped.
+     *
+     * @param line the record line
+     * @param lineNumber the line number reported if the record is invalid
+     * @param resultWriter the writer receiving the result
+     * @param err the stream where the error is reported if the record is invalid
+     * @return false if the record was invalid, true otherwise
+     * @throws IOException if writing the result fails
+     */
+    boolean processLine(CharSequence line, long lineNumber, RecordWriter resultWriter, PrintStream err)
+            throws IOException {
+        if (isBlank(line)) {
+            return true;
+        }
+        if (stats != null) {
+            return processTimedLine(line, lineNumber, resultWriter, err);
+        }
+
+        try {
+            pairParser.parseTokens(line, lineTokenizer.tokenize(line, tokens), pairTokenizer, record);
+        } catch (IllegalArgumentException e) {
+            report(err, lineNumber, line, e);
+            return false;
+        }
+        if (validator != null && !isValid(lineNumber, line, validator.validate(record), err)) {
+            return false;
+        }
+
+        resultWriter.writeLine(record);
+        return true;
+    }
+
+    private boolean processTimedLine(CharSequence line, long lineNumber, RecordWriter resultWriter, PrintStream err)
+            throws IOException {
+        long allocated = RunStats.threadAllocatedBytes();
+        long start = System.nanoTime();
+        RunStats.Phase phase = RunStats.Phase.TOKENIZE;
+        long tokenized = start;
+        try {
+            Tokens lineTokens = lineTokenizer.tokenize(line, tokens);
+            tokenized = System.nanoTime();
+            stats.record(phase, tokenized - start);
+            phase = RunStats.Phase.PARSE;
+            pairParser.parseTokens(line, lineTokens, pairTokenizer, record);
+        } catch (IllegalArgumentException e) {
+            stats.record(phase, System.nanoTime() - tokenized);
+            stats.addError(allocatedSince(allocated));
+            report(err, lineNumber, line, e);
+            return false;
+        }
+        long parsed = System.nanoTime();
+        stats.record(RunStats.Phase.PARSE, parsed - tokenized);
+        if (validator != null) {
+            List<String> violations = validator.validate(record);
+            long validated = System.nanoTime();
+            stats.record(RunStats.Phase.VALIDATE, validated - parsed);
+            if (!isValid(lineNumber, line, violations, err)) {
+                stats.addError(allocatedSince(allocated));
+                return false;
+            }
+            parsed = validated;
+        }
+
+        // Output I/O triggered by the writer is timed as writes, not as serialization
+        long outputNanos = output != null ? output.nanos() : 0;
+        resultWriter.writeLine(record);
+        long outputSpent = output != null ? output.nanos() - outputNanos : 0;
+        stats.record(RunStats.Phase.SERIALIZE, System.nanoTime() - parsed - outputSpent);
+        stats.addRecord(allocatedSince(allocated));
+        return true;
+    }
+
+    private boolean isValid(long lineNumber, CharSequence line, List<String> violations, PrintStream err) {
+        if (violations.isEmpty()) {
+            return true;
+        }
+        report(err, lineNumber, line, ErrorCode.SCHEMA_VIOLATION, 0, null, null, String.join("; ", violations));
+        return false;
+    }
+
+    private void report(PrintStream err, long lineNumber, CharSequence line, IllegalArgumentException error) {
+        if (error instanceof RecordException recordError) {
+            report(err, lineNumber, line, recordError.code(), recordError.position(), recordError.field(),
+                recordError.input(), recordError.getMessage());
+        } else {
+            report(err, lineNumber, line, ErrorCode.INVALID_RECORD, 0, null, null, error.getMessage());
+        }
+    }
+
+    private void report(PrintStream err, long lineNumber, CharSequence line, ErrorCode code, int position, String field,
+            String input, String message) {
+        report.setLength(0);
+        errorFormat.append(report, lineNumber, line, code, position, field, input, message);
+        err.println(report);
+        if (report.length() > MAX_RETAINED_REPORT) {
+            // A huge record is not kept alive by its report
+            report.setLength(0);
+            report.trimToSize();
+        }
+    }
+
+    private static long allocatedSince(long allocated) {
+        return allocated < 0 ? -1 : RunStats.threadAllocatedBytes() - allocated;
+    }
+
+    /**
+     * Creates a record writer for the stream with this processor's converter.
+     * When timing, the stream is metered so the writes it receives can be told apart from serialization.
+     */
+    RecordWriter newRecordWriter(OutputStream out) throws IOException {
+        if (stats != null) {
+            output = new MeteredOutputStream(out, null);
+            return jsonConverter.newRecordWriter(output);
+        }
+        return jsonConverter.newRecordWriter(out);
+    }
+
+    /**
+     * Parses a single record line into its field-value map.
+     *
+     * @param line the record line
+     * @return map of field names to parsed values
+     * @throws IllegalArgumentException if the record is invalid
+     */
+    public Map<String, Object> parseLine(String line) {
+        return parseLine((CharSequence) line);
+    }
+
+    /**
+     * Parses a record line in place, without creating a String per argument.
+     */
+    Map<String, Object> parseLine(CharSequence line) {
+        return pairParser.parseTokens(line, lineTokenizer.tokenize(line, tokens), pairTokenizer);
+    }
+
+    private static boolean isBlank(CharSequence line) {
+        if (line instanceof String str) {
+            return str.isBlank();
+        }
+        for (int i = 0, length = line.length(); i < length; i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
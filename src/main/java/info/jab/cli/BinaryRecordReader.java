@@ -0,0 +1,89 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a stream written by {@link BinaryRecordWriter} and writes every record again through
+ * a {@link RecordWriter}, typically as &lt;result&gt;{json}&lt;/result&gt; lines.
+ * A record that cannot be decoded is reported and skipped, since its length is known;
+ * a truncated stream stops the reading.
+ */
+public class BinaryRecordReader {
+
+    static final int MAX_RECORD_LENGTH = 64 << 20;
+
+    private final ObjectReader objectReader;
+
+    /**
+     * Creates a reader.
+     *
+     * @param binaryMapper the mapper of the binary encoding, such as a CBORMapper or a SmileMapper
+     */
+    public BinaryRecordReader(ObjectMapper binaryMapper) {
+        this.objectReader = binaryMapper.readerFor(new TypeReference<LinkedHashMap<String, Object>>() { })
+            .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    }
+
+    /**
+     * Decodes every record of the stream.
+     *
+     * @param in the length-prefixed records
+     * @param writer the writer receiving the decoded records, flushed at the end
+     * @param err the stream where undecodable records are reported
+     * @return the number of records that could not be decoded
+     * @throws IOException if the stream is truncated or has an invalid length, or writing fails
+     */
+    public int decode(InputStream in, RecordWriter writer, PrintStream err) throws IOException {
+        byte[] prefix = new byte[4];
+        byte[] record = new byte[256];
+        long recordNumber = 0;
+        int errors = 0;
+
+        int read;
+        while ((read = in.readNBytes(prefix, 0, prefix.length)) > 0) {
+            recordNumber++;
+            if (read < prefix.length) {
+                throw new EOFException("Truncated length of record " + recordNumber);
+            }
+            int length = ((prefix[0] & 0xFF) << 24) | ((prefix[1] & 0xFF) << 16) | ((prefix[2] & 0xFF) << 8) | (prefix[3] & 0xFF);
+            if (length < 0 || length > MAX_RECORD_LENGTH) {
+                throw new IOException("Invalid length " + Integer.toUnsignedString(length) + " of record " + recordNumber);
+            }
+            if (length > record.length) {
+                record = new byte[Math.max(length, record.length * 2)];
+            }
+            if (in.readNBytes(record, 0, length) < length) {
+                throw new EOFException("Truncated record " + recordNumber);
+            }
+
+            Map<String, Object> map;
+            try {
+                map = objectReader.readValue(record, 0, length);
+            } catch (JsonProcessingException e) {
+                err.println("Malformed record " + recordNumber + ": " + e.getOriginalMessage());
+                errors++;
+                continue;
+            }
+            if (map == null) {
+                err.println("Malformed record " + recordNumber + ": not a map");
+                errors++;
+                continue;
+            }
+            writer.writeLine(map);
+        }
+
+        writer.flush();
+        return errors;
+    }
+}
@@ -0,0 +1,136 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes records in a binary encoding such as CBOR or Smile, each one prefixed by its length
+ * as a 4-byte big-endian integer, so a reader can split the stream without parsing it.
+ * Every record is encoded on its own, without references to previous records.
+ * Instances are not thread-safe. Closing the writer flushes it but leaves the stream open.
+ */
+public class BinaryRecordWriter implements RecordWriter {
+
+    /**
+     * Record buffer exposing its array, so it is written without a copy.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        RecordBuffer() {
+            super(256);
+        }
+
+        void writeTo(OutputStream out, byte[] prefix) throws IOException {
+            int length = count;
+            prefix[0] = (byte) (length >>> 24);
+            prefix[1] = (byte) (length >>> 16);
+            prefix[2] = (byte) (length >>> 8);
+            prefix[3] = (byte) length;
+            out.write(prefix);
+            out.write(buf, 0, length);
+        }
+    }
+
+    private final ObjectWriter objectWriter;
+    private final String formatName;
+    private final OutputStream out;
+    private final RecordBuffer record = new RecordBuffer();
+    private final byte[] prefix = new byte[4];
+
+    /**
+     * Creates a writer.
+     *
+     * @param binaryMapper the mapper of the binary encoding, such as a CBORMapper or a SmileMapper
+     * @param out the stream receiving the records
+     */
+    public BinaryRecordWriter(ObjectMapper binaryMapper, OutputStream out) {
+        this.objectWriter = binaryMapper.writer();
+        this.formatName = binaryMapper.getFactory().getFormatName().toLowerCase(Locale.ROOT);
+        // Prefix and record are two small writes, buffer them like the JSON generator does
+        this.out = new BufferedOutputStream(out, 1 << 16);
+    }
+
+    @Override
+    public void writeLine(Map<String, Object> map) throws IOException {
+        if (!SerializeEvent.enabled()) {
+            writeRecord(map);
+            return;
+        }
+        writeRecorded(map.size(), () -> writeRecord(map));
+    }
+
+    /**
+     * Writes a compact record in its field order, without boxing its values.
+     */
+    @Override
+    public void writeLine(CompactRecord compactRecord) throws IOException {
+        if (!SerializeEvent.enabled()) {
+            writeRecord(compactRecord);
+            return;
+        }
+        writeRecorded(compactRecord.size(), () -> writeRecord(compactRecord));
+    }
+
+    private void writeRecorded(int fields, Write write) throws IOException {
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            write.run();
+            failed = false;
+        } finally {
+            if (event.shouldCommit()) {
+                event.format = formatName;
+                event.fields = fields;
+                event.size = failed ? 0 : prefix.length + record.size();
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private void writeRecord(Map<String, Object> map) throws IOException {
+        record.reset();
+        objectWriter.writeValue(record, map);
+        record.writeTo(out, prefix);
+    }
+
+    private void writeRecord(CompactRecord compactRecord) throws IOException {
+        record.reset();
+        try (JsonGenerator generator = objectWriter.createGenerator(record)) {
+            generator.writeStartObject(compactRecord, compactRecord.size());
+            for (int i = 0; i < compactRecord.size(); i++) {
+                generator.writeFieldName(compactRecord.key(i));
+                compactRecord.writeValue(i, generator, objectWriter);
+            }
+            generator.writeEndObject();
+        }
+        record.writeTo(out, prefix);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Encoding of one record, timed by {@link SerializeEvent}.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,48 @@
+package info.jab.cli;
+
+/**
+ * Finds bytes in a region [from, to) of a byte array. This is the innermost loop when scanning
+ * raw input for line breaks, non-ASCII bytes and &lt;result&gt; markers.
+ *
+ * {@link #INSTANCE} compares a whole vector of bytes at a time with the incubating Vector API
+ * when the JVM runs with {@code --add-modules jdk.incubator.vector}, and falls back to a scalar
+ * loop otherwise.
+ */
+interface ByteScanner {
+
+    ByteScanner INSTANCE = select();
+
+    /**
+     * @return index of the first occurrence of the byte, or -1 if there is none
+     */
+    int indexOf(byte[] bytes, int from, int to, byte b);
+
+    /**
+     * @return index of the first occurrence of either byte, or -1 if there is none
+     */
+    int indexOfAny(byte[] bytes, int from, int to, byte b1, byte b2);
+
+    /**
+     * @return index of the first byte outside the ASCII range, or -1 if there is none
+     */
+    int indexOfNonAscii(byte[] bytes, int from, int to);
+
+    /**
+     * @return number of occurrences of the byte
+     */
+    int count(byte[] bytes, int from, int to, byte b);
+
+    private static ByteScanner select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so the class is never linked when the module is missing
+                return (ByteScanner) Class.forName("info.jab.cli.VectorByteScanner")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+                // Scalar fallback
+            }
+        }
+        return new ScalarByteScanner();
+    }
+}
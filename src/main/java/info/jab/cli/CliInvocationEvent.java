@@ -0,0 +1,31 @@
+package info.jab.cli;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one {@link ResultGeneratorCli#call()} invocation.
+ * Disabled by default; enable it with the result-json-map.jfc settings.
+ */
+@Name("info.jab.cli.Invocation")
+@Label("CLI Invocation")
+@Category("Result JSON Map")
+@Description("One run of the command, from argument handling to exit code")
+@Enabled(false)
+final class CliInvocationEvent extends Event {
+
+    @Label("Mode")
+    @Description("Mode of the run: build, batch, parallel, mmap, stream, extract, decode, serve, http, client or usage")
+    String mode;
+
+    @Label("Exit Code")
+    int exitCode;
+
+    @Label("Failed")
+    @Description("Whether the run ended with a non-zero exit code")
+    boolean failed;
+}
@@ -0,0 +1,308 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Record of fields in input order, stored without a hash table or boxed numbers.
+ * Keys sit in one array and values in parallel arrays selected by the {@link Type} of each field:
+ * integers and booleans in a long[] slot, doubles in a double[] slot, strings, the text of {@link RawNumber}s
+ * and other values in an Object[] slot.
+ *
+ * A record is meant to be reused: {@link #clear()} keeps the arrays for the next record, so converting
+ * a stream of records of similar shape allocates nothing here. Adding a key again replaces the value of
+ * its first occurrence, like {@link Map#put}. Small records look keys up linearly, larger ones through
+ * an open addressing index. Instances are not thread-safe.
+ */
+public final class CompactRecord {
+
+    /**
+     * Kind of value held by a field, which selects the slot holding it.
+     */
+    public enum Type {
+        STRING, INT, LONG, DOUBLE, NUMBER, BOOLEAN, OBJECT
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int INITIAL_CAPACITY = 8;
+    // Largest number of fields whose keys are compared one by one
+    private static final int LINEAR_LOOKUP = 16;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] longs = new long[INITIAL_CAPACITY];
+    private double[] doubles = new double[INITIAL_CAPACITY];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int size;
+    // Slot + 1 of the key in each bucket, 0 for an empty bucket; only used above LINEAR_LOOKUP fields
+    private int[] index;
+    private boolean indexed;
+
+    /**
+     * Removes every field, keeping the arrays for the next record.
+     */
+    public void clear() {
+        // Release strings and other values, numbers do not hold references
+        Arrays.fill(objects, 0, size, null);
+        if (indexed) {
+            Arrays.fill(index, 0);
+            indexed = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return number of fields
+     */
+    public int size() {
+        return size;
+    }
+
+    public String key(int i) {
+        return keys[Objects.checkIndex(i, size)];
+    }
+
+    public Type type(int i) {
+        return TYPES[types[Objects.checkIndex(i, size)]];
+    }
+
+    /**
+     * @return the value of an {@link Type#INT} or {@link Type#LONG} field
+     */
+    public long longValue(int i) {
+        return longs[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * @return the value of a {@link Type#DOUBLE} field
+     */
+    public double doubleValue(int i) {
+        return doubles[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * @return the value of a {@link Type#BOOLEAN} field
+     */
+    public boolean booleanValue(int i) {
+        return longs[Objects.checkIndex(i, size)] != 0;
+    }
+
+    /**
+     * @return the value of a {@link Type#STRING} or {@link Type#OBJECT} field, or the text of a {@link Type#NUMBER} field
+     */
+    public Object objectValue(int i) {
+        return objects[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * Returns the value of a field of any type, boxing numbers and booleans.
+     *
+     * @param i the position of the field
+     * @return the value as the {@link ValueParser} types it: String, Integer, Long, Double, RawNumber, Boolean
+     *         or another object
+     */
+    public Object value(int i) {
+        return switch (type(i)) {
+            case STRING, OBJECT -> objects[i];
+            case INT -> (int) longs[i];
+            case LONG -> longs[i];
+            case DOUBLE -> doubles[i];
+            case NUMBER -> new RawNumber((String) objects[i]);
+            case BOOLEAN -> longs[i] != 0;
+        };
+    }
+
+    /**
+     * @return the position of the field, or -1 if the record has no such field
+     */
+    public int indexOf(String key) {
+        if (!indexed) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int bucket = hash(key) & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = index[bucket];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public void putString(String key, String value) {
+        int slot = slot(key);
+        types[slot] = (byte) Type.STRING.ordinal();
+        objects[slot] = value;
+    }
+
+    public void putInt(String key, int value) {
+        putPrimitive(key, Type.INT, value);
+    }
+
+    public void putLong(String key, long value) {
+        putPrimitive(key, Type.LONG, value);
+    }
+
+    public void putDouble(String key, double value) {
+        int slot = slot(key);
+        types[slot] = (byte) Type.DOUBLE.ordinal();
+        doubles[slot] = value;
+        objects[slot] = null;
+    }
+
+    public void putBoolean(String key, boolean value) {
+        putPrimitive(key, Type.BOOLEAN, value ? 1 : 0);
+    }
+
+    /**
+     * Adds the text of a JSON number, written back verbatim like a {@link RawNumber}.
+     */
+    void putNumberText(String key, String number) {
+        int slot = slot(key);
+        types[slot] = (byte) Type.NUMBER.ordinal();
+        objects[slot] = number;
+    }
+
+    /**
+     * Adds a value of any type, unboxing numbers and booleans into their slots.
+     *
+     * @param key the field name
+     * @param value the value; values other than String, Integer, Long, Double, RawNumber and Boolean are kept as objects
+     */
+    public void put(String key, Object value) {
+        switch (value) {
+            case String string -> putString(key, string);
+            case Integer integer -> putInt(key, integer);
+            case Long longValue -> putLong(key, longValue);
+            case Double doubleValue -> putDouble(key, doubleValue);
+            case Boolean booleanValue -> putBoolean(key, booleanValue);
+            case RawNumber number -> putNumberText(key, number.text());
+            case null, default -> {
+                int slot = slot(key);
+                types[slot] = (byte) Type.OBJECT.ordinal();
+                objects[slot] = value;
+            }
+        }
+    }
+
+    /**
+     * Adds every entry of a map, in its iteration order.
+     */
+    public void putAll(Map<String, ?> map) {
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Copies the record into a map, for the APIs working with maps.
+     *
+     * @return a new HashMap with boxed values
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = HashMap.newHashMap(size);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], value(i));
+        }
+        return map;
+    }
+
+    /**
+     * Writes the value of a field to a generator without boxing it. Objects go through the object writer.
+     */
+    void writeValue(int i, JsonGenerator generator, ObjectWriter objectWriter) throws IOException {
+        switch (TYPES[types[i]]) {
+            case STRING -> generator.writeString((String) objects[i]);
+            case INT -> generator.writeNumber((int) longs[i]);
+            case LONG -> generator.writeNumber(longs[i]);
+            case DOUBLE -> generator.writeNumber(doubles[i]);
+            case NUMBER -> RawNumber.write(generator, (String) objects[i]);
+            case BOOLEAN -> generator.writeBoolean(longs[i] != 0);
+            case OBJECT -> objectWriter.writeValue(generator, objects[i]);
+        }
+    }
+
+    private void putPrimitive(String key, Type type, long value) {
+        int slot = slot(key);
+        types[slot] = (byte) type.ordinal();
+        longs[slot] = value;
+        objects[slot] = null;
+    }
+
+    /**
+     * Finds the slot of a key, appending a new field if the key is not in the record.
+     */
+    private int slot(String key) {
+        Objects.requireNonNull(key, "key");
+        int found = indexOf(key);
+        if (found >= 0) {
+            return found;
+        }
+        if (size == keys.length) {
+            grow();
+        }
+        int slot = size++;
+        keys[slot] = key;
+        if (indexed) {
+            insert(slot);
+        } else if (size > LINEAR_LOOKUP) {
+            rebuildIndex();
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        types = Arrays.copyOf(types, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+        doubles = Arrays.copyOf(doubles, capacity);
+        objects = Arrays.copyOf(objects, capacity);
+        if (indexed) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Indexes every key, in a table at least twice as large as the arrays so it is never more than half full.
+     */
+    private void rebuildIndex() {
+        int buckets = Integer.highestOneBit(keys.length) * 4;
+        if (index == null || index.length < buckets) {
+            index = new int[buckets];
+        } else {
+            Arrays.fill(index, 0);
+        }
+        indexed = true;
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int slot) {
+        int mask = index.length - 1;
+        int bucket = hash(keys[slot]) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
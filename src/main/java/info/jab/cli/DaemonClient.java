@@ -0,0 +1,82 @@
+package info.jab.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Thin client for {@link DaemonServer}.
+ * Forwards the field-value pair arguments over the Unix domain socket and returns the reply,
+ * so callers avoid paying JVM, picocli and Jackson warm-up on every conversion.
+ */
+public class DaemonClient implements Closeable {
+
+    /**
+     * Reply from the server.
+     *
+     * @param exitCode 0 when the conversion succeeded, 1 otherwise
+     * @param output the wrapped JSON result, or the error message when the conversion failed
+     */
+    public record Response(int exitCode, String output) {
+    }
+
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a running server.
+     *
+     * @param socketPath path of the server socket
+     * @throws IOException if the server is not reachable
+     */
+    public DaemonClient(Path socketPath) throws IOException {
+        this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    /**
+     * Sends one argument vector and waits for the reply.
+     * The same connection can be used for several requests.
+     *
+     * @param args the field-value pairs, as passed to --build
+     * @return the server reply
+     * @throws IOException if the connection fails
+     */
+    public Response send(String[] args) throws IOException {
+        return send(null, args);
+    }
+
+    /**
+     * Sends one argument vector using a custom pair delimiter and waits for the reply.
+     *
+     * @param delimiter the pair delimiter, or null for the default '=' or ':'
+     * @param args the field-value pairs, as passed to --build
+     * @return the server reply
+     * @throws IOException if the connection fails
+     */
+    public Response send(String delimiter, String[] args) throws IOException {
+        DaemonProtocol.writeRequest(out, delimiter, args);
+        return DaemonProtocol.readResponse(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,114 @@
+package info.jab.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by {@link DaemonServer} and {@link DaemonClient}.
+ * All integers are big-endian and all strings are length-prefixed UTF-8.
+ * - Request: delimiter (empty for the default), argument count and each argument
+ * - Response: exit code followed by the result line (exit code 0) or the error message
+ */
+final class DaemonProtocol {
+
+    /**
+     * Upper bound for a single string frame, protects the server against corrupted lengths.
+     */
+    static final int MAX_STRING_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Upper bound for the argument count of a request, read before any argument is.
+     */
+    static final int MAX_ARGUMENTS = 1 << 20;
+
+    /**
+     * Upper bound for the bytes of all the strings of a request.
+     */
+    static final long MAX_REQUEST_LENGTH = MAX_STRING_LENGTH;
+
+    /**
+     * Conversion request.
+     *
+     * @param delimiter the pair delimiter, or null for the default
+     * @param args the field-value pairs
+     */
+    record Request(String delimiter, String[] args) {
+    }
+
+    private DaemonProtocol() {
+    }
+
+    static void writeRequest(DataOutputStream out, String delimiter, String[] args) throws IOException {
+        writeString(out, delimiter == null ? "" : delimiter);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a request from the stream.
+     *
+     * @return the request, or null if the peer closed the connection
+     */
+    static Request readRequest(DataInputStream in) throws IOException {
+        int delimiterLength;
+        try {
+            delimiterLength = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        String delimiter = readString(in, delimiterLength);
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid argument count: " + count);
+        }
+        String[] args = new String[count];
+        long requestLength = delimiterLength;
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            requestLength += Math.max(length, 0);
+            if (requestLength > MAX_REQUEST_LENGTH) {
+                throw new IOException("Request larger than " + MAX_REQUEST_LENGTH + " bytes");
+            }
+            args[i] = readString(in, length);
+        }
+        return new Request(delimiter.isEmpty() ? null : delimiter, args);
+    }
+
+    static void writeResponse(DataOutputStream out, int exitCode, String payload) throws IOException {
+        out.writeInt(exitCode);
+        writeString(out, payload);
+        out.flush();
+    }
+
+    static DaemonClient.Response readResponse(DataInputStream in) throws IOException {
+        int exitCode = in.readInt();
+        return new DaemonClient.Response(exitCode, readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return readString(in, in.readInt());
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Connection closed while reading a string of " + length + " bytes");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+package info.jab.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Resident server that converts field-value pairs received over a Unix domain socket.
+ * A single {@link PairParser}/{@link JsonConverter} pipeline is shared by all connections,
+ * and every connection is handled on its own virtual thread.
+ * A connection may send any number of requests, see {@link DaemonProtocol}.
+ */
+public class DaemonServer implements Closeable {
+
+    // File type bits of a Unix mode
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final Path socketPath;
+    private final PairParser pairParser;
+    private final JsonConverter jsonConverter;
+    private volatile ServerSocketChannel serverChannel;
+
+    public DaemonServer(Path socketPath) {
+        this(socketPath, new PairParser(), new JsonConverter());
+    }
+
+    public DaemonServer(Path socketPath, PairParser pairParser, JsonConverter jsonConverter) {
+        this.socketPath = socketPath;
+        this.pairParser = pairParser;
+        this.jsonConverter = jsonConverter;
+    }
+
+    /**
+     * Binds the socket and serves connections until {@link #close()} is called.
+     * A stale socket file left by a previous run is replaced; any other file, and the socket
+     * of a server still accepting connections, is left alone and fails the call.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    public void serve() throws IOException {
+        removeStaleSocket();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            serverChannel = server;
+
+            try {
+                while (server.isOpen()) {
+                    SocketChannel channel;
+                    try {
+                        channel = server.accept();
+                    } catch (AsynchronousCloseException e) {
+                        break;
+                    }
+                    executor.submit(() -> handle(channel));
+                }
+            } finally {
+                // Only the socket this server bound is its to remove
+                Files.deleteIfExists(socketPath);
+            }
+        }
+    }
+
+    /**
+     * Deletes the socket file left by a server that is gone, which refuses connections.
+     */
+    private void removeStaleSocket() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socketPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (!isSocket(attributes)) {
+            throw new IOException("Cannot listen on " + socketPath + ": the path exists and is not a socket");
+        }
+        try (SocketChannel ignored = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            throw new IOException("Cannot listen on " + socketPath + ": another server is listening on it");
+        } catch (ConnectException e) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private boolean isSocket(BasicFileAttributes attributes) throws IOException {
+        if (!attributes.isOther()) {
+            return false;
+        }
+        if (!socketPath.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+            return true;
+        }
+        int mode = (Integer) Files.getAttribute(socketPath, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & S_IFMT) == S_IFSOCK;
+    }
+
+    /**
+     * Checks whether the server socket is bound and accepting connections.
+     *
+     * @return true once {@link #serve()} has bound the socket
+     */
+    public boolean isListening() {
+        ServerSocketChannel server = serverChannel;
+        return server != null && server.isOpen();
+    }
+
+    /**
+     * Stops accepting connections. Connections in progress are allowed to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        ServerSocketChannel server = serverChannel;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            DaemonProtocol.Request request;
+            while ((request = DaemonProtocol.readRequest(in)) != null) {
+                int exitCode;
+                String payload;
+                try {
+                    payload = convert(request);
+                    exitCode = 0;
+                } catch (Exception e) {
+                    payload = String.valueOf(e.getMessage());
+                    exitCode = 1;
+                }
+                DaemonProtocol.writeResponse(out, exitCode, payload);
+            }
+        } catch (IOException e) {
+            // The client went away or sent a corrupted frame; nothing to answer
+        }
+    }
+
+    private String convert(DaemonProtocol.Request request) throws Exception {
+        PairTokenizer tokenizer = PairTokenizer.of(request.delimiter());
+        Map<String, Object> fieldValueMap = pairParser.parsePairs(request.args(), tokenizer);
+        return jsonConverter.convertAndWrap(fieldValueMap);
+    }
+}
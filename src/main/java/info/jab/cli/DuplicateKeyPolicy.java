@@ -0,0 +1,44 @@
+package info.jab.cli;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * What {@link PairStreamer} does with a field that appears more than once in a streamed record.
+ */
+public enum DuplicateKeyPolicy {
+
+    /**
+     * The record is invalid and the stream stops at the repeated field.
+     */
+    ERROR,
+
+    /**
+     * The first value is kept and later ones are skipped.
+     */
+    FIRST,
+
+    /**
+     * The last value is kept, at the position of its last occurrence. The pairs are read twice,
+     * so they must come from a file.
+     */
+    LAST;
+
+    /**
+     * Finds a policy by its case-insensitive name.
+     *
+     * @param name error, first or last
+     * @return the policy
+     * @throws IllegalArgumentException if there is no such policy
+     */
+    public static DuplicateKeyPolicy of(String name) {
+        for (DuplicateKeyPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown duplicate policy '" + name + "'. Expected one of: "
+            + Arrays.stream(values()).map(policy -> policy.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,61 @@
+package info.jab.cli;
+
+/**
+ * Kind of problem that makes a record invalid, reported by {@link RecordException}
+ * and written in the code field of an --errors sidecar.
+ */
+public enum ErrorCode {
+
+    /**
+     * Alternating pairs with fewer than two arguments.
+     */
+    TOO_FEW_ARGUMENTS("too-few-arguments"),
+
+    /**
+     * Alternating pairs with a field left without its value.
+     */
+    ODD_ARGUMENTS("odd-arguments"),
+
+    /**
+     * A pair without the delimiter in a record of delimited pairs.
+     */
+    MISSING_DELIMITER("missing-delimiter"),
+
+    /**
+     * A pair whose field name is empty.
+     */
+    EMPTY_FIELD("empty-field"),
+
+    /**
+     * A field not declared in the schema, with the reject policy.
+     */
+    UNKNOWN_FIELD("unknown-field"),
+
+    /**
+     * A value that does not match the type declared in the schema.
+     */
+    INVALID_VALUE("invalid-value"),
+
+    /**
+     * A parsed record violating the JSON Schema given to --validate.
+     */
+    SCHEMA_VIOLATION("schema-violation"),
+
+    /**
+     * Any other problem.
+     */
+    INVALID_RECORD("invalid-record");
+
+    private final String label;
+
+    ErrorCode(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the name of the code in the --errors sidecar
+     */
+    public String label() {
+        return label;
+    }
+}
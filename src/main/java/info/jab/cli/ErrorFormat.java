@@ -0,0 +1,64 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * How {@link BatchProcessor} reports an invalid record: one line per record, written to the error stream.
+ */
+public enum ErrorFormat {
+
+    /**
+     * "Error at line N: message", for a terminal.
+     */
+    TEXT {
+        @Override
+        void append(StringBuilder out, long lineNumber, CharSequence line, ErrorCode code, int position, String field,
+                String input, String message) {
+            out.append("Error at line ").append(lineNumber).append(": ").append(message);
+        }
+    },
+
+    /**
+     * One JSON object per record, for the --errors sidecar:
+     * {"line":3,"code":"missing-delimiter","position":2,"input":"age","message":"...","record":"name=John age"}.
+     * Position, field and input are left out when they do not apply.
+     */
+    JSON_LINES {
+        @Override
+        void append(StringBuilder out, long lineNumber, CharSequence line, ErrorCode code, int position, String field,
+                String input, String message) {
+            out.append("{\"line\":").append(lineNumber).append(",\"code\":\"").append(code.label()).append('"');
+            if (position > 0) {
+                out.append(",\"position\":").append(position);
+            }
+            appendString(out, "field", field);
+            appendString(out, "input", input);
+            appendString(out, "message", message);
+            appendString(out, "record", line);
+            out.append('}');
+        }
+    };
+
+    private static void appendString(StringBuilder out, String name, CharSequence value) {
+        if (value != null) {
+            out.append(",\"").append(name).append("\":\"");
+            JsonStringEncoder.getInstance().quoteAsString(value, out);
+            out.append('"');
+        }
+    }
+
+    /**
+     * Appends the report of one invalid record, without a line separator.
+     *
+     * @param out the builder receiving the report
+     * @param lineNumber the line of the record
+     * @param line the record as read
+     * @param code what is wrong with the record
+     * @param position the position of the offending argument, counted from 1, or 0 if unknown
+     * @param field the offending field, or null
+     * @param input the offending pair or value, or null
+     * @param message the description of the error
+     */
+    abstract void append(StringBuilder out, long lineNumber, CharSequence line, ErrorCode code, int position,
+            String field, String input, String message);
+}
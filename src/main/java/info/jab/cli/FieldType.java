@@ -0,0 +1,251 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Type of a field declared in a {@link Schema}. Each type converts the text of a value
+ * straight to its Java value, without the inference done by {@link ValueParser}.
+ * Values may be wrapped in single or double quotes, which are removed first.
+ */
+public enum FieldType {
+
+    STRING("string") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            return ValueParser.text(text, start, end);
+        }
+    },
+    INT("int") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            return isInteger(text, start, end, "2147483647", "2147483648") ? Integer.parseInt(text, start, end, 10) : null;
+        }
+    },
+    LONG("long") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            return isInteger(text, start, end, "9223372036854775807", "9223372036854775808")
+                ? Long.parseLong(text, start, end, 10)
+                : null;
+        }
+    },
+    DOUBLE("double") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            return isDouble(text, start, end) ? Double.parseDouble(ValueParser.text(text, start, end)) : null;
+        }
+    },
+    BOOLEAN("boolean") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            String value = ValueParser.text(text, start, end);
+            if (value.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            }
+            if (value.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            return null;
+        }
+    },
+    RAW_JSON("raw-json") {
+        @Override
+        Object convert(CharSequence text, int start, int end) {
+            String json = ValueParser.text(text, start, end);
+            // The value is copied verbatim to the output, so it must be exactly one JSON value
+            try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+                if (parser.nextToken() == null) {
+                    return null;
+                }
+                parser.skipChildren();
+                if (parser.nextToken() != null) {
+                    return null;
+                }
+            } catch (IOException e) {
+                return null;
+            }
+            return new RawValue(json);
+        }
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String label;
+
+    FieldType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the name of the type in a schema file
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Converts the value held in the region [start, end) of a character sequence.
+     *
+     * @param field the field name, used in error messages
+     * @param text the sequence holding the value
+     * @param start index of the first character of the value
+     * @param end index after the last character of the value
+     * @return the converted value
+     * @throws RecordException if the value does not match the type
+     */
+    public Object parseValue(String field, CharSequence text, int start, int end) {
+        if (end - start >= 2) {
+            char quote = text.charAt(start);
+            if ((quote == '"' || quote == '\'') && text.charAt(end - 1) == quote) {
+                start++;
+                end--;
+            }
+        }
+        Object value = convert(text, start, end);
+        if (value == null) {
+            throw RecordException.invalidValue(field, ValueParser.text(text, start, end), this);
+        }
+        return value;
+    }
+
+    /**
+     * Converts a value, checking it first instead of catching a NumberFormatException,
+     * whose stack trace would cost more than the conversion.
+     *
+     * @return the converted value, or null if the value does not match the type
+     */
+    abstract Object convert(CharSequence text, int start, int end);
+
+    /**
+     * Checks that a value is accepted by {@link Long#parseLong(CharSequence, int, int, int)} in base 10
+     * and lies within the limits, given as the decimal digits of the largest and of the negated smallest value.
+     */
+    static boolean isInteger(CharSequence text, int start, int end, String maxDigits, String minDigits) {
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.digit(text.charAt(i), 10) < 0) {
+                return false;
+            }
+        }
+        while (start < end - 1 && Character.digit(text.charAt(start), 10) == 0) {
+            start++;
+        }
+        String limit = negative ? minDigits : maxDigits;
+        if (end - start != limit.length()) {
+            return end - start < limit.length();
+        }
+        for (int i = 0; i < limit.length(); i++) {
+            int digit = Character.digit(text.charAt(start + i), 10);
+            if (digit != limit.charAt(i) - '0') {
+                return digit < limit.charAt(i) - '0';
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a value is accepted by {@link Double#parseDouble(String)}: decimal or hexadecimal digits
+     * with an optional sign, exponent and type suffix, NaN or Infinity, surrounded by optional whitespace.
+     */
+    static boolean isDouble(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            start++;
+        }
+        if (regionEquals(text, start, end, "NaN") || regionEquals(text, start, end, "Infinity")) {
+            return true;
+        }
+        boolean hex = end - start > 2 && text.charAt(start) == '0' && (text.charAt(start + 1) | 0x20) == 'x';
+        int radix = hex ? 16 : 10;
+        int i = hex ? start + 2 : start;
+        int digits = 0;
+        while (i < end && isAsciiDigit(text.charAt(i), radix)) {
+            i++;
+            digits++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && isAsciiDigit(text.charAt(i), radix)) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        // The binary exponent of a hexadecimal value is required, the decimal exponent is optional
+        if (i < end && (text.charAt(i) | 0x20) == (hex ? 'p' : 'e')) {
+            i++;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < end && isAsciiDigit(text.charAt(i), 10)) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        } else if (hex) {
+            return false;
+        }
+        if (i < end && "fFdD".indexOf(text.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isAsciiDigit(char c, int radix) {
+        return c < 128 && Character.digit(c, radix) >= 0;
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a type by its name in a schema file.
+     *
+     * @param label the name of the type
+     * @return the type
+     * @throws IllegalArgumentException if there is no such type
+     */
+    public static FieldType of(String label) {
+        for (FieldType type : values()) {
+            if (type.label.equals(label)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown type '" + label + "'. Expected one of: " + labels());
+    }
+
+    static String labels() {
+        return Arrays.stream(values()).map(FieldType::label).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,130 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field value read from a file, or from stdin, when the record is written instead of when it is parsed.
+ * In delimited --build arguments, an unquoted {@code field=@path} references a UTF-8 text file,
+ * {@code field=@-} stdin and {@code field=@base64:path} any file written as a base64 string; an unquoted value
+ * starting with {@code @@} is the literal value without its first {@code @}. Quoted values and alternating
+ * pairs are always literal, so data that happens to start with {@code @} never reads a file.
+ *
+ * JSON output streams the content through the generator, which escapes or encodes it in fixed-size chunks,
+ * so the size of the value does not affect the heap. Binary formats buffer each record to write its length,
+ * so they read the content at once and write base64 content as a native byte string.
+ *
+ * @param path the referenced file, or null for stdin
+ * @param base64 whether the content is written as base64 instead of text
+ */
+public record FileValue(Path path, boolean base64) implements JsonSerializable {
+
+    private static final char REFERENCE = '@';
+    private static final String BASE64_PREFIX = "base64:";
+    private static final String STDIN = "-";
+
+    /**
+     * Replaces every value of a map parsed from delimited pairs that references a file by its {@link FileValue},
+     * and unescapes values starting with {@code @@}. Only the value of the last pair of each field counts,
+     * and only when it is unquoted: a quoted value has already lost its quotes in the map.
+     *
+     * @param map the record parsed from the pairs, modified in place
+     * @param pairs the arguments the record was parsed from
+     * @param tokenizer the tokenizer the pairs were parsed with
+     * @throws IllegalArgumentException if a referenced file cannot be read or stdin is referenced twice
+     */
+    public static void resolveReferences(Map<String, Object> map, String[] pairs, PairTokenizer tokenizer) {
+        if (!isDelimited(pairs, tokenizer)) {
+            return;
+        }
+        boolean stdin = false;
+        Set<String> resolved = new HashSet<>();
+        for (int i = pairs.length - 1; i >= 0; i--) {
+            String pair = pairs[i];
+            int delimiterIndex = tokenizer.indexOf(pair);
+            String field = pair.substring(0, delimiterIndex).trim();
+            String value = pair.substring(delimiterIndex + tokenizer.delimiterLength()).trim();
+            // Earlier pairs of the field were replaced in the map
+            if (!resolved.add(field) || value.isEmpty() || value.charAt(0) != REFERENCE
+                    || !value.equals(map.get(field))) {
+                continue;
+            }
+            if (value.length() > 1 && value.charAt(1) == REFERENCE) {
+                map.put(field, value.substring(1));
+                continue;
+            }
+            FileValue fileValue = of(field, value.substring(1));
+            if (fileValue.path() == null) {
+                if (stdin) {
+                    throw new IllegalArgumentException("Only one field can reference stdin with @-");
+                }
+                stdin = true;
+            }
+            map.put(field, fileValue);
+        }
+    }
+
+    private static boolean isDelimited(String[] pairs, PairTokenizer tokenizer) {
+        for (String pair : pairs) {
+            if (tokenizer.indexOf(pair) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FileValue of(String field, String reference) {
+        boolean base64 = reference.startsWith(BASE64_PREFIX);
+        String location = base64 ? reference.substring(BASE64_PREFIX.length()) : reference;
+        if (location.equals(STDIN)) {
+            return new FileValue(null, base64);
+        }
+        if (location.isEmpty()) {
+            throw new IllegalArgumentException("Missing file name in reference '@" + reference + "' of field '" + field + "'");
+        }
+        Path path = Path.of(location);
+        if (Files.isDirectory(path) || !Files.isReadable(path)) {
+            throw new IllegalArgumentException("Cannot read file '" + location + "' referenced by field '" + field + "'");
+        }
+        return new FileValue(path, base64);
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        try (InputStream file = path == null ? null : Files.newInputStream(path)) {
+            // Stdin belongs to the process, leave it open
+            InputStream in = file != null ? file : System.in;
+            if (!(generator instanceof JsonGeneratorImpl)) {
+                byte[] content = in.readAllBytes();
+                if (base64) {
+                    generator.writeBinary(content);
+                } else {
+                    generator.writeString(new String(content, StandardCharsets.UTF_8));
+                }
+            } else if (base64) {
+                generator.writeBinary(in, -1);
+            } else {
+                generator.writeString(new InputStreamReader(in, StandardCharsets.UTF_8), -1);
+            }
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+}
@@ -0,0 +1,237 @@
+package info.jab.cli;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP server that converts field-value pairs, built on the JDK's {@code com.sun.net.httpserver}.
+ * Every exchange runs on its own virtual thread, and a single {@link PairParser}/{@link JsonConverter}
+ * pipeline is shared by all of them. Connections are kept alive between requests.
+ *
+ * A request carries one record or a batch of records:
+ * - GET with query parameters, or POST with an application/x-www-form-urlencoded body:
+ *   each parameter is a field and its value, answered with one &lt;result&gt; line,
+ *   or with status 400 and an error message if the record is invalid
+ * - POST with any other body: one record per line, parsed like --batch mode; the &lt;result&gt; lines
+ *   are streamed back as they are produced, with an "Error at line N: ..." line in place of each invalid record
+ *
+ * The JDK server writes headers and body separately, so with Nagle's algorithm each small response waits for
+ * the client's delayed ACK (about 40 ms). Run with {@code -Dsun.net.httpserver.nodelay=true}, as --http does;
+ * the property is JVM-wide and read once, when the first server is created, so this class does not set it.
+ */
+public class HttpResultServer implements Closeable {
+
+    static final int MAX_FORM_SIZE = 1 << 20;
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+
+    private final InetSocketAddress address;
+    private final PairParser pairParser;
+    private final JsonConverter jsonConverter;
+    private final PairTokenizer pairTokenizer;
+    private volatile HttpServer server;
+    private volatile ExecutorService executor;
+
+    public HttpResultServer(int port) {
+        this(new InetSocketAddress(port), new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT);
+    }
+
+    /**
+     * Creates a server.
+     *
+     * @param address the address to bind, port 0 picking a free port
+     * @param pairParser the parser shared by all requests
+     * @param jsonConverter the converter shared by all requests
+     * @param pairTokenizer the delimiter of the pairs in batch bodies
+     */
+    public HttpResultServer(InetSocketAddress address, PairParser pairParser, JsonConverter jsonConverter,
+            PairTokenizer pairTokenizer) {
+        this.address = address;
+        this.pairParser = pairParser;
+        this.jsonConverter = jsonConverter;
+        this.pairTokenizer = pairTokenizer;
+    }
+
+    /**
+     * Binds the address and starts answering requests in the background.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public void start() throws IOException {
+        HttpServer httpServer = HttpServer.create(address, 0);
+        ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(virtualThreads);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+        this.executor = virtualThreads;
+        this.server = httpServer;
+    }
+
+    /**
+     * @return the bound port, once {@link #start()} has returned
+     */
+    public int port() {
+        HttpServer httpServer = server;
+        if (httpServer == null) {
+            throw new IllegalStateException("Server is not started");
+        }
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections and waits for the exchanges in progress to finish.
+     */
+    @Override
+    public void close() {
+        HttpServer httpServer = server;
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.close();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                String method = exchange.getRequestMethod();
+                if (method.equals("GET")) {
+                    convertRecord(exchange, exchange.getRequestURI().getRawQuery());
+                } else if (method.equals("POST")) {
+                    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                    if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(FORM_CONTENT_TYPE)) {
+                        convertRecord(exchange, readForm(exchange.getRequestBody()));
+                    } else {
+                        convertBatch(exchange);
+                    }
+                } else {
+                    exchange.getResponseHeaders().set("Allow", "GET, POST");
+                    throw new RequestException(405, "Method " + method + " is not allowed");
+                }
+            } catch (RequestException e) {
+                sendText(exchange, e.status, "Error: " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    private void convertRecord(HttpExchange exchange, String parameters) throws IOException {
+        String[] args = decodeParameters(parameters);
+        Map<String, Object> fieldValueMap;
+        try {
+            fieldValueMap = pairParser.parseAlternatingPairs(args);
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        jsonConverter.convertAndWrap(fieldValueMap, body);
+        body.write('\n');
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+        }
+    }
+
+    private void convertBatch(HttpExchange exchange) throws IOException {
+        // Batch processors keep parsing state, so each request gets its own over the shared pipeline
+        BatchProcessor batchProcessor = new BatchProcessor(pairParser, jsonConverter, pairTokenizer);
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        PrintStream err = new PrintStream(error, true, StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        // Length 0 selects chunked encoding, so results are sent while the body is still being read
+        exchange.sendResponseHeaders(200, 0);
+        try (BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+             OutputStream out = exchange.getResponseBody();
+             RecordWriter resultWriter = batchProcessor.newRecordWriter(out)) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!batchProcessor.processLine(line, lineNumber, resultWriter, err)) {
+                    // The error goes after the results still buffered by the writer
+                    resultWriter.flush();
+                    error.writeTo(out);
+                    error.reset();
+                }
+            }
+        }
+    }
+
+    private static String readForm(InputStream body) throws IOException {
+        byte[] form = body.readNBytes(MAX_FORM_SIZE + 1);
+        if (form.length > MAX_FORM_SIZE) {
+            throw new RequestException(413, "Form body is larger than " + MAX_FORM_SIZE + " bytes");
+        }
+        return new String(form, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Splits "field=value&amp;field2=value2" into alternating field and value arguments.
+     */
+    static String[] decodeParameters(String parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            throw new RequestException(400, "No field-value pairs in the request");
+        }
+        List<String> args = new ArrayList<>();
+        for (String parameter : parameters.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            String field = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            try {
+                args.add(URLDecoder.decode(field, StandardCharsets.UTF_8));
+                args.add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, "Invalid parameter encoding: '" + parameter + "'");
+            }
+        }
+        return args.toArray(String[]::new);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * A request that cannot be answered with a result, carrying the HTTP status to reply with.
+     */
+    static final class RequestException extends RuntimeException {
+
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
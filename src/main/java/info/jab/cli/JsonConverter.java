@@ -2,6 +2,9 @@ package info.jab.cli;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -10,13 +13,34 @@ import java.util.Map;
 public class JsonConverter {
 
     private final ObjectMapper objectMapper;
+    private final KeyCache keyCache;
+    private final OutputFormat format;
+    private final ObjectMapper binaryMapper;
 
     public JsonConverter() {
-        this.objectMapper = new ObjectMapper();
+        this(new ObjectMapper());
     }
 
     public JsonConverter(ObjectMapper objectMapper) {
+        this(objectMapper, new KeyCache());
+    }
+
+    public JsonConverter(ObjectMapper objectMapper, KeyCache keyCache) {
+        this(objectMapper, keyCache, OutputFormat.JSON);
+    }
+
+    /**
+     * Creates a converter whose record writers use the given encoding.
+     *
+     * @param objectMapper the mapper used for JSON output
+     * @param keyCache the cache of encoded field names used for JSON output
+     * @param format the encoding of {@link #newRecordWriter(OutputStream)}
+     */
+    public JsonConverter(ObjectMapper objectMapper, KeyCache keyCache, OutputFormat format) {
         this.objectMapper = objectMapper;
+        this.keyCache = keyCache;
+        this.format = format;
+        this.binaryMapper = format == OutputFormat.JSON ? null : format.newMapper();
     }
 
     /**
@@ -27,7 +51,24 @@ public class JsonConverter {
      * @throws Exception if conversion fails
      */
     public String convertToJson(Map<String, Object> map) throws Exception {
-        return objectMapper.writeValueAsString(map);
+        if (!SerializeEvent.enabled()) {
+            return objectMapper.writeValueAsString(map);
+        }
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
+        String json = null;
+        try {
+            json = objectMapper.writeValueAsString(map);
+            return json;
+        } finally {
+            if (event.shouldCommit()) {
+                event.format = "json";
+                event.fields = map.size();
+                event.size = json == null ? 0 : json.getBytes(StandardCharsets.UTF_8).length;
+                event.failed = json == null;
+                event.commit();
+            }
+        }
     }
 
     /**
@@ -51,5 +92,59 @@ public class JsonConverter {
         String json = convertToJson(map);
         return wrapInResultTag(json);
     }
-}
 
+    /**
+     * Converts a map to JSON wrapped in result tags and writes it straight to a stream,
+     * without building intermediate Strings. The stream is not closed.
+     *
+     * @param map the map to convert
+     * @param out the stream receiving the wrapped JSON result
+     * @throws IOException if conversion or writing fails
+     */
+    public void convertAndWrap(Map<String, Object> map, OutputStream out) throws IOException {
+        try (ResultWriter resultWriter = newResultWriter(out)) {
+            resultWriter.write(map);
+        }
+    }
+
+    /**
+     * Converts a compact record to JSON wrapped in result tags and writes it straight to a stream,
+     * in its field order and without boxing its values. The stream is not closed.
+     *
+     * @param record the record to convert
+     * @param out the stream receiving the wrapped JSON result
+     * @throws IOException if conversion or writing fails
+     */
+    public void convertAndWrap(CompactRecord record, OutputStream out) throws IOException {
+        try (ResultWriter resultWriter = newResultWriter(out)) {
+            resultWriter.write(record);
+        }
+    }
+
+    /**
+     * Creates a writer that reuses one generator to write many results to the same stream.
+     * Field names found in this converter's {@link KeyCache} are written from their pre-encoded bytes.
+     *
+     * @param out the stream receiving the wrapped JSON results
+     * @return a new result writer, which must be flushed or closed by the caller
+     * @throws IOException if the generator cannot be created
+     */
+    public ResultWriter newResultWriter(OutputStream out) throws IOException {
+        return new ResultWriter(objectMapper, keyCache, out);
+    }
+
+    /**
+     * Creates a writer for many records in this converter's {@link OutputFormat}:
+     * result lines for JSON, length-prefixed records for the binary encodings.
+     *
+     * @param out the stream receiving the records
+     * @return a new record writer, which must be flushed or closed by the caller
+     * @throws IOException if the writer cannot be created
+     */
+    public RecordWriter newRecordWriter(OutputStream out) throws IOException {
+        if (format == OutputFormat.JSON) {
+            return newResultWriter(out);
+        }
+        return new BinaryRecordWriter(binaryMapper, out);
+    }
+}
@@ -0,0 +1,691 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * JSON Schema of the records, compiled once into a tree of validators that check every parsed record
+ * before it is written, so results are never parsed again to be validated.
+ *
+ * The record schema supports {@code type: "object"}, properties, required, additionalProperties (a boolean
+ * or a schema), minProperties and maxProperties. Property schemas are true, false or objects supporting type,
+ * enum, const, minimum, maximum, exclusiveMinimum, exclusiveMaximum, multipleOf, minLength, maxLength and pattern.
+ * Annotations such as title, description or format are ignored; any other keyword is rejected when the schema is
+ * compiled instead of being silently skipped. Numbers are compared exactly, except values parsed as doubles.
+ * Values streamed from files are strings whose length and pattern are not checked.
+ *
+ * Violations are reported with the JSON Pointer of their field, such as {@code /age: must be >= 0}.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class JsonSchemaValidator {
+
+    /**
+     * Check of one field value, compiled from the keywords of a property schema.
+     */
+    @FunctionalInterface
+    interface ValueValidator {
+
+        /**
+         * Checks field i of a record.
+         *
+         * @param violations the violations found so far, or null if there are none
+         * @return the violations, created by the first one this field adds
+         */
+        List<String> validate(CompactRecord record, int i, List<String> violations);
+    }
+
+    private static final ValueValidator ACCEPT = (record, i, violations) -> violations;
+    private static final ValueValidator REJECT = (record, i, violations) -> violation(violations, record, i, "is not allowed");
+
+    // JSON types of a value, as bits so a type keyword listing several types is one mask; integers are also numbers
+    private static final int NULL = 1;
+    private static final int BOOLEAN = 1 << 1;
+    private static final int OBJECT = 1 << 2;
+    private static final int ARRAY = 1 << 3;
+    private static final int NUMBER = 1 << 4;
+    private static final int STRING = 1 << 5;
+    private static final int INTEGER = 1 << 6;
+    private static final String[] TYPE_NAMES = {"null", "boolean", "object", "array", "number", "string", "integer"};
+
+    // Reads schemas and the structured values checked against them, with decimal numbers read exactly
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private static final Set<String> ANNOTATIONS = Set.of(
+        "$schema", "$id", "$comment", "title", "description", "default", "examples", "deprecated", "readOnly",
+        "writeOnly", "format");
+
+    private final Map<String, ValueValidator> properties;
+    private final String[] required;
+    private final ValueValidator additionalProperties;
+    private final int minProperties;
+    private final int maxProperties;
+
+    private JsonSchemaValidator(Map<String, ValueValidator> properties, String[] required,
+            ValueValidator additionalProperties, int minProperties, int maxProperties) {
+        this.properties = properties;
+        this.required = required;
+        this.additionalProperties = additionalProperties;
+        this.minProperties = minProperties;
+        this.maxProperties = maxProperties;
+    }
+
+    /**
+     * Reads and compiles a schema file. Decimal numbers of the schema are read exactly.
+     *
+     * @param file the JSON Schema of a record
+     * @return the compiled schema
+     * @throws IOException if the file cannot be read or is not JSON
+     * @throws IllegalArgumentException if the schema uses an unsupported keyword or an invalid value
+     */
+    public static JsonSchemaValidator load(Path file) throws IOException {
+        return compile(MAPPER.readTree(file.toFile()));
+    }
+
+    /**
+     * Compiles a schema.
+     *
+     * @param schema the JSON Schema of a record, an object
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema uses an unsupported keyword or an invalid value
+     */
+    public static JsonSchemaValidator compile(JsonNode schema) {
+        if (!schema.isObject()) {
+            throw new IllegalArgumentException("Invalid JSON Schema: a record schema must be an object");
+        }
+        Map<String, ValueValidator> properties = new HashMap<>();
+        List<String> required = new ArrayList<>();
+        ValueValidator additionalProperties = ACCEPT;
+        int minProperties = 0;
+        int maxProperties = Integer.MAX_VALUE;
+
+        for (Map.Entry<String, JsonNode> entry : schema.properties()) {
+            String keyword = entry.getKey();
+            JsonNode value = entry.getValue();
+            String location = "#/" + keyword;
+            switch (keyword) {
+                case "type" -> {
+                    if (!value.isTextual() || !value.asText().equals("object")) {
+                        throw invalid(location, "a record schema must have type object");
+                    }
+                }
+                case "properties" -> {
+                    if (!value.isObject()) {
+                        throw invalid(location, "must be an object");
+                    }
+                    for (Map.Entry<String, JsonNode> property : value.properties()) {
+                        properties.put(property.getKey(),
+                            compileValue(property.getValue(), location + "/" + pointer(property.getKey()).substring(1)));
+                    }
+                }
+                case "required" -> {
+                    if (!value.isArray()) {
+                        throw invalid(location, "must be an array of strings");
+                    }
+                    for (JsonNode name : value) {
+                        if (!name.isTextual()) {
+                            throw invalid(location, "must be an array of strings");
+                        }
+                        required.add(name.asText());
+                    }
+                }
+                case "additionalProperties" -> additionalProperties = compileValue(value, location);
+                case "minProperties" -> minProperties = count(value, location);
+                case "maxProperties" -> maxProperties = count(value, location);
+                default -> checkAnnotation(keyword, location);
+            }
+        }
+        return new JsonSchemaValidator(properties, required.toArray(String[]::new), additionalProperties,
+            minProperties, maxProperties);
+    }
+
+    /**
+     * Validates a record.
+     *
+     * @param record the parsed record
+     * @return the violations, empty if the record is valid
+     */
+    public List<String> validate(CompactRecord record) {
+        List<String> violations = null;
+        int size = record.size();
+        if (size < minProperties) {
+            violations = add(violations, "record has " + size + " properties, at least " + minProperties + " required");
+        }
+        if (size > maxProperties) {
+            violations = add(violations, "record has " + size + " properties, at most " + maxProperties + " allowed");
+        }
+        for (int i = 0; i < size; i++) {
+            ValueValidator validator = properties.get(record.key(i));
+            violations = (validator != null ? validator : additionalProperties).validate(record, i, violations);
+        }
+        for (String name : required) {
+            if (record.indexOf(name) < 0) {
+                violations = add(violations, pointer(name) + ": is required");
+            }
+        }
+        return violations == null ? List.of() : violations;
+    }
+
+    /**
+     * Validates a record held in a map.
+     *
+     * @param record the parsed record
+     * @return the violations, empty if the record is valid
+     */
+    public List<String> validate(Map<String, ?> record) {
+        CompactRecord compactRecord = new CompactRecord();
+        compactRecord.putAll(record);
+        return validate(compactRecord);
+    }
+
+    private static ValueValidator compileValue(JsonNode schema, String location) {
+        if (schema.isBoolean()) {
+            return schema.booleanValue() ? ACCEPT : REJECT;
+        }
+        if (!schema.isObject()) {
+            throw invalid(location, "a schema must be an object or a boolean");
+        }
+        List<ValueValidator> validators = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : schema.properties()) {
+            String keyword = entry.getKey();
+            JsonNode value = entry.getValue();
+            String keywordLocation = location + "/" + keyword;
+            switch (keyword) {
+                case "type" -> validators.add(new TypeValidator(types(value, keywordLocation)));
+                case "enum" -> {
+                    if (!value.isArray()) {
+                        throw invalid(keywordLocation, "must be an array");
+                    }
+                    validators.add(new EnumValidator(value, "must be one of " + value));
+                }
+                case "const" -> validators.add(new EnumValidator(List.of(value), "must be " + value));
+                case "minimum" -> validators.add(new RangeValidator(number(value, keywordLocation), true, false));
+                case "maximum" -> validators.add(new RangeValidator(number(value, keywordLocation), false, false));
+                case "exclusiveMinimum" -> validators.add(new RangeValidator(number(value, keywordLocation), true, true));
+                case "exclusiveMaximum" -> validators.add(new RangeValidator(number(value, keywordLocation), false, true));
+                case "multipleOf" -> {
+                    BigDecimal divisor = number(value, keywordLocation);
+                    if (divisor.signum() <= 0) {
+                        throw invalid(keywordLocation, "must be greater than 0");
+                    }
+                    validators.add(new MultipleOfValidator(divisor));
+                }
+                case "minLength" -> validators.add(new LengthValidator(count(value, keywordLocation), true));
+                case "maxLength" -> validators.add(new LengthValidator(count(value, keywordLocation), false));
+                case "pattern" -> {
+                    if (!value.isTextual()) {
+                        throw invalid(keywordLocation, "must be a string");
+                    }
+                    try {
+                        validators.add(new PatternValidator(Pattern.compile(value.asText())));
+                    } catch (PatternSyntaxException e) {
+                        throw invalid(keywordLocation, "invalid regular expression: " + e.getDescription());
+                    }
+                }
+                default -> checkAnnotation(keyword, keywordLocation);
+            }
+        }
+        return switch (validators.size()) {
+            case 0 -> ACCEPT;
+            case 1 -> validators.getFirst();
+            default -> new AllValidator(validators.toArray(ValueValidator[]::new));
+        };
+    }
+
+    private static void checkAnnotation(String keyword, String location) {
+        if (!ANNOTATIONS.contains(keyword)) {
+            throw invalid(location, "unsupported keyword");
+        }
+    }
+
+    private static int types(JsonNode value, String location) {
+        if (value.isTextual()) {
+            return type(value.asText(), location);
+        }
+        if (!value.isArray() || value.isEmpty()) {
+            throw invalid(location, "must be a type name or an array of type names");
+        }
+        int mask = 0;
+        for (JsonNode name : value) {
+            mask |= type(name.asText(), location);
+        }
+        return mask;
+    }
+
+    private static int type(String name, String location) {
+        int index = Arrays.asList(TYPE_NAMES).indexOf(name);
+        if (index < 0) {
+            throw invalid(location, "unknown type '" + name + "'");
+        }
+        return 1 << index;
+    }
+
+    private static BigDecimal number(JsonNode value, String location) {
+        if (!value.isNumber()) {
+            throw invalid(location, "must be a number");
+        }
+        return value.decimalValue();
+    }
+
+    private static int count(JsonNode value, String location) {
+        if (!value.canConvertToExactIntegral() || !value.canConvertToInt() || value.intValue() < 0) {
+            throw invalid(location, "must be a non-negative integer");
+        }
+        return value.intValue();
+    }
+
+    private static IllegalArgumentException invalid(String location, String message) {
+        return new IllegalArgumentException("Invalid JSON Schema at " + location + ": " + message);
+    }
+
+    private static List<String> add(List<String> violations, String violation) {
+        List<String> list = violations != null ? violations : new ArrayList<>();
+        list.add(violation);
+        return list;
+    }
+
+    private static List<String> violation(List<String> violations, CompactRecord record, int i, String message) {
+        return add(violations, pointer(record.key(i)) + ": " + message);
+    }
+
+    /**
+     * @return the JSON Pointer of a field of the record
+     */
+    static String pointer(String field) {
+        return "/" + field.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * @return the JSON type bits of field i, as the value is written: non-finite doubles are written as strings
+     */
+    static int jsonType(CompactRecord record, int i) {
+        return switch (record.type(i)) {
+            case STRING -> STRING;
+            case INT, LONG -> INTEGER | NUMBER;
+            case DOUBLE -> {
+                double value = record.doubleValue(i);
+                if (!Double.isFinite(value)) {
+                    yield STRING;
+                }
+                yield value == Math.rint(value) ? INTEGER | NUMBER : NUMBER;
+            }
+            case NUMBER, OBJECT -> objectType(record, i);
+            case BOOLEAN -> BOOLEAN;
+        };
+    }
+
+    private static int objectType(CompactRecord record, int i) {
+        Object value = record.objectValue(i);
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof FileValue) {
+            return STRING;
+        }
+        if (value instanceof RawValue raw) {
+            String json = String.valueOf(raw.rawValue()).strip();
+            switch (json.isEmpty() ? ' ' : json.charAt(0)) {
+                case '{':
+                    return OBJECT;
+                case '[':
+                    return ARRAY;
+                case '"':
+                    return STRING;
+                case 't', 'f':
+                    return BOOLEAN;
+                case 'n':
+                    return NULL;
+                default:
+                    break;
+            }
+        }
+        BigDecimal number = decimal(record, i);
+        if (number == null) {
+            return OBJECT;
+        }
+        return number.signum() == 0 || number.stripTrailingZeros().scale() <= 0 ? INTEGER | NUMBER : NUMBER;
+    }
+
+    /**
+     * @return the exact value of a numeric field held as text or as an object, or null if it is not a number
+     */
+    private static BigDecimal decimal(CompactRecord record, int i) {
+        Object value = record.objectValue(i);
+        if (record.type(i) == CompactRecord.Type.NUMBER) {
+            return new BigDecimal((String) value);
+        }
+        return switch (value) {
+            case BigDecimal decimal -> decimal;
+            case BigInteger integer -> new BigDecimal(integer);
+            case RawValue raw -> {
+                String json = String.valueOf(raw.rawValue()).strip();
+                yield RawNumber.scan(json, 0, json.length()) != RawNumber.NOT_A_NUMBER ? new BigDecimal(json) : null;
+            }
+            case null, default -> null;
+        };
+    }
+
+    /**
+     * Compares a numeric field with a limit.
+     *
+     * @return the sign of value - limit, or null if the field is not a number
+     */
+    private static Integer compare(CompactRecord record, int i, BigDecimal limit, double doubleLimit, long longLimit,
+            boolean exactLong) {
+        switch (record.type(i)) {
+            case INT, LONG -> {
+                long value = record.longValue(i);
+                return exactLong ? Long.compare(value, longLimit) : BigDecimal.valueOf(value).compareTo(limit);
+            }
+            case DOUBLE -> {
+                double value = record.doubleValue(i);
+                if (!Double.isFinite(value)) {
+                    return null;
+                }
+                // A double other than the one nearest to the limit is on the same side of the limit as of that double;
+                // only the nearest one needs the decimal it was parsed from
+                return value != doubleLimit ? Double.compare(value, doubleLimit) : BigDecimal.valueOf(value).compareTo(limit);
+            }
+            case NUMBER, OBJECT -> {
+                BigDecimal value = decimal(record, i);
+                return value != null ? value.compareTo(limit) : null;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static final class AllValidator implements ValueValidator {
+
+        private final ValueValidator[] validators;
+
+        AllValidator(ValueValidator[] validators) {
+            this.validators = validators;
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            for (ValueValidator validator : validators) {
+                violations = validator.validate(record, i, violations);
+            }
+            return violations;
+        }
+    }
+
+    private static final class TypeValidator implements ValueValidator {
+
+        private final int allowed;
+        private final String expected;
+
+        TypeValidator(int allowed) {
+            this.allowed = allowed;
+            StringJoiner names = new StringJoiner(" or ");
+            for (int bit = 0; bit < TYPE_NAMES.length; bit++) {
+                if ((allowed & (1 << bit)) != 0) {
+                    names.add(TYPE_NAMES[bit]);
+                }
+            }
+            this.expected = names.toString();
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            int actual = jsonType(record, i);
+            if ((actual & allowed) != 0) {
+                return violations;
+            }
+            // Integers are reported as integers, not as numbers
+            String name = TYPE_NAMES[Integer.numberOfTrailingZeros(Integer.highestOneBit(actual))];
+            return violation(violations, record, i, "must be " + expected + ", was " + name);
+        }
+    }
+
+    private static final class RangeValidator implements ValueValidator {
+
+        private final BigDecimal limit;
+        private final double doubleLimit;
+        private final long longLimit;
+        private final boolean exactLong;
+        private final boolean minimum;
+        private final boolean exclusive;
+        private final String message;
+
+        RangeValidator(BigDecimal limit, boolean minimum, boolean exclusive) {
+            this.limit = limit;
+            this.doubleLimit = limit.doubleValue();
+            boolean integral = limit.signum() == 0 || limit.stripTrailingZeros().scale() <= 0;
+            this.exactLong = integral && limit.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) >= 0
+                && limit.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0;
+            this.longLimit = exactLong ? limit.longValueExact() : 0;
+            this.minimum = minimum;
+            this.exclusive = exclusive;
+            this.message = "must be " + (minimum ? ">" : "<") + (exclusive ? " " : "= ") + limit.toPlainString();
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            Integer comparison = compare(record, i, limit, doubleLimit, longLimit, exactLong);
+            if (comparison == null) {
+                return violations;
+            }
+            int sign = minimum ? comparison : -comparison;
+            boolean valid = exclusive ? sign > 0 : sign >= 0;
+            return valid ? violations : violation(violations, record, i, message);
+        }
+    }
+
+    private static final class MultipleOfValidator implements ValueValidator {
+
+        // Doubles scaled below 2^50 are integers more than 4 ulps apart, so at most one of them is parsed as the double
+        private static final double SCALED_LIMIT = 0x1p50;
+        private static final int MAX_SCALE = 15;
+
+        private final BigDecimal divisor;
+        private final long longDivisor;
+        // Divisor as unscaled / 10^scale, with unscaled 0 when the double fast path does not apply
+        private final long unscaled;
+        private final double powerOfTen;
+        private final String message;
+
+        MultipleOfValidator(BigDecimal divisor) {
+            this.divisor = divisor;
+            BigDecimal stripped = divisor.stripTrailingZeros();
+            if (stripped.scale() < 0) {
+                stripped = stripped.setScale(0);
+            }
+            boolean fits = stripped.precision() <= MAX_SCALE && stripped.scale() <= MAX_SCALE;
+            this.longDivisor = fits && stripped.scale() == 0 ? stripped.longValueExact() : 0;
+            this.unscaled = fits ? stripped.unscaledValue().longValueExact() : 0;
+            this.powerOfTen = Math.pow(10, stripped.scale());
+            this.message = "must be a multiple of " + divisor.toPlainString();
+        }
+
+        /**
+         * Checks a double as the shortest decimal it is printed as, without creating that decimal
+         * when it has no more decimal places than the divisor.
+         */
+        private boolean isMultiple(double value) {
+            if (unscaled != 0) {
+                double scaled = value * powerOfTen;
+                if (Math.abs(scaled) < SCALED_LIMIT) {
+                    long rounded = Math.round(scaled);
+                    if (rounded / powerOfTen == value) {
+                        return rounded % unscaled == 0;
+                    }
+                }
+            }
+            return BigDecimal.valueOf(value).remainder(divisor).signum() == 0;
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            boolean valid = switch (record.type(i)) {
+                case INT, LONG -> longDivisor != 0
+                    ? record.longValue(i) % longDivisor == 0
+                    : BigDecimal.valueOf(record.longValue(i)).remainder(divisor).signum() == 0;
+                case DOUBLE -> !Double.isFinite(record.doubleValue(i)) || isMultiple(record.doubleValue(i));
+                case NUMBER, OBJECT -> {
+                    BigDecimal value = decimal(record, i);
+                    yield value == null || value.remainder(divisor).signum() == 0;
+                }
+                default -> true;
+            };
+            return valid ? violations : violation(violations, record, i, message);
+        }
+    }
+
+    private static final class LengthValidator implements ValueValidator {
+
+        private final int limit;
+        private final boolean minimum;
+
+        LengthValidator(int limit, boolean minimum) {
+            this.limit = limit;
+            this.minimum = minimum;
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            if (record.type(i) != CompactRecord.Type.STRING) {
+                return violations;
+            }
+            String value = (String) record.objectValue(i);
+            // Lengths count code points, and a string has at least half as many code points as chars
+            boolean valid = minimum
+                ? value.length() >= 2 * limit || value.codePointCount(0, value.length()) >= limit
+                : value.length() <= limit || value.codePointCount(0, value.length()) <= limit;
+            if (valid) {
+                return violations;
+            }
+            return violation(violations, record, i,
+                "must have " + (minimum ? "at least " : "at most ") + limit + (limit == 1 ? " character" : " characters"));
+        }
+    }
+
+    private static final class PatternValidator implements ValueValidator {
+
+        private final Pattern pattern;
+        // Matchers are reset for every value instead of being created, one per thread since they have state
+        private final ThreadLocal<Matcher> matcher;
+
+        PatternValidator(Pattern pattern) {
+            this.pattern = pattern;
+            this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            if (record.type(i) != CompactRecord.Type.STRING || matcher.get().reset((String) record.objectValue(i)).find()) {
+                return violations;
+            }
+            return violation(violations, record, i, "must match the pattern '" + pattern.pattern() + "'");
+        }
+    }
+
+    private static final class EnumValidator implements ValueValidator {
+
+        private final Set<String> strings = new HashSet<>();
+        private final List<BigDecimal> numbers = new ArrayList<>();
+        private final List<JsonNode> structures = new ArrayList<>();
+        private boolean allowTrue;
+        private boolean allowFalse;
+        private boolean allowNull;
+        private final String message;
+
+        EnumValidator(Iterable<JsonNode> members, String message) {
+            for (JsonNode member : members) {
+                if (member.isTextual()) {
+                    strings.add(member.asText());
+                } else if (member.isNumber()) {
+                    numbers.add(member.decimalValue());
+                } else if (member.isBoolean()) {
+                    allowTrue |= member.booleanValue();
+                    allowFalse |= !member.booleanValue();
+                } else if (member.isNull()) {
+                    allowNull = true;
+                } else {
+                    structures.add(structure(member));
+                }
+            }
+            this.message = message;
+        }
+
+        @Override
+        public List<String> validate(CompactRecord record, int i, List<String> violations) {
+            return matches(record, i) ? violations : violation(violations, record, i, message);
+        }
+
+        private boolean matches(CompactRecord record, int i) {
+            switch (record.type(i)) {
+                case STRING -> {
+                    return strings.contains((String) record.objectValue(i));
+                }
+                case BOOLEAN -> {
+                    return record.booleanValue(i) ? allowTrue : allowFalse;
+                }
+                case INT, LONG, DOUBLE, NUMBER -> {
+                    return matchesNumber(record, i);
+                }
+                default -> {
+                    Object value = record.objectValue(i);
+                    if (value == null) {
+                        return allowNull;
+                    }
+                    if (value instanceof FileValue) {
+                        // Streamed values are not read before they are written
+                        return true;
+                    }
+                    if (value instanceof RawValue raw && !structures.isEmpty()) {
+                        try {
+                            return structures.contains(MAPPER.readTree(String.valueOf(raw.rawValue())));
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    }
+                    return matchesNumber(record, i);
+                }
+            }
+        }
+
+        /**
+         * @return the member read again like the values are, whatever mapper built the schema
+         */
+        private static JsonNode structure(JsonNode member) {
+            try {
+                return MAPPER.readTree(member.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private boolean matchesNumber(CompactRecord record, int i) {
+            for (BigDecimal number : numbers) {
+                Integer comparison = compare(record, i, number, number.doubleValue(), 0, false);
+                if (comparison != null && comparison == 0) {
+                    return true;
+                }
+            }
+            return jsonType(record, i) == STRING && record.type(i) == CompactRecord.Type.DOUBLE
+                && strings.contains(Double.toString(record.doubleValue(i)));
+        }
+    }
+}
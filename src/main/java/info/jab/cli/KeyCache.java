@@ -0,0 +1,139 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of field names for batches where every record repeats the same keys.
+ * A key is looked up straight from the characters of the input, so a repeated key reuses
+ * one String instead of creating a new one per record, together with a {@link SerializedString}
+ * holding its escaped and UTF-8 encoded form, which the JSON output copies as raw bytes.
+ *
+ * The cache has a fixed number of slots and replaces entries on collisions, so a workload with
+ * more distinct keys than slots keeps working but mostly misses; {@link #hits()} and
+ * {@link #misses()} show which case applies. Instances are thread-safe: entries are immutable
+ * and a lost update only costs a miss.
+ */
+public class KeyCache {
+
+    static final int DEFAULT_CAPACITY = 1024;
+    static final int MAX_KEY_LENGTH = 128;
+
+    private record Entry(int hash, String key, SerializedString encoded) {
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public KeyCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity maximum number of cached keys, rounded up to a power of two
+     */
+    public KeyCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 20) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 20) + ", was " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the key held in the region [start, end) of a character sequence,
+     * reusing the cached String when the key has been seen before.
+     *
+     * @param text the sequence holding the key
+     * @param start index of the first character of the key
+     * @param end index after the last character of the key
+     * @return the key
+     */
+    public String key(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH) {
+            misses.increment();
+            return ValueParser.text(text, start, end);
+        }
+
+        // Same hash as String.hashCode, so encoded(String) finds the entry without rehashing
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        int index = slot(hash);
+        Entry entry = entries[index];
+        if (entry != null && entry.hash == hash && contentEquals(entry.key, text, start, end)) {
+            hits.increment();
+            return entry.key;
+        }
+
+        misses.increment();
+        String key = ValueParser.text(text, start, end);
+        entries[index] = new Entry(hash, key, new SerializedString(key));
+        return key;
+    }
+
+    /**
+     * Returns the pre-encoded form of a key, computed once per cached key.
+     * Keys not cached yet are added. The lookup is not counted in {@link #hits()} or {@link #misses()}.
+     *
+     * @param key the field name
+     * @return the key as a serializable string
+     */
+    public SerializableString encoded(String key) {
+        int hash = key.hashCode();
+        int index = slot(hash);
+        Entry entry = entries[index];
+        if (entry != null && (entry.key == key || (entry.hash == hash && entry.key.equals(key)))) {
+            return entry.encoded;
+        }
+
+        SerializedString encoded = new SerializedString(key);
+        if (key.length() <= MAX_KEY_LENGTH) {
+            entries[index] = new Entry(hash, key, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * @return number of {@link #key(CharSequence, int, int)} lookups served from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of {@link #key(CharSequence, int, int)} lookups that created a new key
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean contentEquals(String key, CharSequence text, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
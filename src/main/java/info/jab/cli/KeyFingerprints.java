@@ -0,0 +1,135 @@
+package info.jab.cli;
+
+/**
+ * Open addressing set of 64-bit fingerprints of keys, standing in for a set of the keys themselves:
+ * whatever its length, a key costs 8 to 16 bytes in a table kept at most three quarters full,
+ * plus as much again when a number is kept per key. Distinct keys share a fingerprint with a probability
+ * of about n²/2^65 for n keys, 3 in 100 million for a million keys, in which case the second one is taken
+ * for a duplicate. Instances are not thread-safe.
+ */
+final class KeyFingerprints {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // 0 marks an empty bucket, fingerprints are never 0
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    // Number stored per fingerprint, null when only membership is tracked
+    private int[] numbers;
+    private int size;
+
+    /**
+     * Creates a set of fingerprints.
+     */
+    KeyFingerprints() {
+        this(false);
+    }
+
+    /**
+     * Creates a table of fingerprints, with a number stored for each one if requested.
+     */
+    KeyFingerprints(boolean withNumbers) {
+        this.numbers = withNumbers ? new int[INITIAL_CAPACITY] : null;
+    }
+
+    /**
+     * Computes the fingerprint of a key: FNV-1a over its characters, mixed with the MurmurHash3 finalizer
+     * so every bit of the key affects the bits used to pick a bucket.
+     *
+     * @return a fingerprint other than 0
+     */
+    static long fingerprint(CharSequence key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * @return number of fingerprints
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a fingerprint.
+     *
+     * @return false if the fingerprint was already in the set
+     */
+    boolean add(long fingerprint) {
+        int bucket = find(fingerprint);
+        if (fingerprints[bucket] != 0) {
+            return false;
+        }
+        insertAt(bucket, fingerprint, 0);
+        return true;
+    }
+
+    /**
+     * @return the number stored for the fingerprint, or -1 if it is not in the table
+     */
+    int get(long fingerprint) {
+        int bucket = find(fingerprint);
+        return fingerprints[bucket] != 0 ? numbers[bucket] : -1;
+    }
+
+    /**
+     * Stores a number for a fingerprint, replacing the number stored before.
+     *
+     * @return the number stored before, or -1 if the fingerprint is new
+     */
+    int put(long fingerprint, int number) {
+        int bucket = find(fingerprint);
+        if (fingerprints[bucket] != 0) {
+            int previous = numbers[bucket];
+            numbers[bucket] = number;
+            return previous;
+        }
+        insertAt(bucket, fingerprint, number);
+        return -1;
+    }
+
+    /**
+     * @return the bucket holding the fingerprint, or the empty bucket where it belongs
+     */
+    private int find(long fingerprint) {
+        int mask = fingerprints.length - 1;
+        int bucket = (int) fingerprint & mask;
+        while (fingerprints[bucket] != 0 && fingerprints[bucket] != fingerprint) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    private void insertAt(int bucket, long fingerprint, int number) {
+        fingerprints[bucket] = fingerprint;
+        if (numbers != null) {
+            numbers[bucket] = number;
+        }
+        if (++size > fingerprints.length / 4 * 3) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldNumbers = numbers;
+        fingerprints = new long[oldFingerprints.length * 2];
+        numbers = oldNumbers != null ? new int[oldNumbers.length * 2] : null;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != 0) {
+                int bucket = find(oldFingerprints[i]);
+                fingerprints[bucket] = oldFingerprints[i];
+                if (numbers != null) {
+                    numbers[bucket] = oldNumbers[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package info.jab.cli;
+
+/**
+ * Utility class for splitting a single input line into arguments.
+ * Arguments are separated by whitespace, like a shell command line.
+ * Single or double quoted sections may contain whitespace and are kept
+ * verbatim (quotes included), so quoted values keep their string type
+ * when they reach {@link ValueParser}.
+ * Whitespace that belongs to the pair delimiter (for example a tab) does not separate arguments.
+ */
+public class LineTokenizer {
+
+    private final PairTokenizer pairTokenizer;
+
+    public LineTokenizer() {
+        this(PairTokenizer.DEFAULT);
+    }
+
+    public LineTokenizer(PairTokenizer pairTokenizer) {
+        this.pairTokenizer = pairTokenizer;
+    }
+
+    /**
+     * Splits a line into whitespace-separated arguments honouring quotes.
+     *
+     * @param line the line to split
+     * @return the arguments found in the line, empty if the line is blank
+     */
+    public String[] tokenize(String line) {
+        Tokens tokens = tokenize(line, new Tokens());
+        String[] arguments = new String[tokens.count()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = line.substring(tokens.start(i), tokens.end(i));
+        }
+        return arguments;
+    }
+
+    /**
+     * Locates the arguments of a line without copying them.
+     *
+     * @param line the line to split
+     * @param tokens the ranges to fill, previous content is discarded
+     * @return the tokens argument, holding one range per argument
+     */
+    Tokens tokenize(CharSequence line, Tokens tokens) {
+        tokens.clear();
+        int length = line.length();
+        int i = 0;
+
+        while (i < length) {
+            // Skip whitespace between arguments
+            while (i < length && isSeparator(line.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+
+            int start = i;
+            char quote = 0;
+            while (i < length) {
+                char c = line.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (isSeparator(c)) {
+                    break;
+                }
+                i++;
+            }
+            tokens.add(start, i);
+        }
+
+        return tokens;
+    }
+
+    private boolean isSeparator(char c) {
+        return Character.isWhitespace(c) && !pairTokenizer.isDelimiterCharacter(c);
+    }
+}
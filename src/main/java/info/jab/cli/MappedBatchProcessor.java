@@ -0,0 +1,167 @@
+package info.jab.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Processes a file of records like {@link BatchProcessor}, reading it through memory-mapped windows
+ * instead of a Reader. Lines are split on the mapped bytes with the same line terminators as
+ * {@link java.io.BufferedReader#readLine()}, scanning blocks of the window with a {@link ByteScanner}.
+ * ASCII lines are parsed in place, without decoding them to a String, and other lines are decoded as UTF-8.
+ * Files larger than a window are mapped one window at a time, each window starting on a line boundary.
+ */
+public class MappedBatchProcessor {
+
+    static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final BatchProcessor batchProcessor;
+    private final long windowSize;
+    private final AsciiByteSequence asciiLine = new AsciiByteSequence();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final ByteScanner scanner = ByteScanner.INSTANCE;
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    /**
+     * Creates a processor.
+     *
+     * @param batchProcessor the processor converting each line
+     */
+    public MappedBatchProcessor(BatchProcessor batchProcessor) {
+        this(batchProcessor, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedBatchProcessor(BatchProcessor batchProcessor, long windowSize) {
+        if (windowSize < 1 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size must be between 1 and " + Integer.MAX_VALUE + ", was " + windowSize);
+        }
+        this.batchProcessor = batchProcessor;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Reads every line of the file and writes one result per record to the stream.
+     * Blank lines are skipped. The stream is flushed but not closed.
+     *
+     * @param input the file holding the records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @return the number of records that could not be converted
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(Path input, OutputStream out, PrintStream err) throws IOException {
+        return process(input, out, err, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Processes the lines of the file like {@link #process(Path, OutputStream, PrintStream)},
+     * stopping after the invalid record that brings the number of errors to maxErrors.
+     *
+     * @param input the file holding the records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @param maxErrors the number of invalid records that stops the run
+     * @return the number of records that could not be converted, at most maxErrors
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(Path input, OutputStream out, PrintStream err, int maxErrors) throws IOException {
+        int errors = 0;
+        long lineNumber = 0;
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             RecordWriter resultWriter = batchProcessor.newRecordWriter(out)) {
+            long size = channel.size();
+            long position = 0;
+            long window = windowSize;
+
+            while (position < size) {
+                int limit = (int) Math.min(window, size - position);
+                boolean lastWindow = position + limit == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, limit);
+
+                int lineStart = 0;
+                boolean ascii = true;
+                int i = 0;
+                scan:
+                while (i < limit) {
+                    // Bulk copy a block of the window to scan it with the byte scanner
+                    int blockStart = i;
+                    int blockLength = Math.min(block.length, limit - blockStart);
+                    buffer.get(blockStart, block, 0, blockLength);
+
+                    while (i < blockStart + blockLength) {
+                        int from = i - blockStart;
+                        int lineBreak = scanner.indexOfAny(block, from, blockLength, (byte) '\n', (byte) '\r');
+                        int scanned = lineBreak < 0 ? blockLength : lineBreak;
+                        ascii = ascii && scanner.indexOfNonAscii(block, from, scanned) < 0;
+                        if (lineBreak < 0) {
+                            i = blockStart + blockLength;
+                            break;
+                        }
+
+                        int lineEnd = blockStart + lineBreak;
+                        byte b = block[lineBreak];
+                        // A '\r' closing the window may be the first half of "\r\n"
+                        if (b == '\r' && lineEnd + 1 == limit && !lastWindow) {
+                            break scan;
+                        }
+
+                        lineNumber++;
+                        if (!processLine(buffer, lineStart, lineEnd, ascii, lineNumber, resultWriter, err)
+                                && ++errors >= maxErrors) {
+                            return errors;
+                        }
+                        i = lineEnd + 1;
+                        if (b == '\r' && i < limit && buffer.get(i) == '\n') {
+                            i++;
+                        }
+                        lineStart = i;
+                        ascii = true;
+                    }
+                }
+
+                if (lastWindow) {
+                    if (lineStart < limit) {
+                        lineNumber++;
+                        if (!processLine(buffer, lineStart, limit, ascii, lineNumber, resultWriter, err)) {
+                            errors++;
+                        }
+                    }
+                    position = size;
+                } else if (lineStart == 0) {
+                    // The line does not fit in the window: map a larger one from the same position
+                    if (window >= Integer.MAX_VALUE) {
+                        throw new IOException("Line " + (lineNumber + 1) + " is longer than " + Integer.MAX_VALUE + " bytes");
+                    }
+                    window = Math.min(window * 2, Integer.MAX_VALUE);
+                } else {
+                    position += lineStart;
+                }
+            }
+        }
+
+        return errors;
+    }
+
+    private boolean processLine(
+            ByteBuffer buffer,
+            int start,
+            int end,
+            boolean ascii,
+            long lineNumber,
+            RecordWriter resultWriter,
+            PrintStream err) throws IOException {
+        CharSequence line = ascii
+            ? asciiLine.reset(buffer, start, end - start)
+            : decoder.decode(buffer.slice(start, end - start)).toString();
+        return batchProcessor.processLine(line, lineNumber, resultWriter, err);
+    }
+}
@@ -0,0 +1,39 @@
+package info.jab.cli;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream recording every read as a {@link RunStats.Phase#READ} and counting the bytes read.
+ */
+final class MeteredInputStream extends FilterInputStream {
+
+    private final RunStats stats;
+
+    MeteredInputStream(InputStream in, RunStats stats) {
+        super(in);
+        this.stats = stats;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = in.read();
+        read(start, b < 0 ? 0 : 1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int count = in.read(b, off, len);
+        read(start, Math.max(count, 0));
+        return count;
+    }
+
+    private void read(long start, int bytes) {
+        stats.record(RunStats.Phase.READ, System.nanoTime() - start);
+        stats.addBytesIn(bytes);
+    }
+}
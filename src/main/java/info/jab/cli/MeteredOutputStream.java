@@ -0,0 +1,59 @@
+package info.jab.cli;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream counting the bytes written and the time spent writing them.
+ * With a {@link RunStats}, every write is recorded as a {@link RunStats.Phase#WRITE};
+ * without one, the total time is only available from {@link #nanos()}.
+ * Instances are not thread-safe.
+ */
+final class MeteredOutputStream extends FilterOutputStream {
+
+    private final RunStats stats;
+    private long nanos;
+
+    MeteredOutputStream(OutputStream out, RunStats stats) {
+        super(out);
+        this.stats = stats;
+    }
+
+    /**
+     * @return total nanoseconds spent in writes and flushes so far
+     */
+    long nanos() {
+        return nanos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        out.write(b);
+        written(start, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        out.write(b, off, len);
+        written(start, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        out.flush();
+        written(start, 0);
+    }
+
+    private void written(long start, int bytes) {
+        long elapsed = System.nanoTime() - start;
+        nanos += elapsed;
+        if (stats != null) {
+            stats.record(RunStats.Phase.WRITE, elapsed);
+            stats.addBytesOut(bytes);
+        }
+    }
+}
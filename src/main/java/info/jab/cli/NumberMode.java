@@ -0,0 +1,46 @@
+package info.jab.cli;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * What {@link ValueParser} makes of a value that follows the JSON number grammar.
+ * Other numeric values, such as {@code +5}, {@code 007} or {@code NaN}, are typed as Integer, Long or Double in every mode.
+ */
+public enum NumberMode {
+
+    /**
+     * The value becomes an Integer, a Long or a Double, so decimals with more than 17 significant digits
+     * and integers beyond the long range lose precision.
+     */
+    TYPED,
+
+    /**
+     * The value becomes a {@link RawNumber} keeping its text, which is checked against the grammar
+     * but never converted, and is written back digit for digit.
+     */
+    LOSSLESS,
+
+    /**
+     * The value becomes a BigInteger, or a BigDecimal if it has a fraction or an exponent.
+     */
+    BIG;
+
+    /**
+     * Finds a mode by its case-insensitive name.
+     *
+     * @param name typed, lossless or big
+     * @return the mode
+     * @throws IllegalArgumentException if there is no such mode
+     */
+    public static NumberMode of(String name) {
+        for (NumberMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown number mode '" + name + "'. Expected one of: "
+            + Arrays.stream(values()).map(mode -> mode.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+    }
+}
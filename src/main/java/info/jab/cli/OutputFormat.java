@@ -0,0 +1,58 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Encoding of the converted records.
+ * JSON records are written as &lt;result&gt;{json}&lt;/result&gt; lines; the binary encodings write
+ * each record as a 4-byte big-endian length followed by the encoded map, see {@link BinaryRecordWriter}.
+ */
+public enum OutputFormat {
+
+    JSON {
+        @Override
+        ObjectMapper newMapper() {
+            return new ObjectMapper();
+        }
+    },
+    CBOR {
+        @Override
+        ObjectMapper newMapper() {
+            return new CBORMapper();
+        }
+    },
+    SMILE {
+        @Override
+        ObjectMapper newMapper() {
+            return new SmileMapper();
+        }
+    };
+
+    /**
+     * Creates a mapper reading and writing this encoding.
+     */
+    abstract ObjectMapper newMapper();
+
+    /**
+     * Finds a format by its case-insensitive name.
+     *
+     * @param name json, cbor or smile
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static OutputFormat of(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format '" + name + "'. Expected one of: "
+            + Arrays.stream(values()).map(format -> format.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+    }
+}
@@ -2,23 +2,83 @@ package info.jab.cli;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Utility class for parsing field-value pairs from different input formats.
  * Supports:
- * - Delimited pairs: "field=value" or "field:value"
+ * - Delimited pairs: "field=value" or "field:value", or any delimiter given by a {@link PairTokenizer}
  * - Alternating pairs: "field" "value" "field2" "value2"
+ * Field names are looked up in a {@link KeyCache}, so repeated keys share one String.
+ * Values are typed by {@link ValueParser}, or by the field types of a {@link Schema} when one is given.
+ * Invalid pairs are reported with a {@link RecordException} locating the offending argument.
  */
 public class PairParser {
 
     private final ValueParser valueParser;
+    private final KeyCache keyCache;
+    private final Schema schema;
 
     public PairParser() {
-        this.valueParser = new ValueParser();
+        this(new ValueParser());
     }
 
     public PairParser(ValueParser valueParser) {
+        this(valueParser, new KeyCache());
+    }
+
+    public PairParser(ValueParser valueParser, KeyCache keyCache) {
+        this(valueParser, keyCache, null);
+    }
+
+    /**
+     * Creates a parser converting values with the types declared in a schema.
+     *
+     * @param valueParser the parser inferring types when there is no schema or the policy asks for it
+     * @param keyCache the cache of field names
+     * @param schema the declared field types, or null to infer every type
+     */
+    public PairParser(ValueParser valueParser, KeyCache keyCache, Schema schema) {
         this.valueParser = valueParser;
+        this.keyCache = keyCache;
+        this.schema = schema;
+    }
+
+    /**
+     * Parses field-value pairs detecting the input format.
+     * If any argument contains = or : the pairs are parsed as delimited pairs,
+     * otherwise they are parsed as alternating pairs.
+     *
+     * @param pairs array of strings in delimited or alternating format
+     * @return map of field names to parsed values
+     * @throws IllegalArgumentException if the pairs are invalid for the detected format
+     */
+    public Map<String, Object> parsePairs(String[] pairs) {
+        return parsePairs(pairs, PairTokenizer.DEFAULT);
+    }
+
+    /**
+     * Parses field-value pairs detecting the input format with a configurable delimiter.
+     * If any argument contains the delimiter the pairs are parsed as delimited pairs,
+     * otherwise they are parsed as alternating pairs.
+     *
+     * @param pairs array of strings in delimited or alternating format
+     * @param tokenizer the tokenizer locating the delimiter
+     * @return map of field names to parsed values
+     * @throws IllegalArgumentException if the pairs are invalid for the detected format
+     */
+    public Map<String, Object> parsePairs(String[] pairs, PairTokenizer tokenizer) {
+        if (RecordParseEvent.enabled()) {
+            return recordParse(pairs, () -> parsePairsUnrecorded(pairs, tokenizer));
+        }
+        return parsePairsUnrecorded(pairs, tokenizer);
+    }
+
+    private Map<String, Object> parsePairsUnrecorded(String[] pairs, PairTokenizer tokenizer) {
+        if (containsDelimiters(pairs, tokenizer)) {
+            return delimitedPairs(pairs, tokenizer);
+        }
+        return alternatingPairs(pairs);
     }
 
     /**
@@ -29,24 +89,35 @@ public class PairParser {
      * @throws IllegalArgumentException if pair format is invalid
      */
     public Map<String, Object> parseDelimitedPairs(String[] pairs) {
+        return parseDelimitedPairs(pairs, PairTokenizer.DEFAULT);
+    }
+
+    /**
+     * Parses field-value pairs from delimited format with a configurable delimiter.
+     * Field and value are located as offsets into each pair; a String is only created
+     * for the field name and for string values.
+     *
+     * @param pairs array of strings in format "field{delimiter}value"
+     * @param tokenizer the tokenizer locating the delimiter
+     * @return map of field names to parsed values
+     * @throws IllegalArgumentException if pair format is invalid
+     */
+    public Map<String, Object> parseDelimitedPairs(String[] pairs, PairTokenizer tokenizer) {
+        if (RecordParseEvent.enabled()) {
+            return recordParse(pairs, () -> delimitedPairs(pairs, tokenizer));
+        }
+        return delimitedPairs(pairs, tokenizer);
+    }
+
+    private Map<String, Object> delimitedPairs(String[] pairs, PairTokenizer tokenizer) {
         Map<String, Object> map = new HashMap<>();
 
         if (pairs == null || pairs.length == 0) {
             return map;
         }
 
-        for (String pair : pairs) {
-            String[] parts = splitPair(pair);
-
-            String field = parts[0].trim();
-            String value = parts[1].trim();
-
-            if (field.isEmpty()) {
-                throw new IllegalArgumentException("Field name cannot be empty in pair: '" + pair + "'");
-            }
-
-            Object parsedValue = valueParser.parseValue(value);
-            map.put(field, parsedValue);
+        for (int i = 0; i < pairs.length; i++) {
+            putDelimitedPair(map, null, pairs[i], 0, pairs[i].length(), tokenizer, i + 1, true);
         }
 
         return map;
@@ -60,15 +131,18 @@ public class PairParser {
      * @throws IllegalArgumentException if number of arguments is invalid or field name is empty
      */
     public Map<String, Object> parseAlternatingPairs(String[] pairs) {
+        if (RecordParseEvent.enabled()) {
+            return recordParse(pairs, () -> alternatingPairs(pairs));
+        }
+        return alternatingPairs(pairs);
+    }
+
+    private Map<String, Object> alternatingPairs(String[] pairs) {
         if (pairs == null || pairs.length < 2) {
-            throw new IllegalArgumentException(
-                "Invalid number of arguments. Expected at least 2 arguments (field-value pairs)."
-            );
+            throw RecordException.TOO_FEW_ARGUMENTS;
         }
         if (pairs.length % 2 != 0) {
-            throw new IllegalArgumentException(
-                "Invalid number of arguments. Expected even number of arguments (field-value pairs)."
-            );
+            throw RecordException.ODD_ARGUMENTS;
         }
 
         Map<String, Object> map = new HashMap<>();
@@ -78,11 +152,11 @@ public class PairParser {
             String value = pairs[i + 1].trim();
 
             if (field.isEmpty()) {
-                throw new IllegalArgumentException("Field name cannot be empty at position " + (i + 1));
+                throw RecordException.emptyField(i + 1);
             }
 
-            Object parsedValue = valueParser.parseValue(value);
-            map.put(field, parsedValue);
+            String key = keyCache.key(field, 0, field.length());
+            map.put(key, parseValue(key, value, 0, value.length(), i + 2));
         }
 
         return map;
@@ -95,11 +169,22 @@ public class PairParser {
      * @return true if any pair contains = or :, false otherwise
      */
     public boolean containsDelimiters(String[] pairs) {
+        return containsDelimiters(pairs, PairTokenizer.DEFAULT);
+    }
+
+    /**
+     * Checks if the given pairs contain the delimiter of the tokenizer.
+     *
+     * @param pairs array of strings to check
+     * @param tokenizer the tokenizer locating the delimiter
+     * @return true if any pair contains the delimiter, false otherwise
+     */
+    public boolean containsDelimiters(String[] pairs, PairTokenizer tokenizer) {
         if (pairs == null || pairs.length == 0) {
             return false;
         }
         for (String pair : pairs) {
-            if (pair.contains("=") || pair.contains(":")) {
+            if (tokenizer.indexOf(pair) >= 0) {
                 return true;
             }
         }
@@ -107,32 +192,206 @@ public class PairParser {
     }
 
     /**
-     * Splits a pair string by delimiter (= or :).
+     * Parses the arguments of a line located by {@link LineTokenizer} with the same rules as
+     * {@link #parsePairs(String[], PairTokenizer)}, without creating a String per argument.
      *
-     * @param pair the pair string to split
-     * @return array with two elements: [field, value]
-     * @throws IllegalArgumentException if pair format is invalid
+     * @param line the line holding the arguments
+     * @param tokens the ranges of the arguments in the line
+     * @param tokenizer the tokenizer locating the delimiter
+     * @return map of field names to parsed values
+     * @throws IllegalArgumentException if the pairs are invalid for the detected format
+     */
+    Map<String, Object> parseTokens(CharSequence line, Tokens tokens, PairTokenizer tokenizer) {
+        CompactRecord record = new CompactRecord();
+        parseTokens(line, tokens, tokenizer, record);
+        return record.toMap();
+    }
+
+    /**
+     * Parses the arguments of a line like {@link #parseTokens(CharSequence, Tokens, PairTokenizer)}
+     * into a reused record, in input order and without boxing inferred numbers.
+     *
+     * @param line the line holding the arguments
+     * @param tokens the ranges of the arguments in the line
+     * @param tokenizer the tokenizer locating the delimiter
+     * @param record the record receiving the fields, cleared first
+     * @throws IllegalArgumentException if the pairs are invalid for the detected format
+     */
+    void parseTokens(CharSequence line, Tokens tokens, PairTokenizer tokenizer, CompactRecord record) {
+        record.clear();
+        if (!RecordParseEvent.enabled()) {
+            tokenPairs(line, tokens, tokenizer, record);
+            return;
+        }
+        RecordParseEvent event = new RecordParseEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            tokenPairs(line, tokens, tokenizer, record);
+            failed = false;
+        } finally {
+            if (event.shouldCommit()) {
+                event.arguments = tokens.count();
+                event.length = line.length();
+                event.fields = failed ? 0 : record.size();
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Parses a single delimited pair in the region [start, end) of a character sequence into a reused record.
+     * The field name is a new String, not looked up in the key cache, since streamed records may hold
+     * millions of distinct keys that would only churn it.
+     *
+     * @param text the sequence holding the pair
+     * @param start index of the first character of the pair
+     * @param end index after the last character of the pair
+     * @param tokenizer the tokenizer locating the delimiter
+     * @param record the record receiving the field, cleared first
+     * @throws IllegalArgumentException if the pair has no delimiter or an empty field name
+     */
+    void parsePair(CharSequence text, int start, int end, PairTokenizer tokenizer, CompactRecord record) {
+        record.clear();
+        putDelimitedPair(null, record, text, start, end, tokenizer, 0, false);
+    }
+
+    private void tokenPairs(CharSequence line, Tokens tokens, PairTokenizer tokenizer, CompactRecord record) {
+        int count = tokens.count();
+        boolean delimited = false;
+        for (int i = 0; i < count && !delimited; i++) {
+            delimited = tokenizer.indexOf(line, tokens.start(i), tokens.end(i)) >= 0;
+        }
+
+        if (delimited) {
+            for (int i = 0; i < count; i++) {
+                putDelimitedPair(null, record, line, tokens.start(i), tokens.end(i), tokenizer, i + 1, true);
+            }
+            return;
+        }
+
+        if (count < 2) {
+            throw RecordException.TOO_FEW_ARGUMENTS;
+        }
+        if (count % 2 != 0) {
+            throw RecordException.ODD_ARGUMENTS;
+        }
+
+        for (int i = 0; i < count; i += 2) {
+            int fieldStart = skipLeadingWhitespace(line, tokens.start(i), tokens.end(i));
+            int fieldEnd = skipTrailingWhitespace(line, fieldStart, tokens.end(i));
+            // Same as removeQuotes
+            if (fieldEnd - fieldStart >= 2) {
+                char quote = line.charAt(fieldStart);
+                if ((quote == '"' || quote == '\'') && line.charAt(fieldEnd - 1) == quote) {
+                    fieldStart++;
+                    fieldEnd--;
+                }
+            }
+            if (fieldStart == fieldEnd) {
+                throw RecordException.emptyField(i + 1);
+            }
+
+            int valueStart = skipLeadingWhitespace(line, tokens.start(i + 1), tokens.end(i + 1));
+            int valueEnd = skipTrailingWhitespace(line, valueStart, tokens.end(i + 1));
+
+            String field = keyCache.key(line, fieldStart, fieldEnd);
+            putValue(record, field, line, valueStart, valueEnd, i + 2);
+        }
+    }
+
+    /**
+     * Parses the delimited pair in the region [start, end) of a character sequence into the map,
+     * or into the record when the map is null. The position of the pair, counted from 1, locates errors.
+     */
+    private void putDelimitedPair(Map<String, Object> map, CompactRecord record, CharSequence pair, int start, int end,
+            PairTokenizer tokenizer, int position, boolean cachedKey) {
+        int delimiterIndex = tokenizer.indexOf(pair, start, end);
+        if (delimiterIndex < 0) {
+            throw RecordException.missingDelimiter(pair, start, end, position, tokenizer);
+        }
+
+        int fieldStart = skipLeadingWhitespace(pair, start, delimiterIndex);
+        int fieldEnd = skipTrailingWhitespace(pair, fieldStart, delimiterIndex);
+        if (fieldStart == fieldEnd) {
+            throw RecordException.emptyField(pair, start, end, position);
+        }
+
+        int valueStart = skipLeadingWhitespace(pair, delimiterIndex + tokenizer.delimiterLength(), end);
+        int valueEnd = skipTrailingWhitespace(pair, valueStart, end);
+
+        String field = cachedKey ? keyCache.key(pair, fieldStart, fieldEnd) : ValueParser.text(pair, fieldStart, fieldEnd);
+        if (map == null) {
+            putValue(record, field, pair, valueStart, valueEnd, position);
+            return;
+        }
+        Object parsedValue = parseValue(field, pair, valueStart, valueEnd, position);
+        map.put(field, parsedValue);
+    }
+
+    /**
+     * Runs a parse inside a {@link RecordParseEvent}, failed if the parse throws.
      */
-    private String[] splitPair(String pair) {
-        String[] parts;
+    private static Map<String, Object> recordParse(String[] pairs, Supplier<Map<String, Object>> parse) {
+        RecordParseEvent event = new RecordParseEvent();
+        event.begin();
+        Map<String, Object> map = null;
+        try {
+            map = parse.get();
+            return map;
+        } finally {
+            if (event.shouldCommit()) {
+                long length = 0;
+                if (pairs != null) {
+                    event.arguments = pairs.length;
+                    for (String pair : pairs) {
+                        length += pair.length();
+                    }
+                }
+                event.length = length;
+                event.fields = map == null ? 0 : map.size();
+                event.failed = map == null;
+                event.commit();
+            }
+        }
+    }
 
-        // Try both '=' and ':' as delimiters
-        if (pair.contains("=")) {
-            parts = pair.split("=", 2);
-        } else if (pair.contains(":")) {
-            parts = pair.split(":", 2);
-        } else {
-            throw new IllegalArgumentException(
-                "Invalid pair format: '" + pair + "'. Expected format: 'field=value' or 'field:value'"
-            );
+    private Object parseValue(String field, CharSequence text, int start, int end, int position) {
+        if (schema == null) {
+            return valueParser.parseValue(text, start, end);
+        }
+        try {
+            return schema.parseValue(field, text, start, end, valueParser);
+        } catch (RecordException e) {
+            throw e.at(position);
         }
+    }
 
-        if (parts.length != 2) {
-            throw new IllegalArgumentException(
-                "Invalid pair format: '" + pair + "'. Expected format: 'field=value' or 'field:value'"
-            );
+    private void putValue(CompactRecord record, String field, CharSequence text, int start, int end, int position) {
+        if (schema == null) {
+            valueParser.parseValue(text, start, end, field, record);
+            return;
         }
+        try {
+            record.put(field, schema.parseValue(field, text, start, end, valueParser));
+        } catch (RecordException e) {
+            throw e.at(position);
+        }
+    }
+
+    // Same whitespace definition as String.trim()
+    private static int skipLeadingWhitespace(CharSequence str, int start, int end) {
+        while (start < end && str.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
 
-        return parts;
+    private static int skipTrailingWhitespace(CharSequence str, int start, int end) {
+        while (end > start && str.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
     }
 }
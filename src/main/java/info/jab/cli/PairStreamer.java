@@ -0,0 +1,185 @@
+package info.jab.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts one record made of any number of field=value pairs, read one pair per line or NUL-terminated,
+ * into a single &lt;result&gt; whose fields are written as soon as they are parsed.
+ * No map of the record is built: memory holds one pair at a time, plus a {@link KeyFingerprints} table
+ * detecting repeated fields from fingerprints of their keys, so values cost nothing and a key 8 to 16 bytes
+ * whatever its length, twice that with {@link DuplicateKeyPolicy#LAST}. Keys bypass the {@link KeyCache}
+ * shared with the other modes. Repeated fields are handled by
+ * a {@link DuplicateKeyPolicy}.
+ *
+ * Pairs are parsed like the arguments of --build, blank pairs are skipped. An invalid pair stops the stream;
+ * the fields written until then are left as an unfinished result. Output is JSON only, since binary records
+ * start with their length. Instances reuse their buffers and are not thread-safe.
+ */
+public class PairStreamer {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final PairParser pairParser;
+    private final JsonConverter jsonConverter;
+    private final PairTokenizer pairTokenizer;
+    private final DuplicateKeyPolicy duplicates;
+    private final char separator;
+    private final CompactRecord record = new CompactRecord();
+    private final StringBuilder pair = new StringBuilder();
+    private final char[] chunk = new char[CHUNK_SIZE];
+
+    public PairStreamer() {
+        this(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT, DuplicateKeyPolicy.ERROR, '\n');
+    }
+
+    /**
+     * Creates a streamer.
+     *
+     * @param pairParser the parser of each pair
+     * @param jsonConverter the converter writing the result
+     * @param pairTokenizer the tokenizer locating the delimiter
+     * @param duplicates what to do with a field that appears again
+     * @param separator the character ending each pair, a newline or NUL
+     */
+    public PairStreamer(PairParser pairParser, JsonConverter jsonConverter, PairTokenizer pairTokenizer,
+            DuplicateKeyPolicy duplicates, char separator) {
+        this.pairParser = pairParser;
+        this.jsonConverter = jsonConverter;
+        this.pairTokenizer = pairTokenizer;
+        this.duplicates = duplicates;
+        this.separator = separator;
+    }
+
+    /**
+     * Streams the pairs of a reader into one result. The reader is not closed.
+     *
+     * @param reader the source of the pairs
+     * @param out the stream receiving the result; it is flushed but not closed
+     * @return the number of fields written
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a pair is invalid, a field is repeated with {@link DuplicateKeyPolicy#ERROR},
+     *                                  or the policy is {@link DuplicateKeyPolicy#LAST}, which needs a file
+     */
+    public long stream(Reader reader, OutputStream out) throws IOException {
+        if (duplicates == DuplicateKeyPolicy.LAST) {
+            throw new IllegalArgumentException("Keeping the last duplicate reads the pairs twice and needs an input file");
+        }
+        return write(reader, out, null);
+    }
+
+    /**
+     * Streams the pairs of a UTF-8 file into one result. With {@link DuplicateKeyPolicy#LAST}, a first pass
+     * finds the last occurrence of every field, so invalid pairs are reported before anything is written.
+     *
+     * @param input the file holding the pairs
+     * @param out the stream receiving the result; it is flushed but not closed
+     * @return the number of fields written
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a pair is invalid or a field is repeated with {@link DuplicateKeyPolicy#ERROR}
+     */
+    public long stream(Path input, OutputStream out) throws IOException {
+        KeyFingerprints last = null;
+        if (duplicates == DuplicateKeyPolicy.LAST) {
+            KeyFingerprints occurrences = new KeyFingerprints(true);
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                readPairs(reader, number -> occurrences.put(KeyFingerprints.fingerprint(record.key(0)), number));
+            }
+            last = occurrences;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return write(reader, out, last);
+        }
+    }
+
+    /**
+     * Writes the pairs, keeping the pairs whose number is stored for their key in last,
+     * or the first occurrence of every key when last is null.
+     */
+    private long write(Reader reader, OutputStream out, KeyFingerprints last) throws IOException {
+        KeyFingerprints seen = last == null ? new KeyFingerprints() : null;
+        long[] fields = new long[1];
+        try (ResultWriter resultWriter = jsonConverter.newResultWriter(out)) {
+            resultWriter.writeStart();
+            readPairs(reader, number -> {
+                long fingerprint = KeyFingerprints.fingerprint(record.key(0));
+                if (last != null) {
+                    if (last.get(fingerprint) != number) {
+                        return;
+                    }
+                } else if (!seen.add(fingerprint)) {
+                    if (duplicates == DuplicateKeyPolicy.ERROR) {
+                        throw new IllegalArgumentException("Duplicate field '" + record.key(0) + "' at pair " + number);
+                    }
+                    return;
+                }
+                resultWriter.writeField(record, 0);
+                fields[0]++;
+            });
+            resultWriter.writeEnd();
+        }
+        return fields[0];
+    }
+
+    /**
+     * Parses every non-blank pair of the reader into the record and hands its number, counted from 1, to the handler.
+     */
+    private void readPairs(Reader reader, PairHandler handler) throws IOException {
+        int number = 0;
+        int read;
+        pair.setLength(0);
+        while ((read = reader.read(chunk)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == separator) {
+                    pair.append(chunk, start, i - start);
+                    number = handle(number, handler);
+                    start = i + 1;
+                }
+            }
+            pair.append(chunk, start, read - start);
+        }
+        handle(number, handler);
+    }
+
+    private int handle(int number, PairHandler handler) throws IOException {
+        if (isBlank(pair)) {
+            pair.setLength(0);
+            return number;
+        }
+        if (number == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A streamed record holds at most " + Integer.MAX_VALUE + " pairs");
+        }
+        number++;
+        try {
+            pairParser.parsePair(pair, 0, pair.length(), pairTokenizer, record);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Pair " + number + ": " + e.getMessage(), e);
+        }
+        pair.setLength(0);
+        handler.accept(number);
+        return number;
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receives the number of a pair parsed into the record.
+     */
+    @FunctionalInterface
+    private interface PairHandler {
+        void accept(int number) throws IOException;
+    }
+}
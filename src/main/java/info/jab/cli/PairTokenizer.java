@@ -0,0 +1,130 @@
+package info.jab.cli;
+
+/**
+ * Locates the delimiter that separates field and value in a delimited pair.
+ * The default tokenizer splits on the first '=' or, when there is none, on the first ':'.
+ * A custom delimiter (for example '|' or a tab) can be configured with the --delimiter option.
+ * The delimiter is found with a single scan and no intermediate strings are created.
+ */
+public class PairTokenizer {
+
+    /**
+     * Tokenizer used when no delimiter is configured: '=' or ':'.
+     */
+    public static final PairTokenizer DEFAULT = new PairTokenizer(null);
+
+    private final String delimiter;
+
+    private PairTokenizer(String delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Creates a tokenizer for the given delimiter.
+     * The escape sequence \t is accepted for a tab, which is awkward to type in a shell.
+     *
+     * @param delimiter the delimiter, or null/empty to use the default '=' or ':'
+     * @return the tokenizer for the delimiter
+     */
+    public static PairTokenizer of(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            return DEFAULT;
+        }
+        return new PairTokenizer(delimiter.replace("\\t", "\t"));
+    }
+
+    /**
+     * Finds the position of the delimiter in a pair.
+     *
+     * @param pair the pair to scan
+     * @return index of the first delimiter character, or -1 if there is none
+     */
+    public int indexOf(String pair) {
+        return indexOf(pair, 0, pair.length());
+    }
+
+    /**
+     * Finds the position of the delimiter in the region [start, end) of a character sequence.
+     *
+     * @param pair the sequence to scan
+     * @param start index of the first character of the pair
+     * @param end index after the last character of the pair
+     * @return index of the first delimiter character, or -1 if there is none
+     */
+    int indexOf(CharSequence pair, int start, int end) {
+        if (delimiter == null) {
+            // '=' takes precedence over ':' wherever they appear
+            int colon = -1;
+            for (int i = start; i < end; i++) {
+                char c = pair.charAt(i);
+                if (c == '=') {
+                    return i;
+                }
+                if (c == ':' && colon < 0) {
+                    colon = i;
+                }
+            }
+            return colon;
+        }
+
+        int last = end - delimiter.length();
+        if (pair instanceof String str) {
+            // String.indexOf is an intrinsic
+            int index = delimiter.length() == 1
+                ? str.indexOf(delimiter.charAt(0), start)
+                : str.indexOf(delimiter, start);
+            return index <= last ? index : -1;
+        }
+
+        char first = delimiter.charAt(0);
+        for (int i = start; i <= last; i++) {
+            if (pair.charAt(i) == first && matchesAt(pair, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a character is part of the delimiter.
+     *
+     * @param c the character to check
+     * @return true if the character belongs to the delimiter
+     */
+    boolean isDelimiterCharacter(char c) {
+        if (delimiter == null) {
+            return c == '=' || c == ':';
+        }
+        return delimiter.indexOf(c) >= 0;
+    }
+
+    /**
+     * Returns the number of characters of the delimiter found by {@link #indexOf(String)}.
+     *
+     * @return the delimiter length
+     */
+    public int delimiterLength() {
+        return delimiter == null ? 1 : delimiter.length();
+    }
+
+    /**
+     * Describes the accepted pair format, for error messages.
+     *
+     * @return the expected format
+     */
+    public String expectedFormat() {
+        if (delimiter == null) {
+            return "'field=value' or 'field:value'";
+        }
+        return "'field" + delimiter + "value'";
+    }
+
+    private boolean matchesAt(CharSequence pair, int index) {
+        for (int j = 1; j < delimiter.length(); j++) {
+            if (pair.charAt(index + j) != delimiter.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
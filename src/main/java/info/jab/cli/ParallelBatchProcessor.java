@@ -0,0 +1,215 @@
+package info.jab.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Processes a stream of records like {@link BatchProcessor} using several worker threads.
+ * The input is split into chunks on line boundaries, every worker thread converts chunks
+ * with its own {@link BatchProcessor}, and the output is written in input order.
+ * The number of chunks in flight is bounded, so memory stays flat regardless of the input size.
+ * A run stopped at a number of errors writes exactly what a sequential run would.
+ */
+public class ParallelBatchProcessor {
+
+    static final int DEFAULT_CHUNK_LINES = 4096;
+    private static final int MAX_CHUNK_CHARS = 1 << 20;
+
+    private final int parallelism;
+    private final Supplier<BatchProcessor> workerFactory;
+    private final int chunkLines;
+
+    /**
+     * Creates a processor.
+     *
+     * @param parallelism number of worker threads
+     * @param workerFactory creates the processor used by each worker thread
+     */
+    public ParallelBatchProcessor(int parallelism, Supplier<BatchProcessor> workerFactory) {
+        this(parallelism, workerFactory, DEFAULT_CHUNK_LINES);
+    }
+
+    ParallelBatchProcessor(int parallelism, Supplier<BatchProcessor> workerFactory, int chunkLines) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.workerFactory = workerFactory;
+        this.chunkLines = chunkLines;
+    }
+
+    /**
+     * Converted chunk waiting to be written. When the run stops at a number of errors, the marks hold
+     * the sizes of the output and error output right after each invalid record, otherwise they are null.
+     */
+    private record Chunk(ByteArrayOutputStream output, ByteArrayOutputStream errorOutput, int errors,
+            int[] outputMarks, int[] errorMarks) {
+    }
+
+    /**
+     * Reads every line from the reader and writes one result per record to the stream,
+     * in the same order as a sequential run. The stream is flushed but not closed.
+     *
+     * @param reader the source of records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @return the number of records that could not be converted
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(BufferedReader reader, OutputStream out, PrintStream err) throws IOException {
+        return process(reader, out, err, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Processes the lines of the reader like {@link #process(BufferedReader, OutputStream, PrintStream)},
+     * stopping after the invalid record that brings the number of errors to maxErrors. Chunks already
+     * converted past that record are discarded.
+     *
+     * @param reader the source of records, one per line
+     * @param out the destination of the results
+     * @param err the stream where per-record errors are reported
+     * @param maxErrors the number of invalid records that stops the run
+     * @return the number of records that could not be converted, at most maxErrors
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int process(BufferedReader reader, OutputStream out, PrintStream err, int maxErrors) throws IOException {
+        ThreadLocal<BatchProcessor> workers = ThreadLocal.withInitial(workerFactory);
+        boolean marked = maxErrors < Integer.MAX_VALUE;
+        Charset errorCharset = err.charset();
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        int maxInFlight = parallelism * 2;
+        int errors = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<String> lines = new ArrayList<>(chunkLines);
+            long chars = 0;
+            long nextLineNumber = 1;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                chars += line.length();
+                if (lines.size() == chunkLines || chars >= MAX_CHUNK_CHARS) {
+                    inFlight.addLast(submit(executor, workers, lines, nextLineNumber, errorCharset, marked));
+                    nextLineNumber += lines.size();
+                    lines = new ArrayList<>(chunkLines);
+                    chars = 0;
+
+                    // Back-pressure: wait for the oldest chunk before reading further
+                    while (inFlight.size() >= maxInFlight && errors < maxErrors) {
+                        errors += write(inFlight.removeFirst(), out, err, maxErrors - errors);
+                    }
+                    if (errors >= maxErrors) {
+                        break;
+                    }
+                }
+            }
+            if (!lines.isEmpty() && errors < maxErrors) {
+                inFlight.addLast(submit(executor, workers, lines, nextLineNumber, errorCharset, marked));
+            }
+            while (!inFlight.isEmpty() && errors < maxErrors) {
+                errors += write(inFlight.removeFirst(), out, err, maxErrors - errors);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        out.flush();
+        return errors;
+    }
+
+    private static Future<Chunk> submit(
+            ExecutorService executor,
+            ThreadLocal<BatchProcessor> workers,
+            List<String> lines,
+            long firstLineNumber,
+            Charset errorCharset,
+            boolean marked) {
+        return executor.submit(() -> convert(workers.get(), lines, firstLineNumber, errorCharset, marked));
+    }
+
+    private static Chunk convert(BatchProcessor worker, List<String> lines, long firstLineNumber, Charset errorCharset,
+            boolean marked) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+        PrintStream err = new PrintStream(errorOutput, false, errorCharset);
+        int errors = 0;
+        int[] outputMarks = marked ? new int[8] : null;
+        int[] errorMarks = marked ? new int[8] : null;
+
+        try (RecordWriter resultWriter = worker.newRecordWriter(output)) {
+            for (int i = 0; i < lines.size(); i++) {
+                if (!worker.processLine(lines.get(i), firstLineNumber + i, resultWriter, err)) {
+                    if (marked) {
+                        if (errors == outputMarks.length) {
+                            outputMarks = Arrays.copyOf(outputMarks, errors * 2);
+                            errorMarks = Arrays.copyOf(errorMarks, errors * 2);
+                        }
+                        resultWriter.flush();
+                        err.flush();
+                        outputMarks[errors] = output.size();
+                        errorMarks[errors] = errorOutput.size();
+                    }
+                    errors++;
+                }
+            }
+        }
+        err.flush();
+
+        return new Chunk(output, errorOutput, errors, outputMarks, errorMarks);
+    }
+
+    /**
+     * Writes a converted chunk, or its part ending with the invalid record number maxErrors of the chunk.
+     *
+     * @return the number of invalid records written
+     */
+    private static int write(Future<Chunk> future, OutputStream out, PrintStream err, int maxErrors) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+
+        if (chunk.errors() >= maxErrors && chunk.outputMarks() != null) {
+            out.write(chunk.output().toByteArray(), 0, chunk.outputMarks()[maxErrors - 1]);
+            err.write(chunk.errorOutput().toByteArray(), 0, chunk.errorMarks()[maxErrors - 1]);
+            return maxErrors;
+        }
+        chunk.output().writeTo(out);
+        if (chunk.errors() > 0) {
+            chunk.errorOutput().writeTo(err);
+        }
+        return chunk.errors();
+    }
+}
@@ -0,0 +1,194 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Number kept as the text it was written with, produced by {@link NumberMode#LOSSLESS}.
+ * The text follows the JSON number grammar and is written to JSON as a number token as-is,
+ * so no digit is lost and no time is spent converting it to binary and formatting it again.
+ * Binary formats have no textual numbers, so they receive a long, a BigInteger or a BigDecimal.
+ * Conversions to Java numbers only happen when one of the {@link Number} methods is called.
+ */
+public final class RawNumber extends Number implements JsonSerializable {
+
+    static final int NOT_A_NUMBER = 0;
+    static final int INTEGER = 1;
+    static final int DECIMAL = 2;
+
+    // Any number of up to 18 digits fits in a long
+    private static final int LONG_DIGITS = 18;
+
+    private final String text;
+
+    RawNumber(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Creates a number from its text.
+     *
+     * @param text a JSON number, such as {@code -12.50e3}
+     * @return the number
+     * @throws IllegalArgumentException if the text does not follow the JSON number grammar
+     */
+    public static RawNumber of(String text) {
+        if (scan(text, 0, text.length()) == NOT_A_NUMBER) {
+            throw new IllegalArgumentException("Not a JSON number: '" + text + "'");
+        }
+        return new RawNumber(text);
+    }
+
+    /**
+     * @return the number as written
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return whether the number has neither a fraction nor an exponent
+     */
+    public boolean isIntegral() {
+        return scan(text, 0, text.length()) == INTEGER;
+    }
+
+    public BigDecimal bigDecimalValue() {
+        return new BigDecimal(text);
+    }
+
+    /**
+     * @return the number, without its fractional part if it has one
+     */
+    public BigInteger bigIntegerValue() {
+        return isIntegral() ? new BigInteger(text) : bigDecimalValue().toBigInteger();
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        if (isIntegral() && text.length() <= LONG_DIGITS) {
+            return Long.parseLong(text);
+        }
+        return bigDecimalValue().longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return Float.parseFloat(text);
+    }
+
+    @Override
+    public double doubleValue() {
+        return Double.parseDouble(text);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RawNumber number && number.text.equals(text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        write(generator, text);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+
+    /**
+     * Writes the text of a JSON number as a number, verbatim to JSON and converted for binary formats.
+     */
+    static void write(JsonGenerator generator, String text) throws IOException {
+        if (generator instanceof JsonGeneratorImpl) {
+            generator.writeNumber(text);
+        } else if (scan(text, 0, text.length()) == INTEGER) {
+            BigInteger integer = new BigInteger(text);
+            if (integer.bitLength() < Long.SIZE) {
+                generator.writeNumber(integer.longValue());
+            } else {
+                generator.writeNumber(integer);
+            }
+        } else {
+            generator.writeNumber(new BigDecimal(text));
+        }
+    }
+
+    /**
+     * Checks the region [start, end) against the JSON number grammar:
+     * {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+     *
+     * @return {@link #INTEGER} or {@link #DECIMAL} for a number with a fraction or an exponent, {@link #NOT_A_NUMBER} otherwise
+     */
+    static int scan(CharSequence text, int start, int end) {
+        int i = start;
+        if (i < end && text.charAt(i) == '-') {
+            i++;
+        }
+        if (i == end) {
+            return NOT_A_NUMBER;
+        }
+        char first = text.charAt(i);
+        if (first == '0') {
+            i++;
+        } else if (first >= '1' && first <= '9') {
+            i = digitsEnd(text, i + 1, end);
+        } else {
+            return NOT_A_NUMBER;
+        }
+
+        int kind = INTEGER;
+        if (i < end && text.charAt(i) == '.') {
+            int fractionStart = i + 1;
+            i = digitsEnd(text, fractionStart, end);
+            if (i == fractionStart) {
+                return NOT_A_NUMBER;
+            }
+            kind = DECIMAL;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            i = digitsEnd(text, exponentStart, end);
+            if (i == exponentStart) {
+                return NOT_A_NUMBER;
+            }
+            kind = DECIMAL;
+        }
+        return i == end ? kind : NOT_A_NUMBER;
+    }
+
+    private static int digitsEnd(CharSequence text, int i, int end) {
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+}
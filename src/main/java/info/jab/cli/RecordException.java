@@ -0,0 +1,128 @@
+package info.jab.cli;
+
+/**
+ * Invalid record found while parsing field-value pairs, described by an {@link ErrorCode},
+ * the position of the offending argument and its text instead of a prebuilt message.
+ *
+ * Invalid records are expected in batch input, so the exception is cheap to throw: it has no stack trace,
+ * its message is only built when asked for, and the argument count errors are preallocated and shared.
+ * It extends IllegalArgumentException, so callers catching parse errors keep working unchanged.
+ * The shared instances are thrown as they are: callers must not add suppressed exceptions to them.
+ */
+public class RecordException extends IllegalArgumentException {
+
+    static final RecordException TOO_FEW_ARGUMENTS = new RecordException(ErrorCode.TOO_FEW_ARGUMENTS, 0, null, null, null);
+    static final RecordException ODD_ARGUMENTS = new RecordException(ErrorCode.ODD_ARGUMENTS, 0, null, null, null);
+
+    private final ErrorCode code;
+    private final int position;
+    private final String field;
+    private final String input;
+    private final String detail;
+    private String message;
+
+    private RecordException(ErrorCode code, int position, String field, String input, String detail) {
+        this.code = code;
+        this.position = position;
+        this.field = field;
+        this.input = input;
+        this.detail = detail;
+    }
+
+    /**
+     * A pair without the delimiter.
+     *
+     * @param pair the sequence holding the pair
+     * @param start index of the first character of the pair
+     * @param end index after the last character of the pair
+     * @param position the position of the pair in the record, counted from 1, or 0 if unknown
+     * @param tokenizer the tokenizer whose delimiter is missing
+     */
+    static RecordException missingDelimiter(CharSequence pair, int start, int end, int position, PairTokenizer tokenizer) {
+        return new RecordException(ErrorCode.MISSING_DELIMITER, position, null, ValueParser.text(pair, start, end),
+            tokenizer.expectedFormat());
+    }
+
+    /**
+     * A delimited pair whose field name is empty.
+     */
+    static RecordException emptyField(CharSequence pair, int start, int end, int position) {
+        return new RecordException(ErrorCode.EMPTY_FIELD, position, null, ValueParser.text(pair, start, end), null);
+    }
+
+    /**
+     * An empty field name among alternating pairs.
+     */
+    static RecordException emptyField(int position) {
+        return new RecordException(ErrorCode.EMPTY_FIELD, position, null, null, null);
+    }
+
+    static RecordException unknownField(String field) {
+        return new RecordException(ErrorCode.UNKNOWN_FIELD, 0, field, field, null);
+    }
+
+    static RecordException invalidValue(String field, String value, FieldType type) {
+        return new RecordException(ErrorCode.INVALID_VALUE, 0, field, value, type.label());
+    }
+
+    /**
+     * @return this error located at the given position, or this error if it already has one
+     */
+    RecordException at(int position) {
+        if (this.position != 0 || position == 0) {
+            return this;
+        }
+        return new RecordException(code, position, field, input, detail);
+    }
+
+    public ErrorCode code() {
+        return code;
+    }
+
+    /**
+     * @return the position of the offending argument in the record, counted from 1, or 0 if unknown
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * @return the name of the offending field, or null if the field name itself is the problem
+     */
+    public String field() {
+        return field;
+    }
+
+    /**
+     * @return the offending pair or value, or null if the arguments as a whole are invalid
+     */
+    public String input() {
+        return input;
+    }
+
+    /**
+     * Skips capturing the stack, which would cost more than parsing the record.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = switch (code) {
+                case TOO_FEW_ARGUMENTS -> "Invalid number of arguments. Expected at least 2 arguments (field-value pairs).";
+                case ODD_ARGUMENTS -> "Invalid number of arguments. Expected even number of arguments (field-value pairs).";
+                case MISSING_DELIMITER -> "Invalid pair format: '" + input + "'. Expected format: " + detail;
+                case EMPTY_FIELD -> input != null
+                    ? "Field name cannot be empty in pair: '" + input + "'"
+                    : "Field name cannot be empty at position " + position;
+                case UNKNOWN_FIELD -> "Unknown field '" + field + "' is not declared in the schema";
+                case INVALID_VALUE -> "Invalid " + detail + " value for field '" + field + "': '" + input + "'";
+                default -> code.label();
+            };
+        }
+        return message;
+    }
+}
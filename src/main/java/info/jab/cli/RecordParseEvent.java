@@ -0,0 +1,49 @@
+package info.jab.cli;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the parsing of one record by {@link PairParser}.
+ * Disabled by default; enable it with the result-json-map.jfc settings.
+ */
+@Name("info.jab.cli.RecordParse")
+@Label("Record Parse")
+@Category({"Result JSON Map", "Parsing"})
+@Description("Parsing of the field-value pairs of one record")
+@Enabled(false)
+@StackTrace(false)
+final class RecordParseEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(RecordParseEvent.class);
+
+    @Label("Arguments")
+    @Description("Number of arguments of the record")
+    int arguments;
+
+    @Label("Fields")
+    @Description("Number of fields of the parsed record, 0 if it failed")
+    int fields;
+
+    @Label("Length")
+    @Description("Characters of the record")
+    long length;
+
+    @Label("Failed")
+    @Description("Whether the record was invalid")
+    boolean failed;
+
+    /**
+     * Checks whether a recording has enabled the event, so callers on hot paths only create it then.
+     * Unlike {@link #begin()}, this does not read the clock.
+     */
+    static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,29 @@
+package info.jab.cli;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes converted records one after another to a stream, in the encoding of an {@link OutputFormat}.
+ * Closing the writer flushes it but leaves the stream open.
+ */
+public interface RecordWriter extends Flushable, Closeable {
+
+    /**
+     * Writes one record, followed by whatever separates records in the encoding.
+     *
+     * @param map the record to write
+     * @throws IOException if writing fails
+     */
+    void writeLine(Map<String, Object> map) throws IOException;
+
+    /**
+     * Writes one record held in a {@link CompactRecord}, in its field order and without boxing its values.
+     *
+     * @param record the record to write
+     * @throws IOException if writing fails
+     */
+    void writeLine(CompactRecord record) throws IOException;
+}
@@ -0,0 +1,358 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Entry point for building &lt;result&gt;{json}&lt;/result&gt; records in-process, with the output of --build.
+ *
+ * <pre>{@code
+ * ResultBuilder builder = new ResultBuilder();  // shared by every thread
+ * builder.result()
+ *     .put("name", "John")
+ *     .putLong("id", 42)
+ *     .putDouble("price", 19.99)
+ *     .writeTo(out);
+ * }</pre>
+ *
+ * A builder is thread-safe. Each {@link Result} holds a reusable {@link CompactRecord}, a byte buffer and
+ * a Jackson generator, and goes back to a small lock-free pool of the builder once written, so building and
+ * writing a record allocates almost nothing once the builder is warm, on platform and virtual threads alike.
+ * The pool is bounded and dropped with the builder, and buffers grown by a large record are released once it
+ * is written, so a pooled result keeps at most {@value #MAX_RETAINED_BYTES} bytes.
+ */
+public final class ResultBuilder {
+
+    static final int INITIAL_BUFFER_SIZE = 512;
+    static final int MAX_RETAINED_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final KeyCache keyCache;
+    private final ValueParser valueParser;
+    private final Pool pool = new Pool();
+
+    public ResultBuilder() {
+        this(new ObjectMapper(), new KeyCache(), new ValueParser());
+    }
+
+    /**
+     * Creates a builder.
+     *
+     * @param objectMapper the mapper writing values other than strings, numbers and booleans;
+     *                     it must not be reconfigured once the builder is in use
+     * @param keyCache the cache of encoded field names, shared by every thread
+     * @param valueParser the parser inferring the type of the values given to {@link Result#parse}
+     */
+    public ResultBuilder(ObjectMapper objectMapper, KeyCache keyCache, ValueParser valueParser) {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
+        this.keyCache = Objects.requireNonNull(keyCache, "keyCache");
+        this.valueParser = Objects.requireNonNull(valueParser, "valueParser");
+    }
+
+    /**
+     * Starts a record, reusing a result written earlier when the pool holds one.
+     * Writing the result returns it to the pool, so it must not be used once written.
+     *
+     * @return an empty result
+     */
+    public Result result() {
+        Result result = pool.acquire();
+        if (result == null) {
+            result = newResult();
+        }
+        result.record.clear();
+        return result;
+    }
+
+    /**
+     * Writes the entries of a map as one record, in its iteration order.
+     *
+     * @param fields the fields of the record
+     * @param out the stream receiving the result; it is neither flushed nor closed
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(Map<String, ?> fields, OutputStream out) throws IOException {
+        result().putAll(fields).writeTo(out);
+    }
+
+    private Result newResult() {
+        try {
+            return new Result(objectMapper, keyCache, valueParser, pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Results waiting to be reused, in slots taken and filled with atomic swaps.
+     * A thread starts looking at the slot of its id, so platform threads tend to get their own result back.
+     */
+    private static final class Pool {
+
+        private static final int SIZE = Integer.highestOneBit(Math.max(8, 2 * Runtime.getRuntime().availableProcessors()) - 1) << 1;
+
+        private final AtomicReferenceArray<Result> slots = new AtomicReferenceArray<>(SIZE);
+
+        Result acquire() {
+            int start = (int) Thread.currentThread().threadId();
+            for (int i = 0; i < SIZE; i++) {
+                int slot = (start + i) & (SIZE - 1);
+                Result result;
+                if (slots.get(slot) != null && (result = slots.getAndSet(slot, null)) != null) {
+                    result.pooled = false;
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Offers a written result back; it is dropped when the pool is full.
+         */
+        void release(Result result) {
+            if (result.pooled) {
+                return;
+            }
+            result.pooled = true;
+            int start = (int) Thread.currentThread().threadId();
+            for (int i = 0; i < SIZE; i++) {
+                int slot = (start + i) & (SIZE - 1);
+                if (slots.get(slot) == null && slots.compareAndSet(slot, null, result)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Record under construction, with fluent setters. Adding a field again replaces its value.
+     * A result must be used by one thread at a time, and not at all once it has been written.
+     */
+    public static final class Result {
+
+        private final Pool pool;
+        private final ValueParser valueParser;
+        private final CompactRecord record = new CompactRecord();
+        private final Buffer buffer = new Buffer();
+        private final ResultWriter resultWriter;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private CharBuffer chars = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private boolean pooled;
+
+        private Result(ObjectMapper objectMapper, KeyCache keyCache, ValueParser valueParser, Pool pool)
+                throws IOException {
+            this.pool = pool;
+            this.valueParser = valueParser;
+            this.resultWriter = new ResultWriter(objectMapper, keyCache, buffer);
+        }
+
+        public Result put(String field, String value) {
+            record.putString(field, value);
+            return this;
+        }
+
+        public Result putInt(String field, int value) {
+            record.putInt(field, value);
+            return this;
+        }
+
+        public Result putLong(String field, long value) {
+            record.putLong(field, value);
+            return this;
+        }
+
+        public Result putDouble(String field, double value) {
+            record.putDouble(field, value);
+            return this;
+        }
+
+        public Result putBoolean(String field, boolean value) {
+            record.putBoolean(field, value);
+            return this;
+        }
+
+        /**
+         * Adds a value of any type. Integer, Long, Double and Boolean values are unboxed; values other than
+         * strings, numbers and booleans are written by the builder's ObjectMapper.
+         */
+        public Result put(String field, Object value) {
+            record.put(field, value);
+            return this;
+        }
+
+        /**
+         * Adds every entry of a map, in its iteration order.
+         */
+        public Result putAll(Map<String, ?> fields) {
+            record.putAll(fields);
+            return this;
+        }
+
+        /**
+         * Adds a value typed like the values of --build: quoted text becomes a string, numbers become numbers.
+         *
+         * @param field the field name
+         * @param text the value as it would be written on the command line
+         */
+        public Result parse(String field, CharSequence text) {
+            valueParser.parseValue(text, 0, text.length(), field, record);
+            return this;
+        }
+
+        /**
+         * @return the number of fields
+         */
+        public int size() {
+            return record.size();
+        }
+
+        /**
+         * Writes the result to a stream with a single write call.
+         *
+         * @param out the stream receiving the result; it is neither flushed nor closed
+         * @throws IOException if writing to the stream fails
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            encode();
+            try {
+                buffer.writeTo(out);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Copies the UTF-8 bytes of the result into a buffer, advancing its position.
+         *
+         * @param target the buffer receiving the result
+         * @return the number of bytes written
+         * @throws java.nio.BufferOverflowException if the buffer has less room than the result, in which case
+         *                                          it is left unchanged; the result is written off all the same
+         *                                          and must not be used again
+         */
+        public int writeTo(ByteBuffer target) {
+            encode();
+            try {
+                int size = buffer.size();
+                target.put(buffer.array(), 0, size);
+                return size;
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Appends the characters of the result, for example to a StringBuilder or a Writer.
+         *
+         * @param target the receiver of the result
+         * @throws IOException if the target fails
+         */
+        public void appendTo(Appendable target) throws IOException {
+            encode();
+            try {
+                decode();
+                target.append(chars);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Writes the result to a new String. Like the other writes, this returns the result to the pool.
+         *
+         * @return the result
+         */
+        public String writeToString() {
+            encode();
+            try {
+                return new String(buffer.array(), 0, buffer.size(), StandardCharsets.UTF_8);
+            } finally {
+                release();
+            }
+        }
+
+        private void encode() {
+            buffer.reset();
+            try {
+                resultWriter.write(record);
+                resultWriter.flush();
+            } catch (IOException | RuntimeException e) {
+                // A value failed to serialize and the generator is left inside the record: never reuse this result
+                pooled = true;
+                throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+            }
+        }
+
+        private void decode() {
+            // UTF-8 never has more chars than bytes
+            if (chars.capacity() < buffer.size()) {
+                chars = CharBuffer.allocate(Math.max(buffer.size(), chars.capacity() * 2));
+            }
+            chars.clear();
+            decoder.reset();
+            CoderResult result = decoder.decode(buffer.bytes(), chars, true);
+            if (result.isError()) {
+                throw new IllegalStateException("Invalid UTF-8 output: " + result);
+            }
+            decoder.flush(chars);
+            chars.flip();
+        }
+
+        /**
+         * Drops buffers a large record has grown beyond what the pool keeps between records,
+         * and returns the result to the pool.
+         */
+        private void release() {
+            buffer.trim();
+            if (chars.capacity() > MAX_RETAINED_BYTES) {
+                chars = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+            }
+            pool.release(this);
+        }
+    }
+
+    /**
+     * Byte array stream whose array is read in place instead of being copied.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private ByteBuffer wrapped;
+
+        Buffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        /**
+         * @return a view of the written bytes, created again only when the array has grown
+         */
+        ByteBuffer bytes() {
+            if (wrapped == null || wrapped.array() != buf) {
+                wrapped = ByteBuffer.wrap(buf);
+            }
+            return wrapped.clear().limit(count);
+        }
+
+        void trim() {
+            if (buf.length > MAX_RETAINED_BYTES) {
+                buf = new byte[INITIAL_BUFFER_SIZE];
+                wrapped = null;
+            }
+        }
+    }
+}
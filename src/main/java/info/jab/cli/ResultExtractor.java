@@ -0,0 +1,329 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Extracts the JSON of every &lt;result&gt;{json}&lt;/result&gt; block found in a stream and writes
+ * it as JSON Lines, one value per line. This is the reverse of the --build and --batch output.
+ *
+ * The input is read through a fixed size buffer. Candidate markers are located with a
+ * {@link ByteScanner} and matched byte by byte, so they are found even when they span two reads. Text outside the blocks is ignored and only the body of
+ * the current block is kept in memory. Inside a block, JSON strings are tracked, so a &lt;/result&gt; written
+ * in a string value does not end the block. When that string turns out to be unterminated, because a line break,
+ * the end of the input or an invalid body follows, the block ends at its first &lt;/result&gt; instead and the
+ * bytes after it are scanned again, so one malformed block cannot swallow the next ones. Each body is validated with a streaming {@link JsonParser};
+ * malformed, oversized and unterminated blocks are reported with the line where they start and
+ * do not stop the extraction.
+ */
+public class ResultExtractor {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    static final int DEFAULT_MAX_BLOCK_SIZE = 64 << 20;
+
+    private static final byte[] START = "<result>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "</result>".getBytes(StandardCharsets.US_ASCII);
+
+    private final JsonFactory jsonFactory;
+    private final int bufferSize;
+    private final int maxBlockSize;
+    private final ByteScanner scanner;
+
+    public ResultExtractor() {
+        this(new JsonFactory());
+    }
+
+    public ResultExtractor(JsonFactory jsonFactory) {
+        this(jsonFactory, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BLOCK_SIZE);
+    }
+
+    ResultExtractor(JsonFactory jsonFactory, int bufferSize, int maxBlockSize) {
+        this(jsonFactory, bufferSize, maxBlockSize, ByteScanner.INSTANCE);
+    }
+
+    ResultExtractor(JsonFactory jsonFactory, int bufferSize, int maxBlockSize, ByteScanner scanner) {
+        this.jsonFactory = jsonFactory;
+        this.bufferSize = bufferSize;
+        this.maxBlockSize = maxBlockSize;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Reads the stream to the end and writes the JSON of each valid block followed by '\n'.
+     * Line breaks inside a block, which valid JSON only allows as insignificant whitespace,
+     * are dropped so every value stays on one line. The output is flushed but not closed.
+     *
+     * @param in the stream to scan, typically a model transcript or a log
+     * @param out the destination of the JSON Lines
+     * @param err the stream where malformed blocks are reported
+     * @return the number of malformed blocks
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public int extract(InputStream in, OutputStream out, PrintStream err) throws IOException {
+        Scan scan = new Scan(out, err);
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            scan.scan(buffer, 0, read);
+        }
+        scan.finish();
+        out.flush();
+        return scan.malformed;
+    }
+
+    /**
+     * State of one extraction, carried from one read to the next.
+     */
+    private final class Scan {
+
+        private final Block block = new Block();
+        private final OutputStream out;
+        private final PrintStream err;
+        private int malformed;
+        private long line = 1;
+        private boolean inBlock;
+        private boolean inString;
+        private boolean escaped;
+        // Progress of the marker being matched outside strings, and of an end marker inside a string
+        private int matched;
+        private int stringMatched;
+        // Length of the body up to the first </result> met inside a string, or -1
+        private int firstEnd = -1;
+
+        Scan(OutputStream out, PrintStream err) {
+            this.out = out;
+            this.err = err;
+        }
+
+        void scan(byte[] buffer, int from, int to) throws IOException {
+            int segmentStart = from;
+            for (int i = from; i < to; i++) {
+                if (matched == 0 && stringMatched == 0 && !escaped) {
+                    // Both markers start with '<': skip to the next one, or to the next byte that opens or
+                    // closes a string inside a block, counting the lines on the way
+                    int next = !inBlock ? scanner.indexOf(buffer, i, to, (byte) '<')
+                        : inString ? nextInString(buffer, i, to)
+                        : scanner.indexOfAny(buffer, i, to, (byte) '<', (byte) '"');
+                    int skipped = next < 0 ? to : next;
+                    line += scanner.count(buffer, i, skipped, (byte) '\n');
+                    i = skipped;
+                    if (i == to) {
+                        break;
+                    }
+                }
+                byte b = buffer[i];
+                if (b == '\n') {
+                    line++;
+                }
+                if (!inBlock) {
+                    matched = match(START, matched, b);
+                    if (matched == START.length) {
+                        inBlock = true;
+                        inString = false;
+                        escaped = false;
+                        matched = 0;
+                        stringMatched = 0;
+                        firstEnd = -1;
+                        block.reset(line);
+                        segmentStart = i + 1;
+                    }
+                } else if (inString) {
+                    if (b == '\n' && firstEnd >= 0) {
+                        // A JSON string cannot hold a line break, so the block ended at the first </result>
+                        block.append(buffer, segmentStart, i + 1 - segmentStart);
+                        endAtFirstMarker();
+                        segmentStart = i + 1;
+                        continue;
+                    }
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                    if (firstEnd < 0) {
+                        stringMatched = match(END, stringMatched, b);
+                        if (stringMatched == END.length) {
+                            stringMatched = 0;
+                            firstEnd = block.oversized ? -1 : block.length + i + 1 - segmentStart;
+                        }
+                    }
+                } else {
+                    inString = b == '"';
+                    stringMatched = 0;
+                    matched = match(END, matched, b);
+                    if (matched == END.length) {
+                        matched = 0;
+                        block.append(buffer, segmentStart, i + 1 - segmentStart);
+                        segmentStart = i + 1;
+                        if (firstEnd >= 0 && !block.oversized && validate(block.length - END.length) != null) {
+                            // Likely an unterminated string: the block ended at the first </result>
+                            endAtFirstMarker();
+                        } else {
+                            block.removeEnd();
+                            endBlock();
+                        }
+                    }
+                }
+            }
+            if (inBlock) {
+                block.append(buffer, segmentStart, to - segmentStart);
+            }
+        }
+
+        /**
+         * Skips the bytes of a string that cannot close it, escape a character or start an end marker.
+         * The line breaks it stops at, never valid in a JSON string, limit how far an unterminated string reaches.
+         */
+        private int nextInString(byte[] buffer, int from, int to) {
+            int quoteOrEscape = scanner.indexOfAny(buffer, from, to, (byte) '"', (byte) '\\');
+            int limit = quoteOrEscape < 0 ? to : quoteOrEscape;
+            int markerOrLine = scanner.indexOfAny(buffer, from, limit, (byte) '<', (byte) '\n');
+            return markerOrLine >= 0 ? markerOrLine : quoteOrEscape;
+        }
+
+        /**
+         * Ends the current block at the first &lt;/result&gt; met inside a string, which then was not a string,
+         * and scans the bytes that followed it again.
+         */
+        private void endAtFirstMarker() throws IOException {
+            byte[] rest = Arrays.copyOfRange(block.bytes, firstEnd, block.length);
+            line -= scanner.count(rest, 0, rest.length, (byte) '\n');
+            block.length = firstEnd;
+            block.removeEnd();
+            endBlock();
+            scan(rest, 0, rest.length);
+        }
+
+        private void endBlock() throws IOException {
+            inBlock = false;
+            inString = false;
+            escaped = false;
+            matched = 0;
+            stringMatched = 0;
+            String error = block.oversized ? "larger than " + maxBlockSize + " bytes" : validate(block.length);
+            if (error != null) {
+                err.println("Malformed block at line " + block.line + ": " + error);
+                malformed++;
+                return;
+            }
+            block.writeTo(out);
+            out.write('\n');
+        }
+
+        void finish() throws IOException {
+            while (inBlock && firstEnd >= 0 && !block.oversized) {
+                endAtFirstMarker();
+            }
+            if (inBlock) {
+                err.println("Malformed block at line " + block.line + ": missing </result>");
+                malformed++;
+            }
+        }
+
+        /**
+         * Validates the first bytes of the body with a streaming parser, without building the value.
+         *
+         * @return the error, or null if the bytes hold exactly one JSON value
+         */
+        private String validate(int length) throws IOException {
+            try (JsonParser parser = jsonFactory.createParser(block.bytes, 0, length)) {
+                if (parser.nextToken() == null) {
+                    return "no JSON value";
+                }
+                parser.skipChildren();
+                if (parser.nextToken() != null) {
+                    return "unexpected content after the JSON value";
+                }
+                return null;
+            } catch (JsonProcessingException e) {
+                return e.getOriginalMessage();
+            }
+        }
+    }
+
+    /**
+     * Advances a marker match by one byte. The first marker byte does not occur again in the
+     * marker, so a mismatch can only restart the match at that byte.
+     */
+    private static int match(byte[] marker, int matched, byte b) {
+        if (b == marker[matched]) {
+            return matched + 1;
+        }
+        return b == marker[0] ? 1 : 0;
+    }
+
+    /**
+     * Body of the block being extracted, reused from one block to the next.
+     */
+    private final class Block {
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private long line;
+        private boolean oversized;
+
+        void reset(long line) {
+            this.length = 0;
+            this.line = line;
+            this.oversized = false;
+        }
+
+        void append(byte[] source, int offset, int count) {
+            if (oversized) {
+                return;
+            }
+            // Room for the end marker, which is appended before being removed
+            if (length + count > maxBlockSize + END.length) {
+                oversized = true;
+                return;
+            }
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + count, Math.min(bytes.length * 2, maxBlockSize + END.length)));
+            }
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        void removeEnd() {
+            if (!oversized) {
+                length -= END.length;
+            }
+        }
+
+        /**
+         * Writes the body without surrounding whitespace and without line breaks.
+         */
+        void writeTo(OutputStream out) throws IOException {
+            int start = 0;
+            int end = length;
+            while (start < end && isWhitespace(bytes[start])) {
+                start++;
+            }
+            while (end > start && isWhitespace(bytes[end - 1])) {
+                end--;
+            }
+            int segmentStart = start;
+            for (int i = start; i < end; i++) {
+                if (bytes[i] == '\n' || bytes[i] == '\r') {
+                    out.write(bytes, segmentStart, i - segmentStart);
+                    segmentStart = i + 1;
+                }
+            }
+            out.write(bytes, segmentStart, end - segmentStart);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
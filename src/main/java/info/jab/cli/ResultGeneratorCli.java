@@ -1,11 +1,28 @@
 package info.jab.cli;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 
 @Command(
     name = "result-json-map",
@@ -16,51 +33,269 @@ public class ResultGeneratorCli implements Callable<Integer> {
 
     @Option(
         names = {"-d", "--delimiter"},
-        description = "Delimiter used to separate field and value (default: '=' or ':')",
-        defaultValue = "="
+        description = "Delimiter used to separate field and value, use \\t for a tab (default: '=' or ':')"
     )
     private String delimiter;
 
     @Option(
         names = {"-b", "--build"},
-        description = "Build JSON structure from alternating field names and values or delimited pairs (field=value or field:value)",
+        description = "Build JSON structure from alternating field names and values or delimited pairs (field=value or field:value); "
+            + "field=@path, field=@- and field=@base64:path stream a value from a file or stdin",
         arity = "1..*"
     )
     private String[] buildPairs;
 
+    @Option(
+        names = {"--batch"},
+        description = "Read records line by line from stdin or --input and write one result per record"
+    )
+    private boolean batch;
+
+    @Option(
+        names = {"-i", "--input"},
+        description = "Input file used by --batch, --extract and --decode modes (default: stdin)"
+    )
+    private Path input;
+
+    @Option(
+        names = {"--parallel"},
+        paramLabel = "N",
+        arity = "0..1",
+        fallbackValue = "0",
+        description = "Convert --batch records on N worker threads keeping the input order (default: available processors)"
+    )
+    private Integer parallel;
+
+    @Option(
+        names = {"--mmap"},
+        description = "Read the --input file of --batch mode through memory-mapped windows, parsing ASCII lines in place"
+    )
+    private boolean mmap;
+
+    @Option(
+        names = {"--schema"},
+        paramLabel = "<file>",
+        description = "JSON file declaring the type of each field (string, int, long, double, boolean, raw-json) instead of inferring it"
+    )
+    private Path schemaFile;
+
+    @Option(
+        names = {"--unknown-fields"},
+        paramLabel = "<policy>",
+        defaultValue = "infer",
+        description = "How --schema handles undeclared fields: reject, pass (as string) or infer (default: ${DEFAULT-VALUE})"
+    )
+    private String unknownFields;
+
+    @Option(
+        names = {"--numbers"},
+        paramLabel = "<mode>",
+        defaultValue = "typed",
+        description = "How values following the JSON number grammar are converted: typed (Integer, Long or Double), "
+            + "lossless (written back digit for digit) or big (BigInteger or BigDecimal) (default: ${DEFAULT-VALUE})"
+    )
+    private String numbers;
+
+    @Option(
+        names = {"--validate"},
+        paramLabel = "<schema.json>",
+        description = "JSON Schema the records must satisfy; in --batch mode invalid records are reported and skipped"
+    )
+    private Path validateFile;
+
+    @Option(
+        names = {"--errors"},
+        paramLabel = "<file>",
+        description = "Report the invalid records of --batch mode to <file> as JSON Lines, with the offending input "
+            + "and its position, instead of to stderr"
+    )
+    private Path errorsFile;
+
+    @Option(
+        names = {"--max-errors"},
+        paramLabel = "N",
+        description = "Stop --batch mode at the Nth invalid record"
+    )
+    private Integer maxErrors;
+
+    @Option(
+        names = {"--format"},
+        paramLabel = "<format>",
+        defaultValue = "json",
+        description = "Output encoding: json (<result> lines), or cbor and smile (length-prefixed binary records) (default: ${DEFAULT-VALUE})"
+    )
+    private String format;
+
+    @Option(
+        names = {"--decode"},
+        description = "Read length-prefixed --format cbor or smile records from stdin or --input and write them as <result> lines"
+    )
+    private boolean decode;
+
+    @Option(
+        names = {"--cache-stats"},
+        description = "Print the key cache hits and misses of --batch mode to stderr"
+    )
+    private boolean cacheStats;
+
+    @Option(
+        names = {"--stats"},
+        paramLabel = "<file>",
+        arity = "0..1",
+        fallbackValue = "-",
+        description = "Time every phase of --batch mode and report the statistics to stderr, or as JSON to <file>"
+    )
+    private String statsFile;
+
+    @Option(
+        names = {"--stream"},
+        description = "Read the pairs of one large record from stdin or --input, one per line, and write each field "
+            + "as soon as it is parsed instead of holding the record in memory"
+    )
+    private boolean stream;
+
+    @Option(
+        names = {"-0", "--null"},
+        description = "Pairs of --stream mode end with a NUL character instead of a newline"
+    )
+    private boolean nullSeparated;
+
+    @Option(
+        names = {"--duplicates"},
+        paramLabel = "<policy>",
+        defaultValue = "error",
+        description = "How --stream handles a repeated field: error, first or last (needs --input) (default: ${DEFAULT-VALUE})"
+    )
+    private String duplicates;
+
+    @Option(
+        names = {"--extract"},
+        description = "Extract the JSON of every <result> block from stdin or --input and write it as JSON Lines"
+    )
+    private boolean extract;
+
+    @Option(
+        names = {"--serve"},
+        paramLabel = "<socket-path>",
+        description = "Run as a resident server answering conversions over a Unix domain socket"
+    )
+    private Path serveSocket;
+
+    @Option(
+        names = {"--http"},
+        paramLabel = "<port>",
+        description = "Run as an HTTP server answering conversions on the given port (0 picks a free one)"
+    )
+    private Integer httpPort;
+
+    @Option(
+        names = {"--client"},
+        paramLabel = "<socket-path>",
+        description = "Forward the --build arguments to a server started with --serve and print its reply"
+    )
+    private Path clientSocket;
+
+    private final KeyCache keyCache;
     private final PairParser pairParser;
     private final JsonConverter jsonConverter;
 
     public ResultGeneratorCli() {
-        this.pairParser = new PairParser();
-        this.jsonConverter = new JsonConverter();
+        // Parser and converter share the cache, so parsed keys are written from their encoded form
+        this.keyCache = new KeyCache();
+        this.pairParser = new PairParser(new ValueParser(), keyCache);
+        this.jsonConverter = new JsonConverter(new ObjectMapper(), keyCache);
     }
 
     // Constructor for testing purposes
     ResultGeneratorCli(PairParser pairParser, JsonConverter jsonConverter) {
+        this.keyCache = new KeyCache();
         this.pairParser = pairParser;
         this.jsonConverter = jsonConverter;
     }
 
     @Override
     public Integer call() {
+        CliInvocationEvent event = new CliInvocationEvent();
+        event.begin();
+        int exitCode = run();
+        if (event.shouldCommit()) {
+            event.mode = mode();
+            event.exitCode = exitCode;
+            event.failed = exitCode != 0;
+            event.commit();
+        }
+        return exitCode;
+    }
+
+    private int run() {
         try {
+            Schema schema = schemaFile != null
+                ? Schema.load(schemaFile, UnknownFieldPolicy.of(unknownFields))
+                : null;
+            NumberMode numberMode = NumberMode.of(numbers);
+            JsonSchemaValidator validator = validateFile != null ? JsonSchemaValidator.load(validateFile) : null;
+            PairParser parser = schema != null || numberMode != NumberMode.TYPED
+                ? new PairParser(new ValueParser(numberMode), keyCache, schema)
+                : pairParser;
+            OutputFormat outputFormat = OutputFormat.of(format);
+            JsonConverter converter = outputFormat == OutputFormat.JSON
+                ? jsonConverter
+                : new JsonConverter(new ObjectMapper(), keyCache, outputFormat);
+
+            if ((serveSocket != null || httpPort != null) && outputFormat != OutputFormat.JSON) {
+                throw new IllegalArgumentException("--format " + format + " cannot be combined with --serve or --http, "
+                    + "which answer with <result> text");
+            }
+
+            if (serveSocket != null) {
+                return runServer(parser, converter);
+            }
+
+            if (httpPort != null) {
+                return runHttpServer(parser, converter);
+            }
+
+            if (extract) {
+                return runExtract();
+            }
+
+            if (decode) {
+                return runDecode(outputFormat);
+            }
+
+            if (stream) {
+                return runStream(parser, converter, outputFormat, validator);
+            }
+
+            if (batch || parallel != null || mmap) {
+                return runBatch(parser, schema, numberMode, validator, converter, outputFormat);
+            }
+
             if (buildPairs == null || buildPairs.length == 0) {
                 CommandLine.usage(this, System.out);
                 return 0;
             }
 
-            Map<String, Object> fieldValueMap;
-            // Check if arguments contain = or : delimiters
-            // If yes, parse as field=value pairs; otherwise, parse as alternating pairs
-            if (pairParser.containsDelimiters(buildPairs)) {
-                fieldValueMap = pairParser.parseDelimitedPairs(buildPairs);
-            } else {
-                fieldValueMap = pairParser.parseAlternatingPairs(buildPairs);
+            if (clientSocket != null) {
+                return runClient(numberMode, validator, outputFormat);
+            }
+
+            // If arguments contain the delimiter (= or : by default), parse as field=value pairs;
+            // otherwise, parse as alternating pairs
+            PairTokenizer pairTokenizer = PairTokenizer.of(delimiter);
+            Map<String, Object> fieldValueMap = parser.parsePairs(buildPairs, pairTokenizer);
+            // Values such as field=@path are only read while writing, straight from the file
+            FileValue.resolveReferences(fieldValueMap, buildPairs, pairTokenizer);
+            if (validator != null) {
+                List<String> violations = validator.validate(fieldValueMap);
+                if (!violations.isEmpty()) {
+                    throw new IllegalArgumentException(String.join("; ", violations));
+                }
             }
 
-            String result = jsonConverter.convertAndWrap(fieldValueMap);
-            System.out.println(result);
+            try (RecordWriter resultWriter = converter.newRecordWriter(System.out)) {
+                resultWriter.writeLine(fieldValueMap);
+            }
             return 0;
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
@@ -68,6 +303,268 @@ public class ResultGeneratorCli implements Callable<Integer> {
         }
     }
 
+    /**
+     * Names the mode selected by the options, with the same precedence as {@link #run()}.
+     */
+    private String mode() {
+        if (serveSocket != null) {
+            return "serve";
+        }
+        if (httpPort != null) {
+            return "http";
+        }
+        if (extract) {
+            return "extract";
+        }
+        if (decode) {
+            return "decode";
+        }
+        if (stream) {
+            return "stream";
+        }
+        if (mmap) {
+            return "mmap";
+        }
+        if (parallel != null) {
+            return "parallel";
+        }
+        if (batch) {
+            return "batch";
+        }
+        if (buildPairs == null || buildPairs.length == 0) {
+            return "usage";
+        }
+        return clientSocket != null ? "client" : "build";
+    }
+
+    private int runStream(PairParser parser, JsonConverter converter, OutputFormat outputFormat,
+            JsonSchemaValidator validator) throws IOException {
+        if (outputFormat != OutputFormat.JSON) {
+            throw new IllegalArgumentException("--stream writes JSON only, binary records start with their length");
+        }
+        if (validator != null) {
+            throw new IllegalArgumentException("--validate cannot be combined with --stream, which never holds the whole record");
+        }
+        PairStreamer streamer = new PairStreamer(parser, converter, PairTokenizer.of(delimiter),
+            DuplicateKeyPolicy.of(duplicates), nullSeparated ? '\0' : '\n');
+        if (input != null) {
+            streamer.stream(input, System.out);
+        } else {
+            // stdin is not ours to close
+            streamer.stream(new InputStreamReader(System.in, StandardCharsets.UTF_8), System.out);
+        }
+        return 0;
+    }
+
+    private int runBatch(PairParser parser, Schema schema, NumberMode numberMode, JsonSchemaValidator validator,
+            JsonConverter converter, OutputFormat outputFormat) throws IOException {
+        PairTokenizer pairTokenizer = PairTokenizer.of(delimiter);
+        if (maxErrors != null && maxErrors < 1) {
+            throw new IllegalArgumentException("--max-errors must be at least 1, was " + maxErrors);
+        }
+        int errorLimit = maxErrors != null ? maxErrors : Integer.MAX_VALUE;
+        RunStats stats = statsFile != null ? new RunStats() : null;
+        OutputStream out = stats != null ? new MeteredOutputStream(System.out, stats) : System.out;
+        if (errorsFile == null) {
+            return runBatch(parser, schema, numberMode, validator, converter, outputFormat, pairTokenizer, stats, out,
+                System.err, ErrorFormat.TEXT, errorLimit);
+        }
+        try (PrintStream err = new PrintStream(
+                new BufferedOutputStream(Files.newOutputStream(errorsFile), 1 << 16), false, StandardCharsets.UTF_8)) {
+            int exitCode = runBatch(parser, schema, numberMode, validator, converter, outputFormat, pairTokenizer, stats,
+                out, err, ErrorFormat.JSON_LINES, errorLimit);
+            if (err.checkError()) {
+                throw new IOException("Cannot write the errors to " + errorsFile);
+            }
+            return exitCode;
+        }
+    }
+
+    private int runBatch(PairParser parser, Schema schema, NumberMode numberMode, JsonSchemaValidator validator,
+            JsonConverter converter, OutputFormat outputFormat, PairTokenizer pairTokenizer, RunStats stats,
+            OutputStream out, PrintStream err, ErrorFormat errorFormat, int errorLimit) throws IOException {
+        if (mmap) {
+            if (input == null) {
+                throw new IllegalArgumentException("--mmap requires --input");
+            }
+            if (parallel != null) {
+                throw new IllegalArgumentException("--mmap cannot be combined with --parallel");
+            }
+            if (stats != null) {
+                // Mapped pages are read while tokenizing, so there is no separate read phase
+                stats.addBytesIn(Files.size(input));
+            }
+            BatchProcessor batchProcessor = new BatchProcessor(parser, converter, pairTokenizer, stats, validator, errorFormat);
+            int errors = new MappedBatchProcessor(batchProcessor).process(input, out, err, errorLimit);
+            return finishBatch(errors, errorLimit, stats);
+        }
+
+        BufferedReader reader = stats != null ? meteredReader(stats)
+            : input != null ? Files.newBufferedReader(input, StandardCharsets.UTF_8)
+            : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        try {
+            int errors;
+            if (parallel != null) {
+                int threads = parallel > 0 ? parallel : Runtime.getRuntime().availableProcessors();
+                // Each worker owns its parser and converter, the thread-safe key cache is shared
+                ParallelBatchProcessor parallelProcessor = new ParallelBatchProcessor(threads,
+                    () -> new BatchProcessor(
+                        new PairParser(new ValueParser(numberMode), keyCache, schema),
+                        new JsonConverter(new ObjectMapper(), keyCache, outputFormat),
+                        pairTokenizer,
+                        stats,
+                        validator,
+                        errorFormat));
+                errors = parallelProcessor.process(reader, out, err, errorLimit);
+            } else {
+                BatchProcessor batchProcessor = new BatchProcessor(parser, converter, pairTokenizer, stats, validator, errorFormat);
+                errors = batchProcessor.process(reader, out, err, errorLimit);
+            }
+            return finishBatch(errors, errorLimit, stats);
+        } finally {
+            // stdin is not ours to close
+            if (input != null) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the batch input like the plain readers do, counting the bytes and timing the reads.
+     */
+    private BufferedReader meteredReader(RunStats stats) throws IOException {
+        if (input != null) {
+            // Same strict decoding as Files.newBufferedReader
+            return new BufferedReader(new InputStreamReader(
+                new MeteredInputStream(Files.newInputStream(input), stats), StandardCharsets.UTF_8.newDecoder()));
+        }
+        return new BufferedReader(new InputStreamReader(new MeteredInputStream(System.in, stats), StandardCharsets.UTF_8));
+    }
+
+    private int finishBatch(int errors, int errorLimit, RunStats stats) throws IOException {
+        if (errors >= errorLimit) {
+            System.err.println("Error: stopped at " + errors + " invalid records (--max-errors)");
+        }
+        if (errors > 0 && errorsFile != null) {
+            System.err.println(errors + " invalid records reported to " + errorsFile);
+        }
+        if (stats != null) {
+            stats.stop();
+            if (statsFile.equals("-")) {
+                stats.printReport(System.err);
+            } else {
+                stats.writeJson(Path.of(statsFile));
+            }
+        }
+        if (cacheStats) {
+            long hits = keyCache.hits();
+            long lookups = hits + keyCache.misses();
+            System.err.printf(Locale.ROOT, "Key cache: %d hits, %d misses (%.1f%% hit rate)%n",
+                hits, keyCache.misses(), lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+        }
+        return errors == 0 ? 0 : 1;
+    }
+
+    private int runExtract() throws IOException {
+        InputStream in = input != null ? Files.newInputStream(input) : System.in;
+        try {
+            OutputStream out = new BufferedOutputStream(System.out, 1 << 16);
+            int malformed = new ResultExtractor().extract(in, out, System.err);
+            if (malformed > 0) {
+                System.err.println("Skipped " + malformed + " malformed block(s)");
+                return 1;
+            }
+            return 0;
+        } finally {
+            // stdin is not ours to close
+            if (input != null) {
+                in.close();
+            }
+        }
+    }
+
+    private int runDecode(OutputFormat outputFormat) throws IOException {
+        if (outputFormat == OutputFormat.JSON) {
+            throw new IllegalArgumentException("--decode requires --format cbor or --format smile");
+        }
+        InputStream in = input != null ? Files.newInputStream(input) : System.in;
+        try (ResultWriter resultWriter = jsonConverter.newResultWriter(System.out)) {
+            int errors = new BinaryRecordReader(outputFormat.newMapper())
+                .decode(new BufferedInputStream(in, 1 << 16), resultWriter, System.err);
+            return errors == 0 ? 0 : 1;
+        } finally {
+            // stdin is not ours to close
+            if (input != null) {
+                in.close();
+            }
+        }
+    }
+
+    private int runServer(PairParser parser, JsonConverter converter) throws IOException {
+        DaemonServer server = new DaemonServer(serveSocket, parser, converter);
+        Thread shutdownHook = new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // Exiting anyway
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        System.err.println("Listening on " + serveSocket);
+        server.serve();
+        return 0;
+    }
+
+    private int runHttpServer(PairParser parser, JsonConverter converter) throws IOException, InterruptedException {
+        // Small responses would otherwise wait for delayed ACKs, see HttpResultServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpResultServer server = new HttpResultServer(
+            new InetSocketAddress(httpPort), parser, converter, PairTokenizer.of(delimiter));
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread shutdownHook = new Thread(() -> {
+            server.close();
+            stopped.countDown();
+        });
+        server.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        System.err.println("Listening on http://localhost:" + server.port() + "/");
+        stopped.await();
+        return 0;
+    }
+
+    private int runClient(NumberMode numberMode, JsonSchemaValidator validator, OutputFormat outputFormat)
+            throws IOException {
+        // Only the pairs and the delimiter are sent: the server converts them with the options it was started with
+        List<String> options = new ArrayList<>();
+        if (schemaFile != null) {
+            options.add("--schema");
+        }
+        if (numberMode != NumberMode.TYPED) {
+            options.add("--numbers");
+        }
+        if (validator != null) {
+            options.add("--validate");
+        }
+        if (outputFormat != OutputFormat.JSON) {
+            options.add("--format");
+        }
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("--client cannot be combined with " + String.join(", ", options)
+                + ", the server converts with the options it was started with");
+        }
+        try (DaemonClient client = new DaemonClient(clientSocket)) {
+            DaemonClient.Response response = client.send(delimiter, buildPairs);
+            if (response.exitCode() != 0) {
+                System.err.println("Error: " + response.output());
+                return response.exitCode();
+            }
+            System.out.println(response.output());
+            return 0;
+        }
+    }
+
     public static void main(String[] args) {
         int exitCode = new CommandLine(new ResultGeneratorCli()).execute(args);
         System.exit(exitCode);
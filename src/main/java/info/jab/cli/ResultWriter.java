@@ -0,0 +1,272 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes &lt;result&gt;{json}&lt;/result&gt; records straight to an output stream.
+ * One Jackson generator, whose byte buffer comes from Jackson's buffer recycler, is reused
+ * for every record, so output bytes are produced once without intermediate Strings.
+ * Field names are copied from the pre-encoded bytes of a {@link KeyCache} instead of being escaped
+ * and encoded again for every record.
+ * Instances are not thread-safe. Closing the writer flushes it but leaves the stream open.
+ */
+public class ResultWriter implements RecordWriter {
+
+    private static final SerializableString RESULT_START = new SerializedString("<result>");
+    private static final SerializableString RESULT_END = new SerializedString("</result>");
+    private static final SerializableString LINE_SEPARATOR = new SerializedString(System.lineSeparator());
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
+    private final CountingOutputStream counter;
+    private final JsonGenerator generator;
+    private final ObjectWriter objectWriter;
+    private final KeyCache keyCache;
+    private final boolean writeEntries;
+
+    ResultWriter(ObjectMapper objectMapper, KeyCache keyCache, OutputStream out) throws IOException {
+        this.counter = new CountingOutputStream(out);
+        this.generator = objectMapper.getFactory().createGenerator(counter, JsonEncoding.UTF8);
+        // Records are concatenated as-is, the stream belongs to the caller
+        this.generator.setRootValueSeparator(null);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // A result interrupted by an error is left unfinished rather than closed as if it were complete
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        // Same output as the String based conversion: characters outside the BMP are not escaped
+        this.generator.enable(JsonGenerator.Feature.COMBINE_UNICODE_SURROGATES_IN_UTF8);
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.keyCache = keyCache;
+        this.writeEntries = writesDefaultMaps(objectMapper);
+    }
+
+    /**
+     * Entries are written directly only when the mapper would write maps exactly the same way: any setting that
+     * can change the output, such as sorting, inclusion rules, indentation, escaping, modules or mix-ins,
+     * sends every record through the mapper instead.
+     */
+    private static boolean writesDefaultMaps(ObjectMapper objectMapper) {
+        SerializationConfig config = objectMapper.getSerializationConfig();
+        SerializationConfig defaults = DEFAULT_MAPPER.getSerializationConfig();
+        return config.getSerializationFeatures() == defaults.getSerializationFeatures()
+            && config.getDefaultPropertyInclusion(Map.class).equals(defaults.getDefaultPropertyInclusion(Map.class))
+            && objectMapper.getFactory().getGeneratorFeatures() == DEFAULT_MAPPER.getFactory().getGeneratorFeatures()
+            && objectMapper.getFactory().getCharacterEscapes() == null
+            && objectMapper.getRegisteredModuleIds().isEmpty()
+            && objectMapper.mixInCount() == 0;
+    }
+
+    /**
+     * Writes a map as JSON wrapped in result tags.
+     *
+     * @param map the map to write
+     * @throws IOException if writing fails
+     */
+    public void write(Map<String, Object> map) throws IOException {
+        if (SerializeEvent.enabled()) {
+            writeRecorded(map.size(), () -> writeResult(map));
+        } else {
+            writeResult(map);
+        }
+    }
+
+    /**
+     * Writes a compact record as JSON wrapped in result tags, without boxing its values.
+     *
+     * @param record the record to write
+     * @throws IOException if writing fails
+     */
+    public void write(CompactRecord record) throws IOException {
+        if (SerializeEvent.enabled()) {
+            writeRecorded(record.size(), () -> writeResult(record));
+        } else {
+            writeResult(record);
+        }
+    }
+
+    private void writeResult(Map<String, Object> map) throws IOException {
+        generator.writeRaw(RESULT_START);
+        if (writeEntries) {
+            writeEntries(map);
+        } else {
+            objectWriter.writeValue(generator, map);
+        }
+        generator.writeRaw(RESULT_END);
+    }
+
+    private void writeResult(CompactRecord record) throws IOException {
+        generator.writeRaw(RESULT_START);
+        if (writeEntries) {
+            generator.writeStartObject(record, record.size());
+            for (int i = 0; i < record.size(); i++) {
+                generator.writeFieldName(keyCache.encoded(record.key(i)));
+                record.writeValue(i, generator, objectWriter);
+            }
+            generator.writeEndObject();
+        } else {
+            objectWriter.writeValue(generator, record.toMap());
+        }
+        generator.writeRaw(RESULT_END);
+    }
+
+    private void writeRecorded(int fields, Write write) throws IOException {
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
+        long start = position();
+        boolean failed = true;
+        try {
+            write.run();
+            failed = false;
+        } finally {
+            if (event.shouldCommit()) {
+                event.format = "json";
+                event.fields = fields;
+                event.size = position() - start;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Bytes produced so far, whether already written to the stream or still buffered by the generator.
+     */
+    private long position() {
+        return counter.count + Math.max(generator.getOutputBuffered(), 0);
+    }
+
+    /**
+     * Writes a map as JSON wrapped in result tags followed by a line separator.
+     *
+     * @param map the map to write
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeLine(Map<String, Object> map) throws IOException {
+        write(map);
+        generator.writeRaw(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes a compact record as JSON wrapped in result tags followed by a line separator.
+     *
+     * @param record the record to write
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeLine(CompactRecord record) throws IOException {
+        write(record);
+        generator.writeRaw(LINE_SEPARATOR);
+    }
+
+    /**
+     * Starts a result whose fields are then written one at a time with {@link #writeField}, for records
+     * too large to be held in memory.
+     *
+     * @throws IOException if writing fails
+     */
+    void writeStart() throws IOException {
+        generator.writeRaw(RESULT_START);
+        generator.writeStartObject();
+    }
+
+    /**
+     * Writes field i of a record into the result started by {@link #writeStart()}.
+     *
+     * @throws IOException if writing fails
+     */
+    void writeField(CompactRecord record, int i) throws IOException {
+        // Records this large rarely repeat their keys, encoding them in place spares churning the key cache
+        generator.writeFieldName(record.key(i));
+        record.writeValue(i, generator, objectWriter);
+    }
+
+    /**
+     * Ends the result started by {@link #writeStart()}, followed by a line separator.
+     *
+     * @throws IOException if writing fails
+     */
+    void writeEnd() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw(RESULT_END);
+        generator.writeRaw(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the map as a JSON object, with the same output as the mapper's map serializer.
+     * Strings, numbers and booleans are written directly, other values go through the mapper.
+     */
+    private void writeEntries(Map<String, Object> map) throws IOException {
+        generator.writeStartObject(map, map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            generator.writeFieldName(keyCache.encoded(entry.getKey()));
+            Object value = entry.getValue();
+            if (value instanceof String string) {
+                generator.writeString(string);
+            } else if (value instanceof Integer integer) {
+                generator.writeNumber(integer);
+            } else if (value instanceof Long longValue) {
+                generator.writeNumber(longValue);
+            } else if (value instanceof Double doubleValue) {
+                generator.writeNumber(doubleValue);
+            } else if (value instanceof Boolean booleanValue) {
+                generator.writeBoolean(booleanValue);
+            } else {
+                objectWriter.writeValue(generator, value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+    /**
+     * Write of one result, timed by {@link SerializeEvent}.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    /**
+     * Counts the bytes the generator writes to the stream, for the size of {@link SerializeEvent}.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of a batch run, collected when --stats is given.
+ * Every {@link Phase} has a {@link LatencyHistogram} of nanosecond durations; records, errors,
+ * bytes read and written and bytes allocated by the converting threads are counted with adders.
+ * Instances are thread-safe, so the workers of a parallel run share one.
+ */
+public class RunStats {
+
+    /**
+     * Steps of a conversion, timed separately.
+     */
+    public enum Phase {
+        /** Reading the input, per read call. */
+        READ("read"),
+        /** Splitting a line into arguments, per record. */
+        TOKENIZE("tokenize"),
+        /** Locating delimiters and typing values, per record. */
+        PARSE("parse"),
+        /** Checking the record against the --validate schema, per record. */
+        VALIDATE("validate"),
+        /** Writing the record through Jackson, without the output I/O it triggers, per record. */
+        SERIALIZE("serialize"),
+        /** Writing to the output, per write call. */
+        WRITE("write");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final LongAdder records = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final long startNanos;
+    private volatile long elapsedNanos = -1;
+
+    /**
+     * Creates the statistics of a run starting now.
+     */
+    public RunStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the duration of one occurrence of a phase.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a converted record.
+     *
+     * @param allocated bytes allocated while converting it, or a negative value if unknown
+     */
+    public void addRecord(long allocated) {
+        records.increment();
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+        }
+    }
+
+    /**
+     * Counts an invalid record.
+     *
+     * @param allocated bytes allocated while parsing it, or a negative value if unknown
+     */
+    public void addError(long allocated) {
+        errors.increment();
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+        }
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Marks the end of the run. Later calls keep the first end time.
+     */
+    public void stop() {
+        if (elapsedNanos < 0) {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public long records() {
+        return records.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return nanoseconds from creation to {@link #stop()}, or to now if the run is not stopped
+     */
+    public long elapsedNanos() {
+        long elapsed = elapsedNanos;
+        return elapsed >= 0 ? elapsed : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return converted and invalid records per second of elapsed time
+     */
+    public double recordsPerSecond() {
+        long elapsed = elapsedNanos();
+        return elapsed == 0 ? 0.0 : (records() + errors()) * 1e9 / elapsed;
+    }
+
+    /**
+     * @return mean bytes allocated per converted or invalid record, or -1 if the JVM cannot measure it
+     */
+    public double allocatedBytesPerRecord() {
+        long total = records() + errors();
+        if (THREADS == null || total == 0) {
+            return -1;
+        }
+        return (double) allocatedBytes.sum() / total;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, the base of the per-record allocation.
+     *
+     * @return the allocated bytes, or -1 if the JVM cannot measure them
+     */
+    public static long threadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Prints a human readable report.
+     *
+     * @param out the destination, typically stderr
+     */
+    public void printReport(PrintStream out) {
+        out.printf(Locale.ROOT, "Records: %d converted, %d errors in %.3f s (%.0f records/s)%n",
+            records(), errors(), elapsedNanos() / 1e9, recordsPerSecond());
+        out.printf(Locale.ROOT, "Bytes: %d in, %d out%n", bytesIn(), bytesOut());
+        double allocated = allocatedBytesPerRecord();
+        if (allocated >= 0) {
+            out.printf(Locale.ROOT, "Allocated: %.0f bytes per record%n", allocated);
+        }
+        out.printf(Locale.ROOT, "%-10s %10s %12s %10s %10s %10s %10s %12s%n",
+            "Phase", "count", "total ms", "mean ns", "p50 ns", "p90 ns", "p99 ns", "max ns");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histogram(phase);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-10s %10d %12.3f %10.0f %10d %10d %10d %12d%n",
+                phase.label(), histogram.count(), histogram.sum() / 1e6, histogram.mean(),
+                histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.max());
+        }
+    }
+
+    /**
+     * Writes the report as a JSON object.
+     *
+     * @param file the destination file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(Path file) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toMap());
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("records", records());
+        report.put("errors", errors());
+        report.put("elapsedNanos", elapsedNanos());
+        report.put("recordsPerSecond", recordsPerSecond());
+        report.put("bytesIn", bytesIn());
+        report.put("bytesOut", bytesOut());
+        double allocated = allocatedBytesPerRecord();
+        report.put("allocatedBytesPerRecord", allocated >= 0 ? allocated : null);
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histogram(phase);
+            Map<String, Object> timings = new LinkedHashMap<>();
+            timings.put("count", histogram.count());
+            timings.put("totalNanos", histogram.sum());
+            timings.put("meanNanos", histogram.mean());
+            timings.put("p50Nanos", histogram.percentile(50));
+            timings.put("p90Nanos", histogram.percentile(90));
+            timings.put("p99Nanos", histogram.percentile(99));
+            timings.put("p999Nanos", histogram.percentile(99.9));
+            timings.put("maxNanos", histogram.max());
+            phases.put(phase.label(), timings);
+        }
+        report.put("phases", phases);
+        return report;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        } catch (UnsupportedOperationException e) {
+            // Not measurable on this JVM
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package info.jab.cli;
+
+/**
+ * {@link ByteScanner} comparing one byte at a time.
+ */
+final class ScalarByteScanner implements ByteScanner {
+
+    @Override
+    public int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOfAny(byte[] bytes, int from, int to, byte b1, byte b2) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == b1 || b == b2) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOfNonAscii(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int count(byte[] bytes, int from, int to, byte b) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Declared type of each field, so values are converted without type inference.
+ * A schema file is a JSON object mapping field names to type names, for example
+ * {@code {"zip": "string", "age": "int", "tags": "raw-json"}}.
+ * Fields missing from the schema are handled according to an {@link UnknownFieldPolicy}.
+ * Instances are immutable and can be shared between threads.
+ */
+public class Schema {
+
+    private final Map<String, FieldType> fieldTypes;
+    private final UnknownFieldPolicy unknownFieldPolicy;
+
+    /**
+     * Creates a schema.
+     *
+     * @param fieldTypes the type of each known field
+     * @param unknownFieldPolicy what to do with other fields
+     */
+    public Schema(Map<String, FieldType> fieldTypes, UnknownFieldPolicy unknownFieldPolicy) {
+        this.fieldTypes = new HashMap<>(fieldTypes);
+        this.unknownFieldPolicy = unknownFieldPolicy;
+    }
+
+    /**
+     * Reads a schema file.
+     *
+     * @param file JSON object mapping field names to type names
+     * @param unknownFieldPolicy what to do with fields missing from the file
+     * @return the schema
+     * @throws IOException if the file cannot be read or is not a JSON object of strings
+     * @throws IllegalArgumentException if a type name is unknown
+     */
+    public static Schema load(Path file, UnknownFieldPolicy unknownFieldPolicy) throws IOException {
+        Map<String, String> declared = new ObjectMapper().readValue(file.toFile(), new TypeReference<LinkedHashMap<String, String>>() { });
+        Map<String, FieldType> fieldTypes = new HashMap<>();
+        for (Map.Entry<String, String> entry : declared.entrySet()) {
+            try {
+                fieldTypes.put(entry.getKey(), FieldType.of(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid schema field '" + entry.getKey() + "': " + e.getMessage());
+            }
+        }
+        return new Schema(fieldTypes, unknownFieldPolicy);
+    }
+
+    /**
+     * Converts the value of a field held in the region [start, end) of a character sequence.
+     *
+     * @param field the field name
+     * @param text the sequence holding the value
+     * @param start index of the first character of the value
+     * @param end index after the last character of the value
+     * @param valueParser the parser inferring the type of unknown fields with the infer policy
+     * @return the converted value
+     * @throws RecordException if the value does not match the declared type,
+     *         or the field is unknown and the policy is reject
+     */
+    public Object parseValue(String field, CharSequence text, int start, int end, ValueParser valueParser) {
+        FieldType type = fieldTypes.get(field);
+        if (type != null) {
+            return type.parseValue(field, text, start, end);
+        }
+        return switch (unknownFieldPolicy) {
+            case REJECT -> throw RecordException.unknownField(field);
+            case PASS -> FieldType.STRING.parseValue(field, text, start, end);
+            case INFER -> valueParser.parseValue(text, start, end);
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package info.jab.cli;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the serialization of one record by {@link JsonConverter} and its record writers.
+ * Disabled by default; enable it with the result-json-map.jfc settings.
+ */
+@Name("info.jab.cli.Serialize")
+@Label("Serialize")
+@Category({"Result JSON Map", "Serialization"})
+@Description("Serialization of one record")
+@Enabled(false)
+@StackTrace(false)
+final class SerializeEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SerializeEvent.class);
+
+    @Label("Format")
+    @Description("Output encoding: json, cbor or smile")
+    String format;
+
+    @Label("Fields")
+    @Description("Number of fields of the record")
+    int fields;
+
+    @Label("Size")
+    @Description("Encoded size of the record, including the result tags or the length prefix")
+    @DataAmount(DataAmount.BYTES)
+    long size;
+
+    @Label("Failed")
+    @Description("Whether serialization threw an exception")
+    boolean failed;
+
+    /**
+     * Checks whether a recording has enabled the event, so callers on hot paths only create it then.
+     * Unlike {@link #begin()}, this does not read the clock.
+     */
+    static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+}
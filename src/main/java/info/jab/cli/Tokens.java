@@ -0,0 +1,38 @@
+package info.jab.cli;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of [start, end) ranges locating the arguments of a line,
+ * so arguments can be parsed in place without creating a String per argument.
+ */
+final class Tokens {
+
+    private int[] bounds = new int[32];
+    private int count;
+
+    void clear() {
+        count = 0;
+    }
+
+    void add(int start, int end) {
+        if (2 * count + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[2 * count] = start;
+        bounds[2 * count + 1] = end;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int start(int index) {
+        return bounds[2 * index];
+    }
+
+    int end(int index) {
+        return bounds[2 * index + 1];
+    }
+}
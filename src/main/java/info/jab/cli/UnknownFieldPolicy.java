@@ -0,0 +1,43 @@
+package info.jab.cli;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * What a {@link Schema} does with a field it does not declare.
+ */
+public enum UnknownFieldPolicy {
+
+    /**
+     * The record is invalid.
+     */
+    REJECT,
+
+    /**
+     * The value is kept as a string, without type inference.
+     */
+    PASS,
+
+    /**
+     * The type of the value is inferred by {@link ValueParser}, as without a schema.
+     */
+    INFER;
+
+    /**
+     * Finds a policy by its case-insensitive name.
+     *
+     * @param name reject, pass or infer
+     * @return the policy
+     * @throws IllegalArgumentException if there is no such policy
+     */
+    public static UnknownFieldPolicy of(String name) {
+        for (UnknownFieldPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field policy '" + name + "'. Expected one of: "
+            + Arrays.stream(values()).map(policy -> policy.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,42 @@
+package info.jab.cli;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the typing of one value by {@link ValueParser}.
+ * Emitted for every value, so it is the most frequent event: disabled by default,
+ * and best recorded with a threshold.
+ */
+@Name("info.jab.cli.ValueParse")
+@Label("Value Parse")
+@Category({"Result JSON Map", "Parsing"})
+@Description("Inference of the type of one value")
+@Enabled(false)
+@StackTrace(false)
+final class ValueParseEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(ValueParseEvent.class);
+
+    @Label("Length")
+    @Description("Characters of the value")
+    int length;
+
+    @Label("Type")
+    @Description("Java type of the parsed value")
+    String type;
+
+    /**
+     * Checks whether a recording has enabled the event, so callers on hot paths only create it then.
+     * Unlike {@link #begin()}, this does not read the clock.
+     */
+    static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+}
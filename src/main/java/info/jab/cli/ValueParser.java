@@ -1,11 +1,32 @@
 package info.jab.cli;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 /**
  * Utility class for parsing string values to appropriate Java types.
  * Supports quoted strings, integers, longs, doubles, and plain strings.
+ * Values are classified in a single pass over their characters without
+ * using exceptions as control flow. A {@link NumberMode} other than the default
+ * keeps values following the JSON number grammar exact instead.
  */
 public class ValueParser {
 
+    private final NumberMode numberMode;
+
+    public ValueParser() {
+        this(NumberMode.TYPED);
+    }
+
+    /**
+     * Creates a parser converting JSON numbers according to a mode.
+     *
+     * @param numberMode what values following the JSON number grammar become
+     */
+    public ValueParser(NumberMode numberMode) {
+        this.numberMode = numberMode;
+    }
+
     /**
      * Parses a string value to the appropriate Java type.
      * - Quoted strings (single or double quotes) are returned as unquoted strings
@@ -16,35 +37,216 @@ public class ValueParser {
      * @return the parsed value as Object (String, Integer, Long, or Double)
      */
     public Object parseValue(String value) {
-        // Check if value is quoted (starts and ends with quotes)
-        if ((value.startsWith("\"") && value.endsWith("\"")) ||
-            (value.startsWith("'") && value.endsWith("'"))) {
-            // Remove quotes and treat as string
-            return value.substring(1, value.length() - 1);
-        }
-
-        // Try to parse as integer
-        try {
-            // Check if it's a valid integer (no decimal point)
-            if (!value.contains(".") && !value.contains("e") && !value.contains("E")) {
-                long longValue = Long.parseLong(value);
-                // If it fits in int range, return Integer, otherwise Long
-                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
-                    return (int) longValue;
+        return parseValue(value, 0, value.length());
+    }
+
+    /**
+     * Parses the region [start, end) of a character sequence with the same rules as {@link #parseValue(String)}.
+     * A String is only allocated when the value is a string or a floating point number.
+     *
+     * An integer value is an optional sign followed by decimal digits, as accepted by
+     * {@link Long#parseLong(String)}. It becomes an Integer when it fits in int, otherwise a Long.
+     * Any other value accepted by {@link Double#parseDouble(String)} becomes a Double.
+     *
+     * @param value the character sequence containing the value
+     * @param start index of the first character of the value
+     * @param end index after the last character of the value
+     * @return the parsed value as Object (String, Integer, Long, or Double)
+     */
+    Object parseValue(CharSequence value, int start, int end) {
+        if (!ValueParseEvent.enabled()) {
+            return inferValue(value, start, end, null, null);
+        }
+        ValueParseEvent event = new ValueParseEvent();
+        event.begin();
+        Object parsed = inferValue(value, start, end, null, null);
+        if (event.shouldCommit()) {
+            event.length = end - start;
+            event.type = parsed.getClass().getSimpleName();
+            event.commit();
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses the region [start, end) of a character sequence like {@link #parseValue(CharSequence, int, int)}
+     * and adds the value to a record, with integers and doubles in its primitive slots instead of boxed.
+     *
+     * @param value the character sequence containing the value
+     * @param start index of the first character of the value
+     * @param end index after the last character of the value
+     * @param key the field receiving the value
+     * @param record the record receiving the field
+     */
+    void parseValue(CharSequence value, int start, int end, String key, CompactRecord record) {
+        if (!ValueParseEvent.enabled()) {
+            inferValue(value, start, end, key, record);
+            return;
+        }
+        ValueParseEvent event = new ValueParseEvent();
+        event.begin();
+        inferValue(value, start, end, key, record);
+        if (event.shouldCommit()) {
+            event.length = end - start;
+            event.type = record.value(record.indexOf(key)).getClass().getSimpleName();
+            event.commit();
+        }
+    }
+
+    /**
+     * Infers the type of a value and returns it, or adds it to the record under the key and returns null.
+     */
+    private Object inferValue(CharSequence value, int start, int end, String key, CompactRecord record) {
+        int length = end - start;
+        if (length == 0) {
+            return string("", key, record);
+        }
+
+        // Quoted values are strings
+        char first = value.charAt(start);
+        if (length >= 2 && (first == '"' || first == '\'') && value.charAt(end - 1) == first) {
+            return string(text(value, start + 1, end - 1), key, record);
+        }
+
+        if (numberMode != NumberMode.TYPED) {
+            int kind = RawNumber.scan(value, start, end);
+            if (kind != RawNumber.NOT_A_NUMBER) {
+                return exactNumber(text(value, start, end), kind, key, record);
+            }
+        }
+
+        // Double.parseDouble ignores surrounding whitespace but Long.parseLong does not
+        if (first <= ' ' || value.charAt(end - 1) <= ' ') {
+            int from = start;
+            int to = end;
+            while (from < to && value.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && value.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (from < to && isFloatingPoint(value, from, to)) {
+                return decimal(Double.parseDouble(text(value, start, end)), key, record);
+            }
+            return string(text(value, start, end), key, record);
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                return string(text(value, start, end), key, record);
+            }
+        }
+
+        // Accumulate negatively like Long.parseLong so Long.MIN_VALUE is representable
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        boolean overflow = false;
+        boolean asciiDigits = true;
+        int digitsStart = i;
+
+        while (i < end) {
+            char c = value.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c < 128) {
+                break;
+            } else {
+                // Long.parseLong accepts any Unicode decimal digit
+                digit = Character.digit(c, 10);
+                if (digit < 0) {
+                    break;
+                }
+                asciiDigits = false;
+            }
+            if (!overflow) {
+                if (result < multmin || result * 10 < limit + digit) {
+                    overflow = true;
+                } else {
+                    result = result * 10 - digit;
                 }
-                return longValue;
             }
-        } catch (NumberFormatException e) {
-            // Not an integer, continue to try double
+            i++;
+        }
+
+        int digits = i - digitsStart;
+        if (i == end && !overflow) {
+            return integer(negative ? result : -result, key, record);
+        }
+
+        // Double.parseDouble only accepts ASCII digits
+        if (!asciiDigits) {
+            return string(text(value, start, end), key, record);
+        }
+
+        boolean floatingPoint = digits == 0
+            ? isFloatingPoint(value, start, end)
+            : isFloatingPointTail(value, i, end, digits, digits == 1 && value.charAt(digitsStart) == '0');
+        if (floatingPoint) {
+            return decimal(Double.parseDouble(text(value, start, end)), key, record);
+        }
+        return string(text(value, start, end), key, record);
+    }
+
+    /**
+     * Returns a string value, or adds it to the record when there is one.
+     */
+    private static Object string(String parsed, String key, CompactRecord record) {
+        if (record == null) {
+            return parsed;
+        }
+        record.putString(key, parsed);
+        return null;
+    }
+
+    /**
+     * Returns an integer value as Integer when it fits in int range, otherwise as Long,
+     * or adds it to the record without boxing when there is one.
+     */
+    private static Object integer(long parsed, String key, CompactRecord record) {
+        boolean fitsInt = parsed >= Integer.MIN_VALUE && parsed <= Integer.MAX_VALUE;
+        if (record == null) {
+            return fitsInt ? (Object) (int) parsed : (Object) parsed;
+        }
+        if (fitsInt) {
+            record.putInt(key, (int) parsed);
+        } else {
+            record.putLong(key, parsed);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a JSON number as a RawNumber or a BigInteger or BigDecimal, depending on the mode,
+     * or adds it to the record when there is one.
+     */
+    private Object exactNumber(String number, int kind, String key, CompactRecord record) {
+        if (numberMode == NumberMode.LOSSLESS) {
+            if (record == null) {
+                return new RawNumber(number);
+            }
+            record.putNumberText(key, number);
+            return null;
+        }
+        Object exact = kind == RawNumber.INTEGER ? new BigInteger(number) : new BigDecimal(number);
+        if (record == null) {
+            return exact;
         }
+        record.put(key, exact);
+        return null;
+    }
 
-        // Try to parse as double
-        try {
-            return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
-            // Not a number, treat as string
-            return value;
+    private static Object decimal(double parsed, String key, CompactRecord record) {
+        if (record == null) {
+            return parsed;
         }
+        record.putDouble(key, parsed);
+        return null;
     }
 
     /**
@@ -54,10 +256,157 @@ public class ValueParser {
      * @return the string without surrounding quotes
      */
     public String removeQuotes(String str) {
-        if ((str.startsWith("\"") && str.endsWith("\"")) ||
-            (str.startsWith("'") && str.endsWith("'"))) {
+        if (str.length() >= 2 &&
+            ((str.startsWith("\"") && str.endsWith("\"")) ||
+             (str.startsWith("'") && str.endsWith("'")))) {
             return str.substring(1, str.length() - 1);
         }
         return str;
     }
+
+    /**
+     * Materializes the region [start, end) of a character sequence as a String.
+     */
+    static String text(CharSequence value, int start, int end) {
+        if (value instanceof String str) {
+            if (start == 0 && end == str.length()) {
+                return str;
+            }
+            return str.substring(start, end);
+        }
+        if (value instanceof AsciiByteSequence bytes) {
+            return bytes.toString(start, end);
+        }
+        return value.subSequence(start, end).toString();
+    }
+
+    /**
+     * Checks the region [from, to) against the grammar accepted by {@link Double#parseDouble(String)}:
+     * optional sign followed by NaN, Infinity, a decimal or a hexadecimal floating point literal.
+     */
+    private static boolean isFloatingPoint(CharSequence value, int from, int to) {
+        int i = from;
+        char c = value.charAt(i);
+        if (c == '+' || c == '-') {
+            i++;
+            if (i == to) {
+                return false;
+            }
+            c = value.charAt(i);
+        }
+        if (c == 'N') {
+            return to - i == 3 && regionEquals(value, i, "NaN");
+        }
+        if (c == 'I') {
+            return to - i == 8 && regionEquals(value, i, "Infinity");
+        }
+
+        int digitsStart = i;
+        while (i < to && isDigit(value.charAt(i))) {
+            i++;
+        }
+        int digits = i - digitsStart;
+        return isFloatingPointTail(value, i, to, digits, digits == 1 && value.charAt(digitsStart) == '0');
+    }
+
+    /**
+     * Continues the floating point grammar after the integer digits of the significand.
+     *
+     * @param i index of the first character after the integer digits
+     * @param digits number of integer digits already consumed
+     * @param hexPrefix whether the integer digits are a single '0', which may start a hexadecimal literal
+     */
+    private static boolean isFloatingPointTail(CharSequence value, int i, int to, int digits, boolean hexPrefix) {
+        if (i < to && hexPrefix && (value.charAt(i) == 'x' || value.charAt(i) == 'X')) {
+            return isHexFloatingPoint(value, i + 1, to);
+        }
+
+        if (i < to && value.charAt(i) == '.') {
+            i++;
+            while (i < to && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < to && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i = exponentEnd(value, i + 1, to);
+            if (i < 0) {
+                return false;
+            }
+        }
+
+        return isLiteralEnd(value, i, to);
+    }
+
+    /**
+     * Checks a hexadecimal significand and its mandatory binary exponent, starting after "0x".
+     */
+    private static boolean isHexFloatingPoint(CharSequence value, int i, int to) {
+        int digits = 0;
+        while (i < to && isHexDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < to && value.charAt(i) == '.') {
+            i++;
+            while (i < to && isHexDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0 || i == to || (value.charAt(i) != 'p' && value.charAt(i) != 'P')) {
+            return false;
+        }
+
+        i = exponentEnd(value, i + 1, to);
+        return i >= 0 && isLiteralEnd(value, i, to);
+    }
+
+    /**
+     * Consumes an optionally signed exponent starting at i.
+     *
+     * @return the index after the exponent, or -1 if it has no digits
+     */
+    private static int exponentEnd(CharSequence value, int i, int to) {
+        if (i < to && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        int digitsStart = i;
+        while (i < to && isDigit(value.charAt(i))) {
+            i++;
+        }
+        return i == digitsStart ? -1 : i;
+    }
+
+    /**
+     * Checks that nothing but an optional float type suffix (f, F, d or D) remains.
+     */
+    private static boolean isLiteralEnd(CharSequence value, int i, int to) {
+        if (i == to - 1) {
+            char c = value.charAt(i);
+            return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+        }
+        return i == to;
+    }
+
+    private static boolean regionEquals(CharSequence value, int start, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (value.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
 }
@@ -0,0 +1,72 @@
+package info.jab.cli;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ByteScanner} comparing 16 to 64 bytes at a time, depending on the widest vector
+ * the CPU supports. The tail shorter than a vector is compared one byte at a time.
+ * Only referenced through {@link ByteScanner#INSTANCE}, which loads it when the
+ * jdk.incubator.vector module is present.
+ */
+final class VectorByteScanner implements ByteScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private final ScalarByteScanner tail = new ScalarByteScanner();
+
+    VectorByteScanner() {
+        if (SPECIES.length() < 16) {
+            throw new UnsupportedOperationException("Vectors of " + SPECIES.length() + " bytes are not worth it");
+        }
+    }
+
+    @Override
+    public int indexOf(byte[] bytes, int from, int to, byte b) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            VectorMask<Byte> found = ByteVector.fromArray(SPECIES, bytes, i).eq(b);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        return tail.indexOf(bytes, i, to, b);
+    }
+
+    @Override
+    public int indexOfAny(byte[] bytes, int from, int to, byte b1, byte b2) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> found = vector.eq(b1).or(vector.eq(b2));
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        return tail.indexOfAny(bytes, i, to, b1, b2);
+    }
+
+    @Override
+    public int indexOfNonAscii(byte[] bytes, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            VectorMask<Byte> found = ByteVector.fromArray(SPECIES, bytes, i).compare(VectorOperators.LT, (byte) 0);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        return tail.indexOfNonAscii(bytes, i, to);
+    }
+
+    @Override
+    public int count(byte[] bytes, int from, int to, byte b) {
+        int count = 0;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            count += ByteVector.fromArray(SPECIES, bytes, i).eq(b).trueCount();
+        }
+        return count + tail.count(bytes, i, to, b);
+    }
+}
@@ -0,0 +1,106 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRecordTest {
+
+    private static final List<String> LINES = List.of(
+        "name=John age=30 price=19.99",
+        "name Jane city 'São Paulo' big 9223372036854775807",
+        "name=John age=31 price=5");
+
+    private final BatchProcessor batchProcessor = new BatchProcessor();
+    private final JsonConverter jsonConverter = new JsonConverter();
+
+    private byte[] encode(OutputFormat format) throws Exception {
+        JsonConverter converter = new JsonConverter(new ObjectMapper(), new KeyCache(), format);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordWriter writer = converter.newRecordWriter(out)) {
+            for (String line : LINES) {
+                writer.writeLine(batchProcessor.parseLine(line));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private String decode(OutputFormat format, byte[] records, ByteArrayOutputStream err, int expectedErrors) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int errors = new BinaryRecordReader(format.newMapper()).decode(
+            new ByteArrayInputStream(records), jsonConverter.newResultWriter(out), new PrintStream(err, true, StandardCharsets.UTF_8));
+        assertEquals(expectedErrors, errors);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OutputFormat.class, names = {"CBOR", "SMILE"})
+    void testRoundTripMatchesJsonOutput(OutputFormat format) throws Exception {
+        String expected = new String(encode(OutputFormat.JSON), StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(expected, decode(format, encode(format), err, 0));
+        assertEquals(0, err.size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OutputFormat.class, names = {"CBOR", "SMILE"})
+    void testRecordsAreSplitByLengthPrefix(OutputFormat format) throws Exception {
+        ByteBuffer records = ByteBuffer.wrap(encode(format));
+        int count = 0;
+        while (records.hasRemaining()) {
+            int length = records.getInt();
+            byte[] record = new byte[length];
+            records.get(record);
+            // Every record is a complete document, readable on its own
+            Map<?, ?> map = format.newMapper().readValue(record, LinkedHashMap.class);
+            assertEquals(batchProcessor.parseLine(LINES.get(count)).keySet(), map.keySet());
+            count++;
+        }
+        assertEquals(LINES.size(), count);
+    }
+
+    @Test
+    void testMalformedRecordIsSkipped() throws Exception {
+        byte[] valid = encode(OutputFormat.CBOR);
+        byte[] garbage = {0, 0, 0, 2, (byte) 0xff, (byte) 0xff};
+        byte[] nullRecord = {0, 0, 0, 1, (byte) 0xf6};
+        ByteBuffer records = ByteBuffer.allocate(garbage.length + nullRecord.length + valid.length);
+        records.put(garbage).put(nullRecord).put(valid);
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String out = decode(OutputFormat.CBOR, records.array(), err, 2);
+
+        assertEquals(LINES.size(), out.split("\n").length);
+        String[] errors = err.toString(StandardCharsets.UTF_8).split("\\R");
+        assertEquals(2, errors.length);
+        assertTrue(errors[0].startsWith("Malformed record 1: "));
+        assertEquals("Malformed record 2: not a map", errors[1]);
+    }
+
+    @Test
+    void testTruncatedStreamFails() throws Exception {
+        byte[] records = encode(OutputFormat.SMILE);
+        BinaryRecordReader reader = new BinaryRecordReader(OutputFormat.SMILE.newMapper());
+        PrintStream err = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+
+        EOFException e = assertThrows(EOFException.class, () -> reader.decode(
+            new ByteArrayInputStream(Arrays.copyOf(records, records.length - 1)),
+            jsonConverter.newResultWriter(new ByteArrayOutputStream()), err));
+        assertEquals("Truncated record 3", e.getMessage());
+    }
+}
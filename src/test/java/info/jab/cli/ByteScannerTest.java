@@ -0,0 +1,74 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteScannerTest {
+
+    // The selected scanner is the vector one when the JVM has the module, and the scalar one again otherwise
+    private static final List<ByteScanner> SCANNERS = List.of(new ScalarByteScanner(), ByteScanner.INSTANCE);
+
+    @Test
+    void testVectorScannerIsSelectedWhenModuleIsPresent() {
+        boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        // Compared by name so the vector class is never linked when the module is missing
+        assertEquals(vectorModule, ByteScanner.INSTANCE.getClass().getName().equals("info.jab.cli.VectorByteScanner"));
+    }
+
+    @Test
+    void testScannersMatchReferenceOnEveryRegion() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[300];
+        for (int i = 0; i < bytes.length; i++) {
+            // Sparse matches so the vector loop and the tail both find and miss them
+            int r = random.nextInt(100);
+            bytes[i] = (byte) (r < 2 ? '\n' : r < 4 ? '\r' : r < 5 ? -61 : 'a' + r % 26);
+        }
+
+        for (ByteScanner scanner : SCANNERS) {
+            for (int from = 0; from < 70; from++) {
+                for (int to = from; to <= bytes.length; to += 7) {
+                    String region = scanner.getClass().getSimpleName() + " [" + from + ", " + to + ")";
+                    assertEquals(indexOf(bytes, from, to, (byte) '\n'), scanner.indexOf(bytes, from, to, (byte) '\n'), region);
+                    assertEquals(indexOf(bytes, from, to, (byte) 'z'), scanner.indexOf(bytes, from, to, (byte) 'z'), region);
+                    assertEquals(
+                        minIndex(indexOf(bytes, from, to, (byte) '\n'), indexOf(bytes, from, to, (byte) '\r')),
+                        scanner.indexOfAny(bytes, from, to, (byte) '\n', (byte) '\r'), region);
+                    assertEquals(indexOf(bytes, from, to, (byte) -61), scanner.indexOfNonAscii(bytes, from, to), region);
+                    assertEquals(count(bytes, from, to, (byte) '\n'), scanner.count(bytes, from, to, (byte) '\n'), region);
+                }
+            }
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int minIndex(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 ? a : Math.min(a, b);
+    }
+
+    private static int count(byte[] bytes, int from, int to, byte b) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
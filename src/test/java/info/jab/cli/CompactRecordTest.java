@@ -0,0 +1,147 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRecordTest {
+
+    @Test
+    void testTypedSlots() {
+        CompactRecord record = new CompactRecord();
+        record.putString("name", "John");
+        record.putInt("age", 30);
+        record.putLong("big", 3_000_000_000L);
+        record.putDouble("price", 19.99);
+        record.putBoolean("active", true);
+        record.put("tags", new RawValue("[1,2]"));
+
+        assertEquals(6, record.size());
+        assertEquals(List.of(CompactRecord.Type.STRING, CompactRecord.Type.INT, CompactRecord.Type.LONG,
+                CompactRecord.Type.DOUBLE, CompactRecord.Type.BOOLEAN, CompactRecord.Type.OBJECT),
+            Arrays.asList(record.type(0), record.type(1), record.type(2), record.type(3), record.type(4), record.type(5)));
+        assertEquals(30, record.longValue(1));
+        assertEquals(3_000_000_000L, record.longValue(2));
+        assertEquals(19.99, record.doubleValue(3));
+        assertTrue(record.booleanValue(4));
+        assertEquals(Map.of("name", "John", "age", 30, "big", 3_000_000_000L, "price", 19.99, "active", true,
+            "tags", new RawValue("[1,2]")), record.toMap());
+        assertThrows(IndexOutOfBoundsException.class, () -> record.value(6));
+    }
+
+    @Test
+    void testDuplicateKeysKeepFirstPosition() {
+        CompactRecord record = new CompactRecord();
+        record.putString("a", "first");
+        record.putInt("b", 1);
+        record.putDouble("a", 2.5);
+
+        assertEquals(2, record.size());
+        assertEquals("a", record.key(0));
+        assertEquals(2.5, record.value(0));
+        assertNull(record.objectValue(0));
+    }
+
+    @Test
+    void testLargeRecordsAreIndexed() {
+        CompactRecord record = new CompactRecord();
+        for (int round = 0; round < 3; round++) {
+            record.clear();
+            for (int i = 0; i < 1000; i++) {
+                record.putInt("field" + i, i);
+            }
+            for (int i = 0; i < 1000; i += 2) {
+                record.putString("field" + i, "even");
+            }
+
+            assertEquals(1000, record.size());
+            assertEquals(-1, record.indexOf("missing"));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, record.indexOf("field" + i));
+                assertEquals(i % 2 == 0 ? "even" : i, record.value(i));
+            }
+        }
+
+        record.clear();
+        record.putInt("small", 1);
+        assertEquals(0, record.indexOf("small"));
+        assertEquals(-1, record.indexOf("field0"));
+    }
+
+    @Test
+    void testBatchRecordMatchesMapParsing() throws Exception {
+        List<String> lines = List.of(
+            "name=John age=30 big=9223372036854775807 price=19.99 code=\"123\" empty=",
+            "name Jane city 'São Paulo' score -1e3",
+            "b=1 a=2 b=3");
+        BatchProcessor batchProcessor = new BatchProcessor();
+        PairParser pairParser = new PairParser();
+        CompactRecord record = new CompactRecord();
+        LineTokenizer lineTokenizer = new LineTokenizer(PairTokenizer.DEFAULT);
+        ObjectMapper mapper = new ObjectMapper();
+
+        for (String line : lines) {
+            Map<String, Object> map = batchProcessor.parseLine(line);
+            pairParser.parseTokens(line, lineTokenizer.tokenize(line, new Tokens()), PairTokenizer.DEFAULT, record);
+            assertEquals(map, record.toMap());
+
+            ByteArrayOutputStream fromRecord = new ByteArrayOutputStream();
+            new JsonConverter().convertAndWrap(record, fromRecord);
+            String json = unwrap(fromRecord.toString(StandardCharsets.UTF_8));
+            assertEquals(mapper.readTree(new JsonConverter().convertToJson(map)), mapper.readTree(json));
+        }
+    }
+
+    @Test
+    void testFieldsKeepInputOrder() throws IOException {
+        CompactRecord record = new CompactRecord();
+        new PairParser().parseTokens("zeta=1 alpha=two mid=3.5",
+            new LineTokenizer(PairTokenizer.DEFAULT).tokenize("zeta=1 alpha=two mid=3.5", new Tokens()),
+            PairTokenizer.DEFAULT, record);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonConverter().convertAndWrap(record, out);
+
+        assertEquals("<result>{\"zeta\":1,\"alpha\":\"two\",\"mid\":3.5}</result>", out.toString(StandardCharsets.UTF_8));
+        Iterator<String> names = new ObjectMapper().readTree(unwrap(out.toString(StandardCharsets.UTF_8))).fieldNames();
+        assertEquals(List.of("zeta", "alpha", "mid"), List.of(names.next(), names.next(), names.next()));
+    }
+
+    @Test
+    void testBinaryWriterKeepsTypes() throws IOException {
+        CompactRecord record = new CompactRecord();
+        record.putString("name", "John");
+        record.putLong("big", Long.MIN_VALUE);
+        record.putDouble("price", 19.99);
+        record.putBoolean("active", false);
+
+        for (OutputFormat format : new OutputFormat[] {OutputFormat.CBOR, OutputFormat.SMILE}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (RecordWriter writer = new JsonConverter(new ObjectMapper(), new KeyCache(), format).newRecordWriter(out)) {
+                writer.writeLine(record);
+            }
+            byte[] bytes = out.toByteArray();
+            JsonNode decoded = format.newMapper().readTree(Arrays.copyOfRange(bytes, 4, bytes.length));
+
+            assertEquals("John", decoded.get("name").asText());
+            assertEquals(Long.MIN_VALUE, decoded.get("big").longValue());
+            assertEquals(19.99, decoded.get("price").doubleValue());
+            assertFalse(decoded.get("active").booleanValue());
+        }
+    }
+
+    private static String unwrap(String result) {
+        return result.substring("<result>".length(), result.length() - "</result>".length());
+    }
+}
@@ -0,0 +1,178 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaemonServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path socketPath;
+    private DaemonServer server;
+    private Thread serverThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        socketPath = tempDir.resolve("result-json-map.sock");
+        server = new DaemonServer(socketPath);
+        serverThread = Thread.ofVirtual().start(() -> {
+            try {
+                server.serve();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!server.isListening() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(server.isListening());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        serverThread.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(Files.exists(socketPath));
+    }
+
+    @Test
+    void testDelimitedPairs() throws Exception {
+        try (DaemonClient client = new DaemonClient(socketPath)) {
+            DaemonClient.Response response = client.send(new String[] {"name=John", "age=30"});
+
+            assertEquals(0, response.exitCode());
+            assertTrue(response.output().startsWith("<result>"));
+            assertTrue(response.output().contains("\"name\":\"John\""));
+            assertTrue(response.output().contains("\"age\":30"));
+        }
+    }
+
+    @Test
+    void testSeveralRequestsOnOneConnection() throws Exception {
+        try (DaemonClient client = new DaemonClient(socketPath)) {
+            DaemonClient.Response first = client.send(new String[] {"field", "value"});
+            DaemonClient.Response error = client.send(new String[] {"=value"});
+            DaemonClient.Response last = client.send(new String[] {"count:3"});
+
+            assertEquals("<result>{\"field\":\"value\"}</result>", first.output());
+            assertEquals(1, error.exitCode());
+            assertTrue(error.output().contains("Field name cannot be empty"));
+            assertEquals("<result>{\"count\":3}</result>", last.output());
+        }
+    }
+
+    @Test
+    void testCustomDelimiter() throws Exception {
+        try (DaemonClient client = new DaemonClient(socketPath)) {
+            DaemonClient.Response response = client.send("|", new String[] {"url|http://host:80/?a=b"});
+
+            assertEquals(0, response.exitCode());
+            assertEquals("<result>{\"url\":\"http://host:80/?a=b\"}</result>", response.output());
+        }
+    }
+
+    @Test
+    void testConcurrentClients() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<DaemonClient.Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String[] args = {"id=" + i};
+                responses.add(executor.submit(() -> {
+                    try (DaemonClient client = new DaemonClient(socketPath)) {
+                        return client.send(args);
+                    }
+                }));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals("<result>{\"id\":" + i + "}</result>", responses.get(i).get().output());
+            }
+        }
+    }
+
+    @Test
+    void testOversizedRequestsCloseTheConnection() throws Exception {
+        for (int[] frame : new int[][] {{Integer.MAX_VALUE}, {2, 4, 0, DaemonProtocol.MAX_STRING_LENGTH}}) {
+            try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+                 DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel))) {
+                out.writeInt(0);
+                for (int value : frame) {
+                    out.writeInt(value);
+                }
+                out.flush();
+
+                assertEquals(-1, Channels.newInputStream(channel).read());
+            }
+        }
+
+        try (DaemonClient client = new DaemonClient(socketPath)) {
+            assertEquals(0, client.send(new String[] {"a=1"}).exitCode());
+        }
+    }
+
+    @Test
+    void testExistingPathsAreNotReplaced() throws Exception {
+        IOException running = assertThrows(IOException.class, () -> new DaemonServer(socketPath).serve());
+        assertTrue(running.getMessage().contains("another server is listening on it"));
+        try (DaemonClient client = new DaemonClient(socketPath)) {
+            assertEquals(0, client.send(new String[] {"a=1"}).exitCode());
+        }
+
+        Path file = Files.writeString(tempDir.resolve("records.txt"), "keep me");
+        IOException regular = assertThrows(IOException.class, () -> new DaemonServer(file).serve());
+        assertTrue(regular.getMessage().contains("is not a socket"));
+        assertEquals("keep me", Files.readString(file));
+    }
+
+    @Test
+    void testStaleSocketIsReplaced() throws Exception {
+        Path stale = tempDir.resolve("stale.sock");
+        try (ServerSocketChannel previous = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            previous.bind(UnixDomainSocketAddress.of(stale));
+        }
+        assertTrue(Files.exists(stale));
+
+        DaemonServer replacement = new DaemonServer(stale);
+        Thread thread = Thread.ofVirtual().start(() -> {
+            try {
+                replacement.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!replacement.isListening() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            try (DaemonClient client = new DaemonClient(stale)) {
+                assertEquals("<result>{\"a\":1}</result>", client.send(new String[] {"a=1"}).output());
+            }
+        } finally {
+            replacement.close();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
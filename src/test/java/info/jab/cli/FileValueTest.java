@@ -0,0 +1,139 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileValueTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Map<String, Object> resolve(String... pairs) {
+        Map<String, Object> map = new PairParser().parsePairs(pairs);
+        FileValue.resolveReferences(map, pairs, PairTokenizer.DEFAULT);
+        return map;
+    }
+
+    @Test
+    void testResolveReferences() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "hello");
+
+        Map<String, Object> map = resolve("text=@" + file, "binary=@base64:" + file, "input=@-", "handle=@@jane",
+            "email=jane@example.com", "age=30");
+
+        assertEquals(new FileValue(file, false), map.get("text"));
+        assertEquals(new FileValue(file, true), map.get("binary"));
+        assertEquals(new FileValue(null, false), map.get("input"));
+        assertEquals("@jane", map.get("handle"));
+        assertEquals("jane@example.com", map.get("email"));
+        assertEquals(30, map.get("age"));
+    }
+
+    @Test
+    void testQuotedValuesAreLiteral() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "hello");
+
+        Map<String, Object> map = resolve("text=\"@" + file + "\"", "single='@" + file + "'", "handle='@@jane'");
+
+        assertEquals("@" + file, map.get("text"));
+        assertEquals("@" + file, map.get("single"));
+        assertEquals("@@jane", map.get("handle"));
+    }
+
+    @Test
+    void testAlternatingValuesAreLiteral() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "hello");
+
+        Map<String, Object> map = resolve("user", "@jab", "text", "@" + file, "handle", "@@jane");
+
+        assertEquals("@jab", map.get("user"));
+        assertEquals("@" + file, map.get("text"));
+        assertEquals("@@jane", map.get("handle"));
+    }
+
+    @Test
+    void testLastPairOfAFieldDecides() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "hello");
+
+        assertEquals("@" + file, resolve("text=@" + file, "text='@" + file + "'").get("text"));
+        assertEquals(new FileValue(file, false), resolve("text='@" + file + "'", "text=@" + file).get("text"));
+    }
+
+    @Test
+    void testInvalidReferences() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> resolve("body=@" + tempDir.resolve("missing.txt")));
+        assertTrue(exception.getMessage().contains("referenced by field 'body'"));
+
+        assertThrows(IllegalArgumentException.class, () -> resolve("body=@" + tempDir));
+        assertThrows(IllegalArgumentException.class, () -> resolve("a=@-", "b=@base64:-"));
+    }
+
+    @Test
+    void testTextIsEscapedWhileStreaming() throws IOException {
+        // Larger than the generator buffers, with characters to escape across chunk boundaries
+        String text = "line \"quoted\" \\ tab\t São Paulo 東京 \u0001\n".repeat(100_000);
+        Path file = Files.writeString(tempDir.resolve("large.txt"), text);
+
+        JsonNode result = writeJson(Map.of("body", new FileValue(file, false), "name", "Jane"));
+
+        assertEquals(text, result.get("body").asText());
+        assertEquals("Jane", result.get("name").asText());
+    }
+
+    @Test
+    void testBase64Content() throws IOException {
+        byte[] content = new byte[200_001];
+        new Random(42).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("image.bin"), content);
+
+        JsonNode result = writeJson(Map.of("image", new FileValue(file, true)));
+
+        assertArrayEquals(content, result.get("image").binaryValue());
+    }
+
+    @Test
+    void testBinaryFormats() throws Exception {
+        byte[] content = new byte[5_000];
+        new Random(7).nextBytes(content);
+        Path binary = Files.write(tempDir.resolve("image.bin"), content);
+        Path text = Files.writeString(tempDir.resolve("notes.txt"), "São Paulo\n");
+        Map<String, Object> map = Map.of("image", new FileValue(binary, true), "notes", new FileValue(text, false));
+
+        for (OutputFormat format : new OutputFormat[] {OutputFormat.CBOR, OutputFormat.SMILE}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (RecordWriter writer = new JsonConverter(new ObjectMapper(), new KeyCache(), format).newRecordWriter(out)) {
+                writer.writeLine(map);
+            }
+            byte[] bytes = out.toByteArray();
+            JsonNode record = format.newMapper().readTree(Arrays.copyOfRange(bytes, 4, bytes.length));
+
+            assertTrue(record.get("image").isBinary(), format + " writes a native byte string");
+            assertArrayEquals(content, record.get("image").binaryValue());
+            assertEquals("São Paulo\n", record.get("notes").asText());
+        }
+    }
+
+    private static JsonNode writeJson(Map<String, Object> map) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultWriter writer = new JsonConverter().newResultWriter(out)) {
+            writer.write(map);
+        }
+        String result = out.toString(StandardCharsets.UTF_8);
+        assertTrue(result.startsWith("<result>") && result.endsWith("</result>"));
+        return new ObjectMapper().readTree(result.substring("<result>".length(), result.length() - "</result>".length()));
+    }
+}
@@ -0,0 +1,108 @@
+package info.jab.cli;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    private static final List<String> EVENTS = List.of(
+        "info.jab.cli.Invocation", "info.jab.cli.RecordParse", "info.jab.cli.ValueParse", "info.jab.cli.Serialize");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEventsAreDisabledByDefault() {
+        assertFalse(EventType.getEventType(RecordParseEvent.class).isEnabled());
+        assertFalse(EventType.getEventType(ValueParseEvent.class).isEnabled());
+        assertFalse(EventType.getEventType(SerializeEvent.class).isEnabled());
+        assertFalse(EventType.getEventType(CliInvocationEvent.class).isEnabled());
+    }
+
+    @Test
+    void testSettingsProfileEnablesEveryEvent() throws Exception {
+        try (Reader reader = new InputStreamReader(
+                 getClass().getResourceAsStream("result-json-map.jfc"), StandardCharsets.UTF_8)) {
+            Map<String, String> settings = Configuration.create(reader).getSettings();
+
+            for (String event : EVENTS) {
+                assertEquals("true", settings.get(event + "#enabled"), event);
+            }
+        }
+    }
+
+    @Test
+    void testRecordedEventsCarryCountsSizesAndErrors() throws Exception {
+        PairParser pairParser = new PairParser();
+        JsonConverter jsonConverter = new JsonConverter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Path file = tempDir.resolve("events.jfr");
+
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withoutThreshold();
+            }
+            recording.start();
+            jsonConverter.convertAndWrap(pairParser.parsePairs(new String[] {"name=John", "age=30"}), out);
+            assertThrows(RecordException.class, () -> pairParser.parsePairs(new String[] {"name=John", "=30"}));
+            new CommandLine(new ResultGeneratorCli()).execute();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        RecordedEvent parsed = only(events, "info.jab.cli.RecordParse", false);
+        assertEquals(2, parsed.getInt("arguments"));
+        assertEquals(2, parsed.getInt("fields"));
+        assertEquals(15, parsed.getLong("length"));
+        assertEquals(0, only(events, "info.jab.cli.RecordParse", true).getInt("fields"));
+
+        List<String> types = events.stream()
+            .filter(event -> event.getEventType().getName().equals("info.jab.cli.ValueParse"))
+            .map(event -> event.getString("type"))
+            .toList();
+        assertTrue(types.containsAll(List.of("String", "Integer")), types.toString());
+
+        RecordedEvent serialized = events.stream()
+            .filter(event -> event.getEventType().getName().equals("info.jab.cli.Serialize"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals("json", serialized.getString("format"));
+        assertEquals(2, serialized.getInt("fields"));
+        assertEquals(out.size(), serialized.getLong("size"));
+        assertFalse(serialized.getBoolean("failed"));
+
+        RecordedEvent invocation = events.stream()
+            .filter(event -> event.getEventType().getName().equals("info.jab.cli.Invocation"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals("usage", invocation.getString("mode"));
+        assertEquals(0, invocation.getInt("exitCode"));
+        assertFalse(invocation.getBoolean("failed"));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name, boolean failed) {
+        List<RecordedEvent> matching = events.stream()
+            .filter(event -> event.getEventType().getName().equals(name) && event.getBoolean("failed") == failed)
+            .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,146 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResultServerTest {
+
+    private HttpResultServer server;
+    private HttpClient client;
+    private URI base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new HttpResultServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT);
+        server.start();
+        base = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.port() + "/");
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    private HttpResponse<String> get(String query) throws Exception {
+        return client.send(HttpRequest.newBuilder(base.resolve("?" + query)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(base)
+            .header("Content-Type", contentType)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testQueryParameters() throws Exception {
+        HttpResponse<String> response = get("name=John%20Doe&age=30&url=http%3A%2F%2Fhost%2F%3Fa%3Db");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("<result>"));
+        assertTrue(response.body().endsWith("</result>\n"));
+        assertTrue(response.body().contains("\"name\":\"John Doe\""));
+        assertTrue(response.body().contains("\"age\":30"));
+        assertTrue(response.body().contains("\"url\":\"http://host/?a=b\""));
+    }
+
+    @Test
+    void testFormBody() throws Exception {
+        HttpResponse<String> response = post("application/x-www-form-urlencoded; charset=utf-8", "city=S%C3%A3o+Paulo");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("<result>{\"city\":\"São Paulo\"}</result>\n", response.body());
+    }
+
+    @Test
+    void testInvalidRequests() throws Exception {
+        HttpResponse<String> emptyField = get("=value");
+        HttpResponse<String> noPairs = client.send(HttpRequest.newBuilder(base).build(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> badEncoding = post("application/x-www-form-urlencoded", "name=%zz");
+        HttpResponse<String> delete = client.send(HttpRequest.newBuilder(base).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, emptyField.statusCode());
+        assertTrue(emptyField.body().startsWith("Error: Field name cannot be empty"));
+        assertEquals(400, noPairs.statusCode());
+        assertEquals("Error: No field-value pairs in the request\n", noPairs.body());
+        assertEquals(400, badEncoding.statusCode());
+        assertEquals("Error: Invalid parameter encoding: 'name=%zz'\n", badEncoding.body());
+        assertEquals(405, delete.statusCode());
+        assertEquals("GET, POST", delete.headers().firstValue("Allow").orElseThrow());
+    }
+
+    @Test
+    void testBatchBodyKeepsErrorsInPlace() throws Exception {
+        HttpResponse<String> response = post("text/plain", "id=1\n\n=bad\nid 2\nid=3 name\n");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(String.join("\n",
+            "<result>{\"id\":1}</result>",
+            "Error at line 3: Field name cannot be empty in pair: '=bad'",
+            "<result>{\"id\":2}</result>",
+            "Error at line 5: Invalid pair format: 'name'. Expected format: 'field=value' or 'field:value'",
+            ""), response.body());
+    }
+
+    @Test
+    void testKeepAliveServesSeveralRequestsOnOneConnection() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            for (int i = 0; i < 3; i++) {
+                out.write(("GET /?id=" + i + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertEquals("HTTP/1.1 200 OK", in.readLine());
+                int contentLength = -1;
+                String header;
+                while (!(header = in.readLine()).isEmpty()) {
+                    if (header.toLowerCase().startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                    }
+                }
+                String body = "<result>{\"id\":" + i + "}</result>";
+                assertEquals(body.length() + 1, contentLength);
+                assertEquals(body, in.readLine());
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentClients() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String query = "id=" + i;
+                responses.add(executor.submit(() -> get(query)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals("<result>{\"id\":" + i + "}</result>\n", responses.get(i).get().body());
+            }
+        }
+    }
+}
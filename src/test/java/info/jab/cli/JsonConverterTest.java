@@ -0,0 +1,112 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonConverterTest {
+
+    private final JsonConverter jsonConverter = new JsonConverter();
+
+    private static Map<String, Object> record(Object... fieldValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < fieldValues.length; i += 2) {
+            map.put((String) fieldValues[i], fieldValues[i + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    void testStreamedResultMatchesStringResult() throws Exception {
+        Map<String, Object> map = record("name", "John \"J\" Doe", "age", 30, "large", 3000000000L,
+            "price", 19.99, "text", "línea\ncon\tcontrol \u0001 y emoji 😀");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jsonConverter.convertAndWrap(map, out);
+
+        assertEquals(jsonConverter.convertAndWrap(map), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testResultWriterWritesOneLinePerRecord() throws Exception {
+        List<Map<String, Object>> records = List.of(record("a", 1), record(), record("b", "x", "c", 2.5));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ResultWriter resultWriter = jsonConverter.newResultWriter(out)) {
+            for (Map<String, Object> map : records) {
+                resultWriter.writeLine(map);
+            }
+        }
+
+        String expected = "<result>{\"a\":1}</result>" + System.lineSeparator()
+            + "<result>{}</result>" + System.lineSeparator()
+            + "<result>{\"b\":\"x\",\"c\":2.5}</result>" + System.lineSeparator();
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testResultWriterBuffersUntilFlush() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultWriter resultWriter = jsonConverter.newResultWriter(out);
+
+        resultWriter.write(record("a", 1));
+        assertEquals(0, out.size());
+
+        resultWriter.flush();
+        assertEquals("<result>{\"a\":1}</result>", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testStreamedResultMatchesStringResultForOtherValues() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("nan", Double.NaN);
+        map.put("infinity", Double.NEGATIVE_INFINITY);
+        map.put("null", null);
+        map.put("list", List.of(1, "two"));
+        map.put("min", Long.MIN_VALUE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jsonConverter.convertAndWrap(map, out);
+
+        assertEquals(jsonConverter.convertAndWrap(map), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOrderedMapperKeepsItsOrder() throws Exception {
+        JsonConverter ordered = new JsonConverter(
+            new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ordered.convertAndWrap(record("b", 1, "a", 2), out);
+
+        assertEquals("<result>{\"a\":2,\"b\":1}</result>", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testConfiguredMapperKeepsItsConfiguration() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        JsonConverter configured = new JsonConverter(mapper);
+        Map<String, Object> map = record("name", "John", "age", 30, "city", null);
+        String expected = "<result>" + mapper.writeValueAsString(map) + "</result>";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        configured.convertAndWrap(map, out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+
+        CompactRecord compact = new CompactRecord();
+        compact.putAll(map);
+        out.reset();
+        configured.convertAndWrap(compact, out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,180 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaValidatorTest {
+
+    private static final String SCHEMA = """
+        {
+          "$schema": "https://json-schema.org/draft/2020-12/schema",
+          "title": "user",
+          "type": "object",
+          "properties": {
+            "name": {"type": "string", "minLength": 2, "maxLength": 10, "pattern": "^[A-Z]"},
+            "age": {"type": "integer", "minimum": 0, "exclusiveMaximum": 150},
+            "price": {"type": "number", "multipleOf": 0.01},
+            "status": {"enum": ["active", "disabled", 0, null]},
+            "active": {"type": "boolean"},
+            "tags": {"type": ["array", "null"]}
+          },
+          "required": ["name", "age"],
+          "additionalProperties": false
+        }
+        """;
+
+    private static JsonSchemaValidator validator(String schema) throws Exception {
+        return JsonSchemaValidator.compile(new ObjectMapper().readTree(schema));
+    }
+
+    private static List<String> validate(JsonSchemaValidator validator, String line) {
+        CompactRecord record = new CompactRecord();
+        new PairParser().parseTokens(line, new LineTokenizer(PairTokenizer.DEFAULT).tokenize(line, new Tokens()),
+            PairTokenizer.DEFAULT, record);
+        return validator.validate(record);
+    }
+
+    @Test
+    void testValidRecord() throws Exception {
+        JsonSchemaValidator validator = validator(SCHEMA);
+
+        assertEquals(List.of(), validate(validator, "name=John age=30 price=19.99 status=active"));
+        assertEquals(List.of(), validate(validator, "name=Jo age=0 status=0"));
+
+        CompactRecord record = new CompactRecord();
+        record.putString("name", "Ann");
+        record.putInt("age", 7);
+        record.putBoolean("active", true);
+        record.put("tags", new RawValue("[1, 2]"));
+        record.put("status", null);
+        assertEquals(List.of(), validator.validate(record));
+        record.put("tags", null);
+        assertEquals(List.of(), validator.validate(record));
+    }
+
+    @Test
+    void testViolationsReportFieldPaths() throws Exception {
+        JsonSchemaValidator validator = validator(SCHEMA);
+
+        assertEquals(List.of(
+                "/name: must match the pattern '^[A-Z]'",
+                "/age: must be < 150",
+                "/price: must be a multiple of 0.01",
+                "/status: must be one of [\"active\",\"disabled\",0,null]",
+                "/active: must be boolean, was string",
+                "/tags: must be null or array, was string",
+                "/other: is not allowed"),
+            validate(validator, "name=john age=150 price=1.999 status=gone active=yes tags={} other=1"));
+        assertEquals(List.of("/age: must be integer, was string", "/name: is required"),
+            validate(validator, "age=old"));
+        assertEquals(List.of("/name: must have at least 2 characters", "/age: must be >= 0"),
+            validate(validator, "name=J age=-1"));
+    }
+
+    @Test
+    void testNumbersAreComparedExactly() throws Exception {
+        JsonSchemaValidator validator = validator("""
+            {"properties": {"n": {"type": "integer", "maximum": 9223372036854775808}}}
+            """);
+        CompactRecord record = new CompactRecord();
+
+        record.put("n", RawNumber.of("9223372036854775808"));
+        assertEquals(List.of(), validator.validate(record));
+        record.put("n", new BigInteger("9223372036854775809"));
+        assertEquals(List.of("/n: must be <= 9223372036854775808"), validator.validate(record));
+        record.put("n", new BigDecimal("1.0"));
+        assertEquals(List.of(), validator.validate(record));
+        record.put("n", 1.5);
+        assertEquals(List.of("/n: must be integer, was number"), validator.validate(record));
+        record.put("n", new RawValue("\"9\""));
+        assertEquals(List.of("/n: must be integer, was string"), validator.validate(record));
+    }
+
+    @Test
+    void testDoublesAreComparedAsParsed() throws Exception {
+        JsonSchemaValidator validator = validator("""
+            {"properties": {"x": {"exclusiveMaximum": 0.3, "multipleOf": 0.1}}}
+            """);
+
+        assertEquals(List.of(), validate(validator, "x=0.2"));
+        assertEquals(List.of(), validate(validator, "x=-12345.6"));
+        assertEquals(List.of("/x: must be < 0.3"), validate(validator, "x=0.3"));
+        assertEquals(List.of("/x: must be a multiple of 0.1"), validate(validator, "x=0.25"));
+        assertEquals(List.of("/x: must be a multiple of 0.1"), validate(validator, "x=1e-17"));
+    }
+
+    @Test
+    void testStructuredEnums() throws Exception {
+        JsonSchemaValidator validator = validator("""
+            {"properties": {"point": {"enum": [[0.5, 1], {"x": 2.5}]}}}
+            """);
+
+        CompactRecord record = new CompactRecord();
+        record.put("point", new RawValue("[0.5, 1]"));
+        assertEquals(List.of(), validator.validate(record));
+        record.put("point", new RawValue("{\"x\": 2.5}"));
+        assertEquals(List.of(), validator.validate(record));
+        record.put("point", new RawValue("[0.5, 2]"));
+        assertEquals(List.of("/point: must be one of [[0.5,1],{\"x\":2.5}]"), validator.validate(record));
+    }
+
+    @Test
+    void testRecordKeywords() throws Exception {
+        JsonSchemaValidator validator = validator("""
+            {"minProperties": 2, "maxProperties": 3, "additionalProperties": {"type": "integer"},
+             "properties": {"a/b": {"const": "x"}, "c~d": false}}
+            """);
+
+        assertEquals(List.of(), validate(validator, "a/b=x n=1"));
+        assertEquals(List.of("record has 1 properties, at least 2 required", "/a~1b: must be \"x\""),
+            validate(validator, "a/b=y"));
+        assertEquals(List.of("record has 4 properties, at most 3 allowed", "/c~0d: is not allowed",
+                "/n: must be integer, was string"),
+            validate(validator, "a/b=x c~d=1 n=one m=2"));
+    }
+
+    @Test
+    void testValidateMap() throws Exception {
+        JsonSchemaValidator validator = validator(SCHEMA);
+
+        assertEquals(List.of(), validator.validate(Map.of("name", "Ann", "age", 3)));
+        assertEquals(List.of("/age: is required"), validator.validate(Map.of("name", "Ann")));
+    }
+
+    @Test
+    void testUnsupportedSchemas() throws Exception {
+        IllegalArgumentException unsupported = assertThrows(IllegalArgumentException.class,
+            () -> validator("{\"properties\": {\"a\": {\"oneOf\": []}}}"));
+        assertEquals("Invalid JSON Schema at #/properties/a/oneOf: unsupported keyword", unsupported.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> validator("{\"type\": \"array\"}"));
+        assertThrows(IllegalArgumentException.class, () -> validator("{\"properties\": {\"a\": {\"type\": \"date\"}}}"));
+        assertThrows(IllegalArgumentException.class, () -> validator("{\"properties\": {\"a\": {\"pattern\": \"[\"}}}"));
+        assertThrows(IllegalArgumentException.class, () -> validator("{\"minProperties\": -1}"));
+        assertThrows(IllegalArgumentException.class, () -> validator("[]"));
+    }
+
+    @Test
+    void testLoadReadsDecimalsExactly(@TempDir Path tempDir) throws Exception {
+        Path schema = tempDir.resolve("schema.json");
+        Files.writeString(schema, "{\"properties\": {\"ratio\": {\"maximum\": 0.1000000000000000001}}}");
+        JsonSchemaValidator validator = JsonSchemaValidator.load(schema);
+        CompactRecord record = new CompactRecord();
+
+        record.put("ratio", RawNumber.of("0.1000000000000000001"));
+        assertEquals(List.of(), validator.validate(record));
+        record.put("ratio", RawNumber.of("0.1000000000000000002"));
+        assertEquals(List.of("/ratio: must be <= 0.1000000000000000001"), validator.validate(record));
+    }
+}
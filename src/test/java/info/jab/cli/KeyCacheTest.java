@@ -0,0 +1,50 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyCacheTest {
+
+    @Test
+    void testRepeatedKeysShareOneString() {
+        KeyCache keyCache = new KeyCache();
+
+        String first = keyCache.key("name=John", 0, 4);
+        String second = keyCache.key("x name ", 2, 6);
+
+        assertEquals("name", first);
+        assertSame(first, second);
+        assertEquals(1, keyCache.hits());
+        assertEquals(1, keyCache.misses());
+    }
+
+    @Test
+    void testEncodedKeyIsEscapedOnce() {
+        KeyCache keyCache = new KeyCache();
+        String key = keyCache.key("línea \"1\"", 0, 9);
+
+        byte[] encoded = keyCache.encoded(key).asQuotedUTF8();
+
+        assertEquals("línea \\\"1\\\"", new String(encoded, StandardCharsets.UTF_8));
+        assertSame(keyCache.encoded(key), keyCache.encoded(new String(key)));
+    }
+
+    @Test
+    void testCollisionsAndLongKeysStayCorrect() {
+        // A single slot keeps only the last key
+        KeyCache keyCache = new KeyCache(1);
+
+        assertEquals("a", keyCache.key("a", 0, 1));
+        assertEquals("b", keyCache.key("b", 0, 1));
+        assertEquals("a", keyCache.key("a", 0, 1));
+        String longKey = "k".repeat(KeyCache.MAX_KEY_LENGTH + 1);
+        assertEquals(longKey, keyCache.key(longKey, 0, longKey.length()));
+        assertEquals(longKey, keyCache.key(longKey, 0, longKey.length()));
+
+        assertEquals(0, keyCache.hits());
+        assertEquals(5, keyCache.misses());
+    }
+}
@@ -0,0 +1,95 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedBatchProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String records(int count) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            String terminator = i % 3 == 0 ? "\r\n" : i % 5 == 0 ? "\r" : "\n";
+            if (i % 97 == 0) {
+                input.append("=invalid");
+            } else if (i % 53 == 0) {
+                input.append("   ");
+            } else if (i % 11 == 0) {
+                input.append("name 'José Núñez' city Zürich emoji 😀");
+            } else {
+                input.append("id=").append(i).append(" name=\"user ").append(i).append("\" ratio=").append(i / 8.0)
+                    .append(" big=").append(Long.MAX_VALUE - i).append(" 'quoted key'=x");
+            }
+            input.append(terminator);
+        }
+        // Last line without terminator
+        return input.append("last=true").toString();
+    }
+
+    private void assertSameAsBatch(String input, long windowSize) throws Exception {
+        Path file = tempDir.resolve("records.txt");
+        Files.writeString(file, input, StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream expectedErr = new ByteArrayOutputStream();
+        int expectedErrors = new BatchProcessor().process(
+            new BufferedReader(new StringReader(input)), expectedOut, new PrintStream(expectedErr, true, StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int errors = new MappedBatchProcessor(new BatchProcessor(), windowSize).process(
+            file, out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(expectedErrors, errors);
+        assertEquals(expectedOut.toString(StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedErr.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOutputMatchesReaderBasedBatch() throws Exception {
+        assertSameAsBatch(records(2000), MappedBatchProcessor.DEFAULT_WINDOW_SIZE);
+    }
+
+    @Test
+    void testSmallWindowsSplitLinesAndTerminators() throws Exception {
+        // Windows shorter than a line force remapping, including "\r\n" split across windows
+        for (long windowSize : new long[] {1, 2, 7, 64}) {
+            assertSameAsBatch(records(300), windowSize);
+        }
+    }
+
+    @Test
+    void testEmptyFile() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("empty.txt"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int errors = new MappedBatchProcessor(new BatchProcessor()).process(file, out, System.err);
+
+        assertEquals(0, errors);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void testAsciiViewParsesLikeString() {
+        String line = "a=1 b:'x y' c=\"2\" d=-9223372036854775808 e=1e3 f=0x1p3 g= h=";
+        ByteBuffer bytes = ByteBuffer.wrap(("##" + line).getBytes(StandardCharsets.US_ASCII));
+        AsciiByteSequence view = new AsciiByteSequence().reset(bytes, 2, line.length());
+        BatchProcessor batchProcessor = new BatchProcessor();
+
+        assertEquals(line, view.toString());
+        assertEquals(new PairParser().parsePairs(new LineTokenizer().tokenize(line)), batchProcessor.parseLine(view));
+    }
+}
@@ -0,0 +1,332 @@
+package info.jab.cli;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Smoke tests for the native executable built with the native profile.
+ * Mirrors the scenarios of {@link ResultGeneratorCliTest} but launches the binary as a process,
+ * with one test per mode, since each mode reaches code that needs its own native-image configuration.
+ */
+class NativeBinaryIT {
+
+    private static final String RECORDS = "name=John age=30\nbroken\nname=Jane age=31\n";
+
+    private static Path binary;
+
+    @TempDir
+    Path tempDir;
+
+    private record Execution(int exitCode, String output, String error) {
+    }
+
+    @BeforeAll
+    static void locateBinary() {
+        String property = System.getProperty("native.binary");
+        assumeTrue(property != null, "native.binary system property not set");
+        binary = Path.of(property);
+        assumeTrue(Files.isExecutable(binary), "Native binary not found: " + binary);
+    }
+
+    private static ProcessBuilder command(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(binary.toString());
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command);
+    }
+
+    private static Execution run(String... args) throws IOException, InterruptedException {
+        return run(command(args));
+    }
+
+    /**
+     * Runs the binary with a file as stdin.
+     */
+    private static Execution runWithInput(Path input, String... args) throws IOException, InterruptedException {
+        return run(command(args).redirectInput(input.toFile()));
+    }
+
+    private static Execution run(ProcessBuilder builder) throws IOException, InterruptedException {
+        Process process = builder.start();
+        process.getOutputStream().close();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        String error = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        return new Execution(process.exitValue(), output, error);
+    }
+
+    /**
+     * Starts a server mode and waits for its "Listening on ..." line.
+     *
+     * @return the address the server listens on
+     */
+    private static String awaitListening(Process process) throws IOException {
+        process.getOutputStream().close();
+        BufferedReader error = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
+        String line = error.readLine();
+        assertNotNull(line, "The server exited before listening");
+        assertTrue(line.startsWith("Listening on "), line);
+        return line.substring("Listening on ".length());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    void testHelpOption() throws Exception {
+        Execution execution = run("--help");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().contains("Usage:"));
+        assertTrue(execution.output().contains("result-json-map"));
+    }
+
+    @Test
+    void testVersionOption() throws Exception {
+        Execution execution = run("--version");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().contains("0.1.0-SNAPSHOT"));
+    }
+
+    @Test
+    void testDelimitedPairs() throws Exception {
+        Execution execution = run("--build", "name=John", "age:30", "city=New York");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().startsWith("<result>"));
+        assertTrue(execution.output().endsWith("</result>"));
+        assertTrue(execution.output().contains("\"name\":\"John\""));
+        assertTrue(execution.output().contains("\"age\":30"));
+        assertTrue(execution.output().contains("\"city\":\"New York\""));
+    }
+
+    @Test
+    void testAlternatingPairs() throws Exception {
+        Execution execution = run("--build", "\"field\"", "30", "\"field2\"", "\"John\"");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().contains("\"field\":30"));
+        assertTrue(execution.output().contains("\"field2\":\"John\""));
+    }
+
+    @Test
+    void testNumericValues() throws Exception {
+        Execution execution = run("--build", "price=19.99", "temperature=-5.5", "large=3000000000", "code=\"123\"");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().contains("\"price\":19.99"));
+        assertTrue(execution.output().contains("\"temperature\":-5.5"));
+        assertTrue(execution.output().contains("\"large\":3000000000"));
+        assertTrue(execution.output().contains("\"code\":\"123\""));
+    }
+
+    @Test
+    void testEmptyValue() throws Exception {
+        Execution execution = run("--build", "field=");
+
+        assertEquals(0, execution.exitCode());
+        assertTrue(execution.output().contains("\"field\":\"\""));
+    }
+
+    @Test
+    void testEmptyFieldName() throws Exception {
+        Execution execution = run("--build", "=value");
+
+        assertEquals(1, execution.exitCode());
+        assertTrue(execution.error().contains("Field name cannot be empty"));
+    }
+
+    @Test
+    void testOddNumberOfArguments() throws Exception {
+        Execution execution = run("--build", "field", "value", "field2");
+
+        assertEquals(1, execution.exitCode());
+        assertTrue(execution.error().contains("even number of arguments"));
+    }
+
+    @Test
+    void testBatchMode() throws Exception {
+        Execution execution = runWithInput(write("records.txt", RECORDS), "--batch");
+
+        assertEquals(1, execution.exitCode());
+        assertEquals("<result>{\"name\":\"John\",\"age\":30}</result>\n<result>{\"name\":\"Jane\",\"age\":31}</result>",
+            execution.output());
+        assertTrue(execution.error().startsWith("Error at line 2:"));
+    }
+
+    @Test
+    void testParallelAndMappedBatchModes() throws Exception {
+        Path input = write("records.txt", RECORDS);
+        Execution sequential = run("--batch", "--input", input.toString());
+
+        assertEquals(sequential.output(), run("--batch", "--parallel=2", "--input", input.toString()).output());
+        assertEquals(sequential.output(), run("--batch", "--mmap", "--input", input.toString()).output());
+    }
+
+    @Test
+    void testErrorsFile() throws Exception {
+        Path errors = tempDir.resolve("errors.jsonl");
+        Execution execution = runWithInput(write("records.txt", RECORDS), "--batch", "--errors", errors.toString());
+
+        assertEquals(1, execution.exitCode());
+        assertTrue(Files.readString(errors).startsWith("{\"line\":2,\"code\":\"too-few-arguments\""));
+    }
+
+    @Test
+    void testStatsFile() throws Exception {
+        Path stats = tempDir.resolve("stats.json");
+        runWithInput(write("records.txt", RECORDS), "--batch", "--stats=" + stats);
+
+        String report = Files.readString(stats);
+        assertTrue(report.contains("\"records\" : 2"), report);
+        assertTrue(report.contains("\"errors\" : 1"), report);
+    }
+
+    @Test
+    void testBinaryFormatsRoundTrip() throws Exception {
+        Path input = write("records.txt", "name=John age=30\nname=Jane age=31\n");
+        for (String format : List.of("cbor", "smile")) {
+            Path encoded = tempDir.resolve("records." + format);
+            Execution encode = run(command("--batch", "--format", format, "--input", input.toString())
+                .redirectOutput(encoded.toFile()));
+            assertEquals(0, encode.exitCode(), encode.error());
+
+            Execution decode = run("--decode", "--format", format, "--input", encoded.toString());
+
+            assertEquals(0, decode.exitCode(), decode.error());
+            assertEquals("<result>{\"name\":\"John\",\"age\":30}</result>\n<result>{\"name\":\"Jane\",\"age\":31}</result>",
+                decode.output());
+        }
+    }
+
+    @Test
+    void testSchemaMode() throws Exception {
+        Path schema = write("schema.json", "{\"zip\": \"string\", \"age\": \"int\"}");
+
+        Execution execution = run("--schema", schema.toString(), "--build", "zip=02134", "age=30");
+
+        assertEquals(0, execution.exitCode(), execution.error());
+        assertTrue(execution.output().contains("\"zip\":\"02134\""));
+        assertEquals(1, run("--schema", schema.toString(), "--build", "age=forty").exitCode());
+    }
+
+    @Test
+    void testValidateMode() throws Exception {
+        Path schema = write("validate.json", "{\"properties\": {\"age\": {\"type\": \"integer\", \"minimum\": 18}}}");
+
+        assertEquals(0, run("--validate", schema.toString(), "--build", "age=30").exitCode());
+        Execution invalid = run("--validate", schema.toString(), "--build", "age=12");
+
+        assertEquals(1, invalid.exitCode());
+        assertTrue(invalid.error().contains("/age"), invalid.error());
+    }
+
+    @Test
+    void testStreamMode() throws Exception {
+        Execution execution = runWithInput(write("pairs.txt", "a=1\nb=x\na=2\n"), "--stream", "--duplicates", "first");
+
+        assertEquals(0, execution.exitCode(), execution.error());
+        assertEquals("<result>{\"a\":1,\"b\":\"x\"}</result>", execution.output());
+    }
+
+    @Test
+    void testExtractMode() throws Exception {
+        Execution execution = runWithInput(write("results.txt", "log <result>{\"name\":\"John\"}</result>\n"), "--extract");
+
+        assertEquals(0, execution.exitCode(), execution.error());
+        assertEquals("{\"name\":\"John\"}", execution.output());
+    }
+
+    @Test
+    void testFileValues() throws Exception {
+        Path notes = write("notes.txt", "line one\nline two");
+
+        Execution execution = run("--build", "notes=@" + notes, "raw=@base64:" + notes);
+
+        assertEquals(0, execution.exitCode(), execution.error());
+        assertTrue(execution.output().contains("\"notes\":\"line one\\nline two\""));
+        assertTrue(execution.output().contains("\"raw\":\"bGluZSBvbmUKbGluZSB0d28=\""));
+    }
+
+    @Test
+    void testHttpMode() throws Exception {
+        Process server = command("--http", "0").start();
+        try {
+            URI base = URI.create(awaitListening(server));
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/?name=John&age=30")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertEquals("<result>{\"name\":\"John\",\"age\":30}</result>", response.body().trim());
+        } finally {
+            server.destroy();
+            server.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testServerAndClientModes() throws Exception {
+        String socket = tempDir.resolve("result-json-map.sock").toString();
+        Process server = command("--serve", socket).start();
+        try {
+            assertEquals(socket, awaitListening(server));
+
+            Execution execution = run("--client", socket, "--build", "name=John", "age=30");
+
+            assertEquals(0, execution.exitCode(), execution.error());
+            assertEquals("<result>{\"name\":\"John\",\"age\":30}</result>", execution.output());
+            assertEquals(1, run("--client", socket, "--build", "=value").exitCode());
+        } finally {
+            server.destroy();
+            server.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws Exception {
+        Path settings = write("events.jfc", """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <configuration version="2.0">
+              <event name="info.jab.cli.Invocation">
+                <setting name="enabled">true</setting>
+                <setting name="threshold">0 ms</setting>
+              </event>
+            </configuration>
+            """);
+        Path recording = tempDir.resolve("run.jfr");
+
+        Execution execution = run("-XX:StartFlightRecording=filename=" + recording + ",settings=" + settings,
+            "--build", "name=John");
+
+        assertEquals(0, execution.exitCode(), execution.error());
+        List<RecordedEvent> invocations = RecordingFile.readAllEvents(recording).stream()
+            .filter(event -> event.getEventType().getName().equals("info.jab.cli.Invocation"))
+            .toList();
+        assertEquals(1, invocations.size());
+        assertEquals("build", invocations.get(0).getString("mode"));
+    }
+}
@@ -0,0 +1,140 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairStreamerTest {
+
+    private static PairStreamer streamer(DuplicateKeyPolicy duplicates, char separator) {
+        return new PairStreamer(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT, duplicates, separator);
+    }
+
+    private static String stream(PairStreamer streamer, String pairs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.stream(new StringReader(pairs), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPairsPerLine() throws IOException {
+        String result = stream(new PairStreamer(), "name=John\n\nage: 30\r\nprice = 19.99\ncode='007'");
+
+        assertEquals("<result>{\"name\":\"John\",\"age\":30,\"price\":19.99,\"code\":\"007\"}</result>"
+            + System.lineSeparator(), result);
+    }
+
+    @Test
+    void testNulSeparatedValuesKeepNewlines() throws IOException {
+        String result = stream(streamer(DuplicateKeyPolicy.ERROR, '\0'), "text=line 1\nline 2\0n=1\0");
+
+        assertEquals("<result>{\"text\":\"line 1\\nline 2\",\"n\":1}</result>", result.trim());
+    }
+
+    @Test
+    void testEmptyRecord() throws IOException {
+        assertEquals("<result>{}</result>", stream(new PairStreamer(), "\n \n").trim());
+    }
+
+    @Test
+    void testDuplicatePolicies(@TempDir Path tempDir) throws IOException {
+        String pairs = "a=1\nb=2\na=3\nc=4\n";
+
+        assertEquals("<result>{\"a\":1,\"b\":2,\"c\":4}</result>", stream(streamer(DuplicateKeyPolicy.FIRST, '\n'), pairs).trim());
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> stream(streamer(DuplicateKeyPolicy.ERROR, '\n'), pairs));
+        assertEquals("Duplicate field 'a' at pair 3", error.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> stream(streamer(DuplicateKeyPolicy.LAST, '\n'), pairs));
+        Path input = Files.writeString(tempDir.resolve("pairs.txt"), pairs);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, streamer(DuplicateKeyPolicy.LAST, '\n').stream(input, out));
+        assertEquals("<result>{\"b\":2,\"a\":3,\"c\":4}</result>", out.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    void testInvalidPairLeavesResultUnfinished() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> new PairStreamer().stream(new StringReader("a=1\nnodelimiter\nb=2"), out));
+
+        assertTrue(error.getMessage().startsWith("Pair 2: Invalid pair format: 'nodelimiter'"));
+        assertEquals("<result>{\"a\":1", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testManyFieldsAcrossChunks() throws IOException {
+        int count = 200_000;
+        Reader pairs = new Reader() {
+            private int next;
+            private final StringBuilder pending = new StringBuilder();
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                while (pending.length() < length && next < count) {
+                    pending.append("feature_").append(next).append('=').append(next++ * 0.5).append('\n');
+                }
+                if (pending.length() == 0) {
+                    return -1;
+                }
+                int read = Math.min(length, pending.length());
+                pending.getChars(0, read, buffer, offset);
+                pending.delete(0, read);
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(count, new PairStreamer().stream(pairs, out));
+
+        String result = out.toString(StandardCharsets.UTF_8).trim();
+        JsonNode json = new ObjectMapper().readTree(result.substring("<result>".length(), result.length() - "</result>".length()));
+        assertEquals(count, json.size());
+        assertEquals(99_999.5, json.get("feature_199999").doubleValue());
+    }
+
+    @Test
+    void testFingerprints() {
+        KeyFingerprints set = new KeyFingerprints();
+        KeyFingerprints fingerprints = new KeyFingerprints(true);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.add(KeyFingerprints.fingerprint("key" + i)));
+            assertEquals(-1, fingerprints.put(KeyFingerprints.fingerprint("key" + i), i));
+        }
+
+        assertEquals(10_000, set.size());
+        assertFalse(set.add(KeyFingerprints.fingerprint("key42")));
+        assertEquals(10_000, fingerprints.size());
+        assertEquals(42, fingerprints.put(KeyFingerprints.fingerprint("key42"), 7));
+        assertEquals(7, fingerprints.get(KeyFingerprints.fingerprint("key42")));
+        assertEquals(-1, fingerprints.get(KeyFingerprints.fingerprint("missing")));
+        assertNotEquals(KeyFingerprints.fingerprint("ab"), KeyFingerprints.fingerprint("ba"));
+    }
+
+    @Test
+    void testStreamedKeysBypassTheKeyCache() throws IOException {
+        KeyCache keyCache = new KeyCache();
+        PairStreamer streamer = new PairStreamer(new PairParser(new ValueParser(), keyCache), new JsonConverter(),
+            PairTokenizer.DEFAULT, DuplicateKeyPolicy.FIRST, '\n');
+
+        assertEquals("<result>{\"a\":1,\"b\":2}</result>", stream(streamer, "a=1\nb=2\na=3\n").trim());
+        assertEquals(0, keyCache.hits() + keyCache.misses());
+    }
+}
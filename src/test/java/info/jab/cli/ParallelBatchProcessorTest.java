@@ -0,0 +1,87 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelBatchProcessorTest {
+
+    private static String records(int count) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            if (i % 97 == 0) {
+                input.append("=invalid").append('\n');
+            } else if (i % 53 == 0) {
+                input.append('\n');
+            } else {
+                input.append("id=").append(i).append(" name=\"user ").append(i).append("\" ratio=").append(i / 8.0).append('\n');
+            }
+        }
+        return input.toString();
+    }
+
+    @Test
+    void testOutputMatchesSequentialRun() throws Exception {
+        String input = records(5000);
+
+        ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream expectedErr = new ByteArrayOutputStream();
+        int expectedErrors = new BatchProcessor().process(
+            new BufferedReader(new StringReader(input)), expectedOut, new PrintStream(expectedErr, true, StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        ParallelBatchProcessor processor = new ParallelBatchProcessor(3, BatchProcessor::new, 7);
+        int errors = processor.process(
+            new BufferedReader(new StringReader(input)), out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(51, expectedErrors);
+        assertEquals(expectedErrors, errors);
+        assertEquals(expectedOut.toString(StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedErr.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMaxErrorsStopsWhereSequentialRunStops() throws Exception {
+        String input = records(5000);
+
+        ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream expectedErr = new ByteArrayOutputStream();
+        int expectedErrors = new BatchProcessor().process(new BufferedReader(new StringReader(input)), expectedOut,
+            new PrintStream(expectedErr, true, StandardCharsets.UTF_8), 10);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        ParallelBatchProcessor processor = new ParallelBatchProcessor(3, BatchProcessor::new, 100);
+        int errors = processor.process(new BufferedReader(new StringReader(input)), out,
+            new PrintStream(err, true, StandardCharsets.UTF_8), 10);
+
+        assertEquals(10, expectedErrors);
+        assertEquals(10, errors);
+        assertTrue(expectedErr.toString(StandardCharsets.UTF_8).trim().endsWith("Error at line 970: Field name cannot be empty in pair: '=invalid'"));
+        assertEquals(expectedOut.toString(StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedErr.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEmptyInput() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParallelBatchProcessor processor = new ParallelBatchProcessor(2, BatchProcessor::new);
+
+        int errors = processor.process(new BufferedReader(new StringReader("")), out, System.err);
+
+        assertEquals(0, errors);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void testInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelBatchProcessor(0, BatchProcessor::new));
+    }
+}
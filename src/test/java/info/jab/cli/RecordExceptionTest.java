@@ -0,0 +1,101 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordExceptionTest {
+
+    private final PairParser parser = new PairParser();
+
+    private RecordException parseError(String... pairs) {
+        return assertThrows(RecordException.class, () -> parser.parsePairs(pairs));
+    }
+
+    @Test
+    void testCodesAndPositions() {
+        RecordException missing = parseError("name=John", "age", "x=1");
+        assertEquals(ErrorCode.MISSING_DELIMITER, missing.code());
+        assertEquals(2, missing.position());
+        assertEquals("age", missing.input());
+        assertEquals("Invalid pair format: 'age'. Expected format: 'field=value' or 'field:value'", missing.getMessage());
+
+        RecordException empty = parseError("a=1", " =2");
+        assertEquals(ErrorCode.EMPTY_FIELD, empty.code());
+        assertEquals(2, empty.position());
+        assertEquals("Field name cannot be empty in pair: ' =2'", empty.getMessage());
+
+        RecordException emptyAlternating = parseError("a", "1", "''", "2");
+        assertEquals(ErrorCode.EMPTY_FIELD, emptyAlternating.code());
+        assertEquals(3, emptyAlternating.position());
+        assertNull(emptyAlternating.input());
+        assertEquals("Field name cannot be empty at position 3", emptyAlternating.getMessage());
+    }
+
+    @Test
+    void testArgumentCountErrorsArePreallocated() {
+        assertSame(RecordException.TOO_FEW_ARGUMENTS, parseError("alone"));
+        assertSame(RecordException.ODD_ARGUMENTS, parseError("a", "1", "b"));
+        assertEquals("Invalid number of arguments. Expected even number of arguments (field-value pairs).",
+            RecordException.ODD_ARGUMENTS.getMessage());
+    }
+
+    @Test
+    void testErrorsHaveNoStackTrace() {
+        assertEquals(0, parseError("name=John", "age").getStackTrace().length);
+        assertEquals(0, RecordException.TOO_FEW_ARGUMENTS.getStackTrace().length);
+    }
+
+    @Test
+    void testErrorsAreIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parsePairs(new String[] {"name=John", "age"}));
+        assertThrows(IllegalArgumentException.class, () -> parser.parsePairs(new String[] {"alone"}));
+    }
+
+    @Test
+    void testSchemaErrorsAreLocated() {
+        Schema schema = new Schema(Map.of("age", FieldType.INT), UnknownFieldPolicy.REJECT);
+        PairParser schemaParser = new PairParser(new ValueParser(), new KeyCache(), schema);
+
+        RecordException invalid = assertThrows(RecordException.class,
+            () -> schemaParser.parsePairs(new String[] {"age=30", "age=forty"}));
+        assertEquals(ErrorCode.INVALID_VALUE, invalid.code());
+        assertEquals(2, invalid.position());
+        assertEquals("age", invalid.field());
+        assertEquals("forty", invalid.input());
+        assertEquals("Invalid int value for field 'age': 'forty'", invalid.getMessage());
+
+        RecordException unknown = assertThrows(RecordException.class,
+            () -> schemaParser.parsePairs(new String[] {"age", "30", "extra", "1"}));
+        assertEquals(ErrorCode.UNKNOWN_FIELD, unknown.code());
+        assertEquals(4, unknown.position());
+    }
+
+    @Test
+    void testJsonLinesReport() throws Exception {
+        BatchProcessor processor = new BatchProcessor(new PairParser(), new JsonConverter(), PairTokenizer.DEFAULT,
+            null, null, ErrorFormat.JSON_LINES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int errors = processor.process(new BufferedReader(new StringReader("a=1\nname=\"Jo\" age\na b c\n")), out,
+            new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(2, errors);
+        assertEquals("""
+            {"line":2,"code":"missing-delimiter","position":2,"input":"age",\
+            "message":"Invalid pair format: 'age'. Expected format: 'field=value' or 'field:value'",\
+            "record":"name=\\"Jo\\" age"}
+            {"line":3,"code":"odd-arguments",\
+            "message":"Invalid number of arguments. Expected even number of arguments (field-value pairs).",\
+            "record":"a b c"}
+            """, err.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+    }
+}
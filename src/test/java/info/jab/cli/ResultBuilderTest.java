@@ -0,0 +1,164 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultBuilderTest {
+
+    private final ResultBuilder builder = new ResultBuilder();
+
+    @Test
+    void testFluentTypedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        builder.result()
+            .put("name", "Zoë")
+            .putInt("age", 30)
+            .putLong("id", 3_000_000_000L)
+            .putDouble("price", 19.99)
+            .putBoolean("active", true)
+            .put("tags", List.of("a", "b"))
+            .writeTo(out);
+
+        assertEquals("<result>{\"name\":\"Zoë\",\"age\":30,\"id\":3000000000,\"price\":19.99,\"active\":true,"
+            + "\"tags\":[\"a\",\"b\"]}</result>", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testParseMatchesBuildOutput() throws Exception {
+        Map<String, Object> pairs = new PairParser().parsePairs(new String[] {"code='007'", "n=42", "x=1.5", "s=text"});
+        String expected = new JsonConverter().convertAndWrap(pairs);
+
+        String result = builder.result().parse("code", "'007'").parse("n", "42").parse("x", "1.5").parse("s", "text")
+            .writeToString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.readTree(unwrap(expected)), mapper.readTree(unwrap(result)));
+    }
+
+    @Test
+    void testTargets() throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("a", 1);
+        fields.put("b", "two");
+        String expected = "<result>{\"a\":1,\"b\":\"two\"}</result>";
+
+        StringBuilder text = new StringBuilder("> ");
+        builder.result().putAll(fields).appendTo(text);
+        assertEquals("> " + expected, text.toString());
+
+        StringWriter writer = new StringWriter();
+        builder.result().putAll(fields).appendTo(writer);
+        assertEquals(expected, writer.toString());
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int written = builder.result().putAll(fields).writeTo(buffer);
+        assertEquals(expected.length(), written);
+        assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertThrows(BufferOverflowException.class, () -> builder.result().putAll(fields).writeTo(small));
+        assertEquals(0, small.position());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(fields, out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWrittenResultIsReused() {
+        ResultBuilder.Result first = builder.result().putInt("a", 1);
+        assertNotNull(first.toString());
+        assertNotSame(first, builder.result(), "toString() must not return the result to the pool");
+        assertEquals("<result>{\"a\":1}</result>", first.writeToString());
+
+        ResultBuilder.Result second = builder.result();
+        assertSame(first, second);
+        assertEquals(0, second.size());
+        assertEquals("<result>{}</result>", second.writeToString());
+    }
+
+    @Test
+    void testResultsAreReusedAcrossVirtualThreads() throws Exception {
+        ResultBuilder.Result[] results = new ResultBuilder.Result[2];
+        for (int i = 0; i < results.length; i++) {
+            int index = i;
+            Thread thread = Thread.ofVirtual().start(() -> {
+                results[index] = builder.result().putInt("i", index);
+                assertEquals("<result>{\"i\":" + index + "}</result>", results[index].writeToString());
+            });
+            thread.join();
+        }
+
+        assertSame(results[0], results[1]);
+    }
+
+    @Test
+    void testLargeRecordsAreReleased() {
+        String large = "x".repeat(2 * ResultBuilder.MAX_RETAINED_BYTES);
+        StringBuilder text = new StringBuilder();
+
+        assertDoesNotThrow(() -> builder.result().put("big", large).appendTo(text));
+        assertEquals(large.length() + "<result>{\"big\":\"\"}</result>".length(), text.length());
+        assertEquals("<result>{\"n\":1}</result>", builder.result().putInt("n", 1).writeToString());
+    }
+
+    @Test
+    void testFailedRecordDoesNotBreakTheThread() {
+        ResultBuilder.Result result = builder.result().put("bad", new Object());
+
+        assertThrows(UncheckedIOException.class, result::writeToString);
+        assertEquals("<result>{\"ok\":true}</result>", builder.result().putBoolean("ok", true).writeToString());
+    }
+
+    @Test
+    void testConcurrentThreadsShareOneBuilder() throws Exception {
+        int threads = 8;
+        int records = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    int mismatches = 0;
+                    for (int i = 0; i < records; i++) {
+                        out.reset();
+                        builder.result().putInt("thread", thread).putLong("i", i).put("name", "n" + i).writeTo(out);
+                        String expected = "<result>{\"thread\":" + thread + ",\"i\":" + i + ",\"name\":\"n" + i + "\"}</result>";
+                        if (!expected.equals(out.toString(StandardCharsets.UTF_8))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(0, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String unwrap(String result) {
+        return result.substring("<result>".length(), result.length() - "</result>".length());
+    }
+}
@@ -0,0 +1,143 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultExtractorTest {
+
+    private static final String TRANSCRIPT = """
+        The model said <result>{"name":"John","age":30}</result> and then
+        some text with <res and </result> noise <result>
+        {
+          "nested": {"list": [1, 2.5, "x"]},
+          "text": "José 😀 <b>"
+        }
+        </result>
+        <result>{"broken": }</result> trailing <result>[1,2]</result><result>"s"</result>
+        <result>{"a":1} {"b":2}</result><result>   </result><result>{"big":12345678901234567890}</result>
+        <result>{"unterminated": true}
+        """;
+
+    private static final String EXPECTED = """
+        {"name":"John","age":30}
+        {  "nested": {"list": [1, 2.5, "x"]},  "text": "José 😀 <b>"}
+        [1,2]
+        "s"
+        {"big":12345678901234567890}
+        """;
+
+    private record Extraction(int malformed, String out, String err) {
+    }
+
+    private static Extraction extract(String input, ResultExtractor extractor) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int malformed = extractor.extract(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Extraction(malformed, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExtractsValidBlocksAndCountsMalformedOnes() throws Exception {
+        Extraction extraction = extract(TRANSCRIPT, new ResultExtractor());
+
+        assertEquals(EXPECTED, extraction.out());
+        assertEquals(4, extraction.malformed());
+        String[] errors = extraction.err().split("\\R");
+        assertEquals(4, errors.length);
+        assertTrue(errors[0].startsWith("Malformed block at line 8: "));
+        assertEquals("Malformed block at line 9: unexpected content after the JSON value", errors[1]);
+        assertEquals("Malformed block at line 9: no JSON value", errors[2]);
+        assertEquals("Malformed block at line 10: missing </result>", errors[3]);
+    }
+
+    @Test
+    void testMarkersSpanningReadsAreFound() throws Exception {
+        // Every read boundary position is exercised with buffers of 1 to 16 bytes
+        for (ByteScanner scanner : List.of(new ScalarByteScanner(), ByteScanner.INSTANCE)) {
+            for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+                ResultExtractor extractor = new ResultExtractor(
+                    new JsonFactory(), bufferSize, ResultExtractor.DEFAULT_MAX_BLOCK_SIZE, scanner);
+                Extraction extraction = extract(TRANSCRIPT, extractor);
+
+                String context = scanner.getClass().getSimpleName() + ", buffer size " + bufferSize;
+                assertEquals(EXPECTED, extraction.out(), context);
+                assertEquals(4, extraction.malformed(), context);
+            }
+        }
+    }
+
+    @Test
+    void testOversizedBlocksAreSkipped() throws Exception {
+        ResultExtractor extractor = new ResultExtractor(new JsonFactory(), 8, 16);
+
+        Extraction extraction = extract(
+            "<result>{\"a\":\"0123456789abcdef\"}</result><result>{\"b\":1}</result>", extractor);
+
+        assertEquals("{\"b\":1}\n", extraction.out());
+        assertEquals(1, extraction.malformed());
+        assertEquals("Malformed block at line 1: larger than 16 bytes", extraction.err().trim());
+    }
+
+    @Test
+    void testEndMarkerInsideStringsDoesNotEndTheBlock() throws Exception {
+        String input = "<result>{\"a\":\"x</result>y\",\"b\":\"q\\\"</result>\\\\\"}</result> <result>[\"<result>\"]</result>";
+
+        for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+            Extraction extraction = extract(input,
+                new ResultExtractor(new JsonFactory(), bufferSize, ResultExtractor.DEFAULT_MAX_BLOCK_SIZE));
+
+            assertEquals("{\"a\":\"x</result>y\",\"b\":\"q\\\"</result>\\\\\"}\n[\"<result>\"]\n", extraction.out(),
+                "buffer size " + bufferSize);
+            assertEquals(0, extraction.malformed());
+        }
+    }
+
+    @Test
+    void testUnterminatedStringDoesNotSwallowLaterBlocks() throws Exception {
+        String input = "log <result>{\"a\": \"oops}</result>\nmore text\n<result>{\"b\":1}</result>\n"
+            + "<result>{\"c\":2}</result>\n<result>{\"d\":3}</result>";
+
+        for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+            Extraction extraction = extract(input,
+                new ResultExtractor(new JsonFactory(), bufferSize, ResultExtractor.DEFAULT_MAX_BLOCK_SIZE));
+
+            String context = "buffer size " + bufferSize;
+            assertEquals("{\"b\":1}\n{\"c\":2}\n{\"d\":3}\n", extraction.out(), context);
+            assertEquals(1, extraction.malformed(), context);
+            assertTrue(extraction.err().startsWith("Malformed block at line 1: "), context);
+        }
+
+        // Without a line break, the end of the input sends the scan back to the first </result>
+        Extraction atEnd = extract("<result>{\"a\": \"oops}</result> <result>{\"b\":1}</result>", new ResultExtractor());
+        assertEquals("{\"b\":1}\n", atEnd.out());
+        assertEquals(1, atEnd.malformed());
+
+        // An invalid body does too, while a valid one keeps the marker inside its string
+        Extraction invalid = extract("<result>{\"a\": \"x</result>\"} <result>{\"b\":1}</result>", new ResultExtractor());
+        assertEquals("{\"b\":1}\n", invalid.out());
+        assertEquals(1, invalid.malformed());
+    }
+
+    @Test
+    void testRoundTripWithBatchOutput() throws Exception {
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        try (ResultWriter resultWriter = new JsonConverter().newResultWriter(results)) {
+            resultWriter.writeLine(new BatchProcessor().parseLine("name=\"John Doe\" age=30 price=19.99"));
+        }
+
+        Extraction extraction = extract(results.toString(StandardCharsets.UTF_8), new ResultExtractor());
+
+        assertEquals(0, extraction.malformed());
+        String json = new JsonConverter().convertToJson(new BatchProcessor().parseLine("name=\"John Doe\" age=30 price=19.99"));
+        assertEquals(json + "\n", extraction.out());
+    }
+}
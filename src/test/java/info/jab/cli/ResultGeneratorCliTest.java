@@ -1,12 +1,21 @@
 package info.jab.cli;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,6 +25,7 @@ class ResultGeneratorCliTest {
     private ByteArrayOutputStream errContent;
     private PrintStream originalOut;
     private PrintStream originalErr;
+    private InputStream originalIn;
 
     @BeforeEach
     void setUp() {
@@ -23,6 +33,7 @@ class ResultGeneratorCliTest {
         errContent = new ByteArrayOutputStream();
         originalOut = System.out;
         originalErr = System.err;
+        originalIn = System.in;
         System.setOut(new PrintStream(outContent));
         System.setErr(new PrintStream(errContent));
     }
@@ -31,6 +42,7 @@ class ResultGeneratorCliTest {
     void tearDown() {
         System.setOut(originalOut);
         System.setErr(originalErr);
+        System.setIn(originalIn);
     }
 
     @Test
@@ -441,4 +453,492 @@ class ResultGeneratorCliTest {
         assertTrue(errorOutput.contains("Error"));
         assertTrue(errorOutput.contains("Field name cannot be empty"));
     }
+
+    @Test
+    void testBatchFromStdin() {
+        System.setIn(new ByteArrayInputStream(
+            "name=John age=30\nfield value field2 42\n".getBytes(StandardCharsets.UTF_8)));
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--batch");
+
+        assertEquals(0, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("<result>"));
+        assertTrue(lines[0].contains("\"name\":\"John\""));
+        assertTrue(lines[0].contains("\"age\":30"));
+        assertTrue(lines[1].contains("\"field\":\"value\""));
+        assertTrue(lines[1].contains("\"field2\":42"));
+    }
+
+    @Test
+    void testBatchQuotedValuesWithSpaces() {
+        System.setIn(new ByteArrayInputStream(
+            "name=\"John Doe\" code='123'\n".getBytes(StandardCharsets.UTF_8)));
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--batch");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString().trim();
+        assertTrue(output.contains("\"name\":\"John Doe\""));
+        // Quoted values keep their string type
+        assertTrue(output.contains("\"code\":\"123\""));
+    }
+
+    @Test
+    void testBatchReportsErrorsWithLineNumberAndContinues() {
+        System.setIn(new ByteArrayInputStream(
+            "name=John\n\n=value\ncity=Madrid\n".getBytes(StandardCharsets.UTF_8)));
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--batch");
+
+        assertEquals(1, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"John\""));
+        assertTrue(lines[1].contains("\"city\":\"Madrid\""));
+        String errorOutput = errContent.toString();
+        assertTrue(errorOutput.contains("Error at line 3"));
+        assertTrue(errorOutput.contains("Field name cannot be empty"));
+    }
+
+    @Test
+    void testBatchFromInputFile(@TempDir Path tempDir) throws Exception {
+        Path input = tempDir.resolve("records.txt");
+        Files.writeString(input, "a=1\nb=2.5\nc=text\n");
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--batch", "--input", input.toString());
+
+        assertEquals(0, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(3, lines.length);
+        assertEquals("<result>{\"a\":1}</result>", lines[0]);
+        assertEquals("<result>{\"b\":2.5}</result>", lines[1]);
+        assertEquals("<result>{\"c\":\"text\"}</result>", lines[2]);
+    }
+
+    @Test
+    void testCustomDelimiter() {
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--delimiter", "|", "--build", "name|John", "url|http://host:8080/a=b", "age | 30");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString().trim();
+        assertTrue(output.contains("\"name\":\"John\""));
+        // Default delimiters are plain characters when a custom delimiter is set
+        assertTrue(output.contains("\"url\":\"http://host:8080/a=b\""));
+        assertTrue(output.contains("\"age\":30"));
+    }
+
+    @Test
+    void testTabDelimiterEscape() {
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("-d", "\\t", "--build", "name\tJohn Doe", "ratio\t0.5");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString().trim();
+        assertTrue(output.contains("\"name\":\"John Doe\""));
+        assertTrue(output.contains("\"ratio\":0.5"));
+    }
+
+    @Test
+    void testMultiCharacterDelimiter() {
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("-d", "=>", "--build", "a=>1", "b=>x=y");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString().trim();
+        assertTrue(output.contains("\"a\":1"));
+        assertTrue(output.contains("\"b\":\"x=y\""));
+    }
+
+    @Test
+    void testCustomDelimiterInvalidPair() {
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("-d", "|", "--build", "name|John", "age=30");
+
+        assertEquals(1, exitCode);
+        String errorOutput = errContent.toString();
+        assertTrue(errorOutput.contains("Invalid pair format: 'age=30'"));
+        assertTrue(errorOutput.contains("'field|value'"));
+    }
+
+    @Test
+    void testEqualsTakesPrecedenceOverColon() {
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--build", "time:zone=UTC", "url:http://host");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString().trim();
+        assertTrue(output.contains("\"time:zone\":\"UTC\""));
+        assertTrue(output.contains("\"url\":\"http://host\""));
+    }
+
+    @Test
+    void testBatchWithTabDelimiter() {
+        System.setIn(new ByteArrayInputStream(
+            "name\tJohn Doe\nname\tJane age\t41\n".getBytes(StandardCharsets.UTF_8)));
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--batch", "-d", "\\t");
+
+        assertEquals(1, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(1, lines.length);
+        // Spaces still separate arguments, so an unquoted value with spaces is invalid
+        assertTrue(errContent.toString().contains("Error at line 1"));
+        assertTrue(lines[0].contains("\"name\":\"Jane\""));
+        assertTrue(lines[0].contains("\"age\":41"));
+    }
+
+    @Test
+    void testParallelBatchKeepsInputOrder(@TempDir Path tempDir) throws Exception {
+        Path input = tempDir.resolve("records.txt");
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            records.append("id=").append(i).append('\n');
+        }
+        Files.writeString(input, records);
+        ResultGeneratorCli cli = new ResultGeneratorCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        int exitCode = cmd.execute("--parallel", "4", "--input", input.toString());
+
+        assertEquals(0, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(10_000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals("<result>{\"id\":" + i + "}</result>", lines[i]);
+        }
+    }
+
+    @Test
+    void testMmapBatchMatchesBatch(@TempDir Path tempDir) throws Exception {
+        Path input = tempDir.resolve("records.txt");
+        Files.writeString(input, "name=John age=30\r\n\nname Jane city 'São Paulo'\n=bad\nprice=19.99");
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--input", input.toString());
+        String expectedOut = outContent.toString();
+        String expectedErr = errContent.toString();
+        outContent.reset();
+        errContent.reset();
+
+        int mmapExitCode = new CommandLine(new ResultGeneratorCli()).execute("--mmap", "--input", input.toString());
+
+        assertEquals(1, exitCode);
+        assertEquals(exitCode, mmapExitCode);
+        assertEquals(expectedOut, outContent.toString());
+        assertEquals(expectedErr, errContent.toString());
+        assertTrue(errContent.toString().contains("Error at line 4"));
+    }
+
+    @Test
+    void testMmapRequiresInput() {
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--mmap");
+
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("--mmap requires --input"));
+    }
+
+    @Test
+    void testExtractWritesJsonLines() {
+        System.setIn(new ByteArrayInputStream(
+            "log <result>{\"a\":1}</result> log\n<result>{oops}</result>\n<result>{\"b\":[2]}</result>\n"
+                .getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--extract");
+
+        assertEquals(1, exitCode);
+        assertEquals("{\"a\":1}\n{\"b\":[2]}\n", outContent.toString());
+        assertTrue(errContent.toString().contains("Malformed block at line 2"));
+        assertTrue(errContent.toString().contains("Skipped 1 malformed block(s)"));
+    }
+
+    @Test
+    void testExtractReadsBuildOutput() {
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--build", "a=x</result>y", "b=\\\"");
+        assertEquals(0, exitCode);
+        String built = outContent.toString();
+
+        outContent.reset();
+        System.setIn(new ByteArrayInputStream(built.getBytes(StandardCharsets.UTF_8)));
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--extract");
+
+        assertEquals(0, exitCode);
+        assertEquals(built.trim().substring("<result>".length(), built.trim().length() - "</result>".length()) + "\n",
+            outContent.toString());
+        assertTrue(outContent.toString().contains("x</result>y"));
+    }
+
+    @Test
+    void testCacheStatsReportsRepeatedKeys() {
+        System.setIn(new ByteArrayInputStream(
+            "name=a age=1\nname=b age=2\nname=c age=3\n".getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--cache-stats");
+
+        assertEquals(0, exitCode);
+        assertEquals(3, outContent.toString().trim().split("\\R").length);
+        assertTrue(errContent.toString().contains("Key cache: 4 hits, 2 misses (66.7% hit rate)"));
+    }
+
+    @Test
+    void testSchemaTypesBatchRecords(@TempDir Path tempDir) throws Exception {
+        Path schema = Files.writeString(tempDir.resolve("schema.json"), "{\"zip\": \"string\", \"active\": \"boolean\"}");
+        System.setIn(new ByteArrayInputStream(
+            "zip=02134 active=true\nzip=10001 active=maybe\nzip=90210 extra=1\n".getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute(
+            "--batch", "--schema", schema.toString(), "--unknown-fields", "reject");
+
+        assertEquals(1, exitCode);
+        String[] lines = outContent.toString().trim().split("\\R");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains("\"zip\":\"02134\""));
+        assertTrue(lines[0].contains("\"active\":true"));
+        assertTrue(errContent.toString().contains("Error at line 2: Invalid boolean value for field 'active': 'maybe'"));
+        assertTrue(errContent.toString().contains("Error at line 3: Unknown field 'extra' is not declared in the schema"));
+    }
+
+    @Test
+    void testCborBatchDecodesToSameResults() {
+        String records = "name=John age=30\nname Jane city 'São Paulo'\n=bad\nprice=19.99\n";
+        System.setIn(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+        new CommandLine(new ResultGeneratorCli()).execute("--batch");
+        String expected = outContent.toString(StandardCharsets.UTF_8);
+
+        outContent.reset();
+        System.setIn(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--format", "cbor");
+        byte[] cbor = outContent.toByteArray();
+
+        outContent.reset();
+        System.setIn(new ByteArrayInputStream(cbor));
+        int decodeExitCode = new CommandLine(new ResultGeneratorCli()).execute("--decode", "--format", "cbor");
+
+        assertEquals(1, exitCode);
+        assertEquals(0, decodeExitCode);
+        assertNotEquals(expected, new String(cbor, StandardCharsets.UTF_8));
+        assertEquals(expected, outContent.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testDecodeRequiresBinaryFormat() {
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--decode");
+
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("--decode requires --format cbor or --format smile"));
+    }
+
+    @Test
+    void testServersRejectBinaryFormats() {
+        assertEquals(1, new CommandLine(new ResultGeneratorCli()).execute("--serve", "/tmp/none.sock", "--format", "cbor"));
+        assertEquals(1, new CommandLine(new ResultGeneratorCli()).execute("--http", "0", "--format", "smile"));
+
+        assertTrue(errContent.toString().contains("--format cbor cannot be combined with --serve or --http"));
+        assertTrue(errContent.toString().contains("--format smile cannot be combined with --serve or --http"));
+    }
+
+    @Test
+    void testClientRejectsOptionsItDoesNotSend() {
+        int exitCode = new CommandLine(new ResultGeneratorCli())
+            .execute("--client", "/tmp/none.sock", "--numbers", "big", "--format", "cbor", "--build", "a=1");
+
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("--client cannot be combined with --numbers, --format"));
+    }
+
+    @Test
+    void testBuildStreamsFileReferences(@TempDir Path tempDir) throws Exception {
+        Path notes = Files.writeString(tempDir.resolve("notes.txt"), "first line\n\"second\" line\n");
+        Path image = Files.write(tempDir.resolve("image.bin"), new byte[] {0, 1, 2, (byte) 0xff});
+        System.setIn(new ByteArrayInputStream("from stdin".getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--build",
+            "notes=@" + notes, "image=@base64:" + image, "input=@-", "handle=@@jane");
+
+        assertEquals(0, exitCode);
+        String output = outContent.toString(StandardCharsets.UTF_8).trim();
+        JsonNode result = new ObjectMapper().readTree(output.substring("<result>".length(), output.length() - "</result>".length()));
+        assertEquals("first line\n\"second\" line\n", result.get("notes").asText());
+        assertEquals("AAEC/w==", result.get("image").asText());
+        assertEquals("from stdin", result.get("input").asText());
+        assertEquals("@jane", result.get("handle").asText());
+    }
+
+    @Test
+    void testBuildMissingFileReference(@TempDir Path tempDir) {
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--build", "body=@" + tempDir.resolve("missing.txt"));
+
+        assertEquals(1, exitCode);
+        assertEquals("", outContent.toString());
+        assertTrue(errContent.toString().contains("Error: Cannot read file"));
+    }
+
+    @Test
+    void testLosslessNumbers() throws Exception {
+        String records = "id=123456789012345678901234567890 price=19.990 ratio=0.1000000000000000055511151231257827 plus=+5\n";
+        System.setIn(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--numbers", "lossless");
+
+        assertEquals(0, exitCode);
+        assertEquals("<result>{\"id\":123456789012345678901234567890,\"price\":19.990,"
+            + "\"ratio\":0.1000000000000000055511151231257827,\"plus\":5}</result>", outContent.toString().trim());
+
+        outContent.reset();
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--numbers", "lossless", "--build", "price=19.990");
+        assertEquals(0, exitCode);
+        assertEquals("<result>{\"price\":19.990}</result>", outContent.toString().trim());
+    }
+
+    @Test
+    void testLosslessNumbersInCbor() {
+        String records = "id=123456789012345678901234567890 small=42 price=19.990\n";
+        System.setIn(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+        new CommandLine(new ResultGeneratorCli()).execute("--batch", "--numbers", "lossless", "--format", "cbor");
+        byte[] cbor = outContent.toByteArray();
+
+        outContent.reset();
+        System.setIn(new ByteArrayInputStream(cbor));
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--decode", "--format", "cbor");
+
+        assertEquals(0, exitCode);
+        assertEquals("<result>{\"id\":123456789012345678901234567890,\"small\":42,\"price\":19.990}</result>",
+            outContent.toString().trim());
+    }
+
+    @Test
+    void testInvalidNumberMode() {
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--numbers", "exact", "--build", "a=1");
+
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("Unknown number mode 'exact'"));
+    }
+
+    @Test
+    void testValidateSkipsInvalidRecords(@TempDir Path tempDir) throws Exception {
+        Path schema = Files.writeString(tempDir.resolve("schema.json"),
+            "{\"properties\": {\"age\": {\"type\": \"integer\", \"minimum\": 0}}, \"required\": [\"name\"]}");
+        String records = "name=John age=30\nname=Jane age=-1\nage=old\n";
+        System.setIn(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--validate", schema.toString());
+
+        assertEquals(1, exitCode);
+        assertEquals("<result>{\"name\":\"John\",\"age\":30}</result>", outContent.toString().trim());
+        assertTrue(errContent.toString().contains("Error at line 2: /age: must be >= 0"));
+        assertTrue(errContent.toString().contains("Error at line 3: /age: must be integer, was string; /name: is required"));
+
+        outContent.reset();
+        errContent.reset();
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--validate", schema.toString(), "--build", "age=5");
+        assertEquals(1, exitCode);
+        assertEquals("", outContent.toString());
+        assertTrue(errContent.toString().contains("Error: /name: is required"));
+    }
+
+    @Test
+    void testErrorsSidecarAndMaxErrors(@TempDir Path tempDir) throws Exception {
+        Path input = Files.writeString(tempDir.resolve("records.txt"), "a=1\nbad\nb=2\n=3\nc=3\nx y z\nd=4\n");
+        Path errors = tempDir.resolve("errors.jsonl");
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute(
+            "--batch", "--input", input.toString(), "--errors", errors.toString(), "--max-errors", "2");
+
+        assertEquals(1, exitCode);
+        assertEquals(List.of("<result>{\"a\":1}</result>", "<result>{\"b\":2}</result>"),
+            outContent.toString().lines().toList());
+        List<String> reported = Files.readAllLines(errors);
+        assertEquals(2, reported.size());
+        assertTrue(reported.get(0).startsWith("{\"line\":2,\"code\":\"too-few-arguments\""));
+        assertTrue(reported.get(1).startsWith("{\"line\":4,\"code\":\"empty-field\",\"position\":1,\"input\":\"=3\""));
+        assertTrue(errContent.toString().contains("Error: stopped at 2 invalid records (--max-errors)"));
+        assertFalse(errContent.toString().contains("Error at line"));
+
+        outContent.reset();
+        errContent.reset();
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute(
+            "--batch", "--mmap", "--input", input.toString(), "--max-errors", "3");
+        assertEquals(1, exitCode);
+        assertEquals(3, outContent.toString().lines().count());
+        assertTrue(errContent.toString().contains("Error at line 6: Invalid number of arguments"));
+        assertFalse(errContent.toString().contains("line 7"));
+
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--max-errors", "0");
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("Error: --max-errors must be at least 1, was 0"));
+    }
+
+    @Test
+    void testStreamMode(@TempDir Path tempDir) throws Exception {
+        System.setIn(new ByteArrayInputStream("a=1\0b=two words\nmore\0".getBytes(StandardCharsets.UTF_8)));
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--stream", "-0");
+
+        assertEquals(0, exitCode);
+        assertEquals("<result>{\"a\":1,\"b\":\"two words\\nmore\"}</result>", outContent.toString().trim());
+
+        Path input = Files.writeString(tempDir.resolve("pairs.txt"), "a=1\nb=2\na=3\n");
+        outContent.reset();
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--stream", "--duplicates", "last", "--input", input.toString());
+        assertEquals(0, exitCode);
+        assertEquals("<result>{\"b\":2,\"a\":3}</result>", outContent.toString().trim());
+
+        outContent.reset();
+        exitCode = new CommandLine(new ResultGeneratorCli()).execute("--stream", "--input", input.toString());
+        assertEquals(1, exitCode);
+        assertTrue(errContent.toString().contains("Error: Duplicate field 'a' at pair 3"));
+    }
+
+    @Test
+    void testStatsReportPhases(@TempDir Path tempDir) throws Exception {
+        Path input = Files.writeString(tempDir.resolve("records.txt"), "name=John age=30\n=bad\nname=Jane age=41\n");
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute("--batch", "--stats", "--input", input.toString());
+
+        assertEquals(1, exitCode);
+        assertEquals(2, outContent.toString().trim().split("\\R").length);
+        String report = errContent.toString();
+        assertTrue(report.contains("Records: 2 converted, 1 errors"));
+        assertTrue(report.contains("Bytes: 39 in, " + outContent.size() + " out"));
+        for (String phase : new String[] {"read", "tokenize", "parse", "serialize", "write"}) {
+            assertTrue(report.contains("\n" + phase + " "), phase);
+        }
+    }
+
+    @Test
+    void testStatsJsonFile(@TempDir Path tempDir) throws Exception {
+        Path input = Files.writeString(tempDir.resolve("records.txt"), "id=1\nid=2\n");
+        Path stats = tempDir.resolve("stats.json");
+
+        int exitCode = new CommandLine(new ResultGeneratorCli()).execute(
+            "--mmap", "--input", input.toString(), "--stats", stats.toString());
+
+        assertEquals(0, exitCode);
+        assertEquals("", errContent.toString());
+        JsonNode report = new ObjectMapper().readTree(stats.toFile());
+        assertEquals(2, report.get("records").asLong());
+        assertEquals(10, report.get("bytesIn").asLong());
+        assertEquals(2, report.get("phases").get("parse").get("count").asLong());
+    }
 }
@@ -0,0 +1,87 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunStatsTest {
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000_000, histogram.max());
+        assertEquals(50_000_500.0, histogram.mean(), 0.001);
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            double expected = percentile * 1_000_000;
+            double error = Math.abs(histogram.percentile(percentile) - expected) / expected;
+            assertTrue(error <= 1.0 / LatencyHistogram.SUB_BUCKETS, percentile + ": " + histogram.percentile(percentile));
+        }
+        assertEquals(histogram.max(), histogram.percentile(100));
+    }
+
+    @Test
+    void testHistogramBucketsCoverEveryValue() {
+        long previous = -1;
+        for (int index = 0; index < (Long.SIZE - LatencyHistogram.SUB_BUCKET_BITS) * LatencyHistogram.SUB_BUCKETS; index++) {
+            long highest = LatencyHistogram.highestValue(index);
+            assertEquals(index, LatencyHistogram.index(previous + 1));
+            assertEquals(index, LatencyHistogram.index(highest));
+            previous = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        RunStats stats = new RunStats();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        stats.record(RunStats.Phase.PARSE, i);
+                        stats.addRecord(100);
+                    }
+                });
+            }
+        }
+
+        assertEquals(40_000, stats.records());
+        assertEquals(40_000, stats.histogram(RunStats.Phase.PARSE).count());
+        assertEquals(9_999, stats.histogram(RunStats.Phase.PARSE).max());
+    }
+
+    @Test
+    void testReport() {
+        RunStats stats = new RunStats();
+        stats.record(RunStats.Phase.TOKENIZE, 120);
+        stats.addRecord(RunStats.threadAllocatedBytes() < 0 ? -1 : 64);
+        stats.addError(-1);
+        stats.addBytesIn(10);
+        stats.addBytesOut(20);
+        stats.stop();
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        stats.printReport(new PrintStream(report, true, StandardCharsets.UTF_8));
+        String text = report.toString(StandardCharsets.UTF_8);
+
+        assertTrue(text.startsWith("Records: 1 converted, 1 errors in "));
+        assertTrue(text.contains("Bytes: 10 in, 20 out"));
+        assertTrue(text.contains("tokenize "));
+        assertFalse(text.contains("serialize "));
+        Map<String, Object> map = stats.toMap();
+        assertEquals(2L, ((Number) map.get("records")).longValue() + ((Number) map.get("errors")).longValue());
+        assertEquals(120L, ((Map<?, ?>) ((Map<?, ?>) map.get("phases")).get("tokenize")).get("maxNanos"));
+    }
+}
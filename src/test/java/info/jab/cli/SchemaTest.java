@@ -0,0 +1,101 @@
+package info.jab.cli;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaTest {
+
+    private static final Map<String, FieldType> FIELD_TYPES = Map.of(
+        "zip", FieldType.STRING,
+        "age", FieldType.INT,
+        "id", FieldType.LONG,
+        "price", FieldType.DOUBLE,
+        "active", FieldType.BOOLEAN,
+        "tags", FieldType.RAW_JSON);
+
+    private static PairParser parser(UnknownFieldPolicy policy) {
+        return new PairParser(new ValueParser(), new KeyCache(), new Schema(FIELD_TYPES, policy));
+    }
+
+    @Test
+    void testDeclaredTypesReplaceInference() {
+        Map<String, Object> result = parser(UnknownFieldPolicy.REJECT).parsePairs(new String[] {
+            "zip=02134", "age='41'", "id=7", "price=20", "active=TRUE", "tags=[1, \"a\"]"});
+
+        assertEquals("02134", result.get("zip"));
+        assertEquals(41, result.get("age"));
+        assertEquals(7L, result.get("id"));
+        assertEquals(20.0, result.get("price"));
+        assertEquals(Boolean.TRUE, result.get("active"));
+        assertEquals(new RawValue("[1, \"a\"]"), result.get("tags"));
+    }
+
+    @Test
+    void testInvalidValuesAreReported() {
+        PairParser parser = parser(UnknownFieldPolicy.INFER);
+
+        RecordException exception = assertThrows(RecordException.class,
+            () -> parser.parsePairs(new String[] {"age=forty"}));
+        assertEquals("Invalid int value for field 'age': 'forty'", exception.getMessage());
+        assertThrows(RecordException.class, () -> parser.parsePairs(new String[] {"id=3.5"}));
+        assertThrows(RecordException.class, () -> parser.parsePairs(new String[] {"active=yes"}));
+        assertThrows(RecordException.class, () -> parser.parsePairs(new String[] {"tags={\"a\":}"}));
+        assertThrows(RecordException.class, () -> parser.parsePairs(new String[] {"tags=1 2"}));
+    }
+
+    @Test
+    void testNumberChecksMatchTheJdkParsers() {
+        String[] values = {"0", "-0", "+7", "-", "+", "", "12a", "007", "2147483647", "2147483648", "-2147483648",
+            "-2147483649", "00002147483647", "9223372036854775807", "9223372036854775808", "-9223372036854775808",
+            "-9223372036854775809", "99999999999999999999", "\u0661\u0662", "1.5", ".5", "5.", ".", "1e5", "1E-5",
+            "1e", "1e+", "2.5f", "2.5D", "2.5x", " 3.5 ", "NaN", "-Infinity", "Infinityf", "nan", "0x1p3", "0X1.8P-1",
+            "0x.8p1d", "0x1", "0x", "0xp1", "1_000", "\u0661.5"};
+        for (String value : values) {
+            assertEquals(accepts(() -> Integer.parseInt(value)), FieldType.INT.convert(value, 0, value.length()) != null, value);
+            assertEquals(accepts(() -> Long.parseLong(value)), FieldType.LONG.convert(value, 0, value.length()) != null, value);
+            assertEquals(accepts(() -> Double.parseDouble(value)), FieldType.DOUBLE.convert(value, 0, value.length()) != null,
+                value);
+        }
+    }
+
+    private static boolean accepts(Runnable parse) {
+        try {
+            parse.run();
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void testUnknownFieldPolicies() {
+        String[] pairs = {"zip=02134", "count=5"};
+
+        RecordException exception = assertThrows(RecordException.class,
+            () -> parser(UnknownFieldPolicy.REJECT).parsePairs(pairs));
+        assertEquals("Unknown field 'count' is not declared in the schema", exception.getMessage());
+        assertEquals("5", parser(UnknownFieldPolicy.PASS).parsePairs(pairs).get("count"));
+        assertEquals(5, parser(UnknownFieldPolicy.INFER).parsePairs(pairs).get("count"));
+    }
+
+    @Test
+    void testLoadSchemaFile(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("schema.json"), "{\"zip\": \"string\", \"age\": \"int\"}");
+
+        Schema schema = Schema.load(file, UnknownFieldPolicy.PASS);
+
+        assertEquals("02134", schema.parseValue("zip", "02134", 0, 5, new ValueParser()));
+
+        Path invalid = Files.writeString(tempDir.resolve("invalid.json"), "{\"zip\": \"zipcode\"}");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> Schema.load(invalid, UnknownFieldPolicy.PASS));
+        assertTrue(exception.getMessage().startsWith("Invalid schema field 'zip': Unknown type 'zipcode'"));
+    }
+}
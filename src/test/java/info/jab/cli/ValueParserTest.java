@@ -0,0 +1,165 @@
+package info.jab.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueParserTest {
+
+    private final ValueParser valueParser = new ValueParser();
+
+    /**
+     * Reference implementation based on exceptions, kept to verify that the single-pass
+     * classifier preserves exactly the same typing semantics.
+     */
+    private static Object legacyParseValue(String value) {
+        if ((value.startsWith("\"") && value.endsWith("\"")) ||
+            (value.startsWith("'") && value.endsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        try {
+            if (!value.contains(".") && !value.contains("e") && !value.contains("E")) {
+                long longValue = Long.parseLong(value);
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            }
+        } catch (NumberFormatException e) {
+            // Not an integer
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private void assertSameAsLegacy(String value) {
+        Object expected;
+        try {
+            expected = legacyParseValue(value);
+        } catch (StringIndexOutOfBoundsException e) {
+            // A lone quote used to fail; it is now a plain string
+            assertEquals(value, valueParser.parseValue(value));
+            return;
+        }
+        Object actual = valueParser.parseValue(value);
+        assertEquals(expected, actual, () -> "Value: '" + value + "'");
+        assertEquals(expected.getClass(), actual.getClass(), () -> "Value: '" + value + "'");
+    }
+
+    @Test
+    void testCuratedCorpus() {
+        List<String> corpus = List.of(
+            "", " ", "John", "John Doe", "true", "null", "e", "E", "hello", "user@example.com",
+            "\"\"", "''", "\"", "'", "\"123\"", "'456'", "\"John\"", "\"mixed'", "'a", "a'",
+            "0", "-0", "+0", "1", "-1", "+1", "+", "-", "--1", "+-1", "1-",
+            "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+            "99999999999999999999", "-99999999999999999999", "00000000000000000000001",
+            "19.99", "-5.5", ".5", "5.", ".", "-.", "1.2.3", "1..2", "0.0", "-0.0",
+            "1e5", "1E5", "1e", "1e+", "1e-5", "1E+05", "e5", ".e5", "1.e5", ".5e-3", "1e5.5",
+            "12f", "12F", "12d", "12D", "1.5f", "1e3d", "12ff", "f", "d", "12x", "1f2",
+            "NaN", "-NaN", "+NaN", "nan", "NaNx", "Infinity", "-Infinity", "+Infinity", "Infinityx", "Inf",
+            "0x1p3", "0X1P3", "-0x1.8p1", "0x.8p1", "0x1.p1", "0x1", "0x", "0xp1", "0x1p", "0x1p+2f",
+            "00x1p1", "1x1p1", "0x1g1p1",
+            " 12", "12 ", " 12 ", "\t1.5\n", " 1e3 ", " abc", "1 2", " NaN ", " \"a\"",
+            "١٢٣", "-١", "１２", "١.5", "1٢",
+            "1_000", "1,000", "١", "é", "12é"
+        );
+        for (String value : corpus) {
+            assertSameAsLegacy(value);
+        }
+    }
+
+    @Test
+    void testRandomCorpus() {
+        String alphabet = "0123456789+-.eExXpPfFdDNaIity \t'\"a١";
+        Random random = new Random(42);
+        for (int n = 0; n < 200_000; n++) {
+            int length = random.nextInt(10);
+            StringBuilder value = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsLegacy(value.toString());
+        }
+    }
+
+    @Test
+    void testRandomNumbers() {
+        Random random = new Random(7);
+        List<String> values = new ArrayList<>();
+        for (int n = 0; n < 20_000; n++) {
+            values.add(Integer.toString(random.nextInt()));
+            values.add(Long.toString(random.nextLong()));
+            values.add(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+            values.add(Double.toHexString(random.nextGaussian()));
+        }
+        for (String value : values) {
+            assertSameAsLegacy(value);
+        }
+    }
+
+    @Test
+    void testParseValueRegion() {
+        String pair = "name=  42  ";
+
+        assertEquals(42, valueParser.parseValue(pair, 7, 9));
+        assertEquals("name", valueParser.parseValue(pair, 0, 4));
+        assertEquals("John", valueParser.parseValue("x='John'", 2, 8));
+        assertEquals(1.5, valueParser.parseValue("a:1.5;", 2, 5));
+    }
+
+    @Test
+    void testLosslessNumbersKeepTheirText() {
+        ValueParser lossless = new ValueParser(NumberMode.LOSSLESS);
+
+        for (String number : new String[] {"0", "-0", "42", "1.50", "1e400", "-2.5E-3", "123456789012345678901234567890",
+                "0.1000000000000000055511151231257827"}) {
+            assertEquals(RawNumber.of(number), lossless.parseValue(number), number);
+        }
+        // Outside the JSON grammar, values are typed as before
+        assertEquals(5, lossless.parseValue("+5"));
+        assertEquals(7, lossless.parseValue("007"));
+        assertEquals(Double.NaN, lossless.parseValue("NaN"));
+        assertEquals(8.0, lossless.parseValue("0x1p3"));
+        assertEquals(1.0, lossless.parseValue("1."));
+        assertEquals("123", lossless.parseValue("\"123\""));
+        assertEquals("12abc", lossless.parseValue("12abc"));
+    }
+
+    @Test
+    void testBigNumbers() {
+        ValueParser big = new ValueParser(NumberMode.BIG);
+
+        assertEquals(new BigInteger("42"), big.parseValue("42"));
+        assertEquals(new BigInteger("-123456789012345678901234567890"), big.parseValue("-123456789012345678901234567890"));
+        assertEquals(new BigDecimal("1.50"), big.parseValue("1.50"));
+        assertEquals(new BigDecimal("1e3"), big.parseValue("1e3"));
+        assertEquals(5, big.parseValue("+5"));
+    }
+
+    @Test
+    void testRawNumberConversions() {
+        RawNumber number = RawNumber.of("-12.50e1");
+
+        assertFalse(number.isIntegral());
+        assertEquals(-125.0, number.doubleValue());
+        assertEquals(-125, number.longValue());
+        assertEquals(new BigDecimal("-12.50e1"), number.bigDecimalValue());
+        assertEquals(new BigInteger("-125"), number.bigIntegerValue());
+        assertEquals(Long.MAX_VALUE, RawNumber.of("9223372036854775807").longValue());
+        assertTrue(RawNumber.of("9223372036854775807").isIntegral());
+        for (String invalid : new String[] {"", "-", "01", "1.", ".5", "1e", "+1", "1e+", "0x10", " 1"}) {
+            assertThrows(IllegalArgumentException.class, () -> RawNumber.of(invalid), invalid);
+        }
+    }
+}